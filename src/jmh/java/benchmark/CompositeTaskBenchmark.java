@@ -0,0 +1,51 @@
+package benchmark;
+
+import model.CompositeTask;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark di {@link CompositeTask#isCompletato()} su gerarchie profonde.
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompositeTaskBenchmark {
+
+    /** Numero di livelli della gerarchia */
+    @Param({"10", "100", "1000"})
+    public int profondita;
+
+    /** Numero di foglie completate per livello */
+    @Param({"1", "100"})
+    public int fogliePerLivello;
+
+    /** Radice della gerarchia, con l'unica foglia non completata nell'ultimo livello */
+    private CompositeTask radice;
+
+    /**
+     * Costruisce la gerarchia.
+     */
+    @Setup(Level.Trial)
+    public void prepara() {
+        radice = DatiBenchmark.catena(profondita, fogliePerLivello);
+    }
+
+    /**
+     * Misura il calcolo dello stato di completamento della radice.
+     *
+     * @return lo stato della radice
+     */
+    @Benchmark
+    public boolean isCompletato() {
+        return radice.isCompletato();
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import model.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * {@code DatiBenchmark} genera i dati usati dai benchmark, in modo deterministico
+ * così che esecuzioni diverse misurino lo stesso carico.
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+final class DatiBenchmark {
+
+    /** Seme del generatore pseudo-casuale */
+    private static final long SEME = 42;
+
+    /** Data da cui vengono calcolate le scadenze */
+    private static final LocalDate INIZIO = LocalDate.of(2025, 1, 1);
+
+    private DatiBenchmark() {
+        // Classe di utilità
+    }
+
+    /**
+     * Genera una lista di task semplici con titoli univoci, scadenze entro due anni,
+     * priorità distribuite uniformemente e circa un terzo delle task completate.
+     *
+     * @param numero il numero di task da generare
+     * @return la lista dei task
+     */
+    static List<Task> tasks(int numero) {
+        SplittableRandom random = new SplittableRandom(SEME);
+        Priorita[] priorita = Priorita.values();
+        List<Task> tasks = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            Task t = new Task("Task " + i, "Descrizione " + i,
+                    INIZIO.plusDays(random.nextInt(730)), priorita[random.nextInt(priorita.length)]);
+            if (random.nextInt(3) == 0) {
+                t.completaTask();
+            }
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    /**
+     * Genera una foresta di task composite, ognuna con il numero di subtask indicato,
+     * per un totale di {@code numero} task.
+     *
+     * @param numero il numero totale di task
+     * @param subtaskPerRadice il numero di subtask di ogni radice
+     * @return le radici della foresta
+     */
+    static List<Task> foresta(int numero, int subtaskPerRadice) {
+        List<Task> radici = new ArrayList<>();
+        CompositeTask corrente = null;
+        int figli = 0;
+        for (Task t : tasks(numero)) {
+            if (corrente == null || figli == subtaskPerRadice) {
+                corrente = new CompositeTask(t.getTitolo(), t.getDescrizione(), t.getScadenza(), t.getPriorita());
+                radici.add(corrente);
+                figli = 0;
+            } else {
+                corrente.addSubtask(t);
+                figli++;
+            }
+        }
+        return radici;
+    }
+
+    /**
+     * Genera una catena di task composite della profondità indicata,
+     * in cui ogni livello ha anche un certo numero di foglie già completate.
+     *
+     * @param profondita il numero di livelli
+     * @param fogliePerLivello il numero di foglie di ogni livello
+     * @return la radice della catena
+     */
+    static CompositeTask catena(int profondita, int fogliePerLivello) {
+        CompositeTask radice = new CompositeTask("Livello 0", "Desc", INIZIO, Priorita.MEDIA);
+        CompositeTask livello = radice;
+        for (int d = 1; d < profondita; d++) {
+            for (int f = 0; f < fogliePerLivello; f++) {
+                Task foglia = new Task("Foglia " + d + "-" + f, "Desc", INIZIO, Priorita.BASSA);
+                foglia.completaTask();
+                livello.addSubtask(foglia);
+            }
+            CompositeTask figlio = new CompositeTask("Livello " + d, "Desc", INIZIO, Priorita.MEDIA);
+            livello.addSubtask(figlio);
+            livello = figlio;
+        }
+        livello.addSubtask(new Task("Ultima", "Desc", INIZIO, Priorita.ALTA));
+        return radice;
+    }
+}
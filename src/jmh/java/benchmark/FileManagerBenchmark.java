@@ -0,0 +1,120 @@
+package benchmark;
+
+import model.Task;
+import service.TaskManager;
+import util.FileManager;
+import util.RisultatoImport;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark di salvataggio e caricamento di {@link FileManager}, nei formati testuale e binario.
+ * <p>Ogni invocazione elabora l'intero file: il throughput in task al secondo si ottiene
+ * dividendo la dimensione per il tempo misurato.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileManagerBenchmark {
+
+    /** Numero di task nel file */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int dimensione;
+
+    /** Task da salvare */
+    private List<Task> tasks;
+
+    /** File testuale già popolato, usato dai benchmark di caricamento */
+    private Path testo;
+
+    /** File binario già popolato, usato dai benchmark di caricamento */
+    private Path binario;
+
+    /** File di destinazione dei benchmark di salvataggio */
+    private Path destinazione;
+
+    /**
+     * Genera le task e i file da caricare.
+     *
+     * @throws IOException se non è possibile creare i file temporanei
+     */
+    @Setup(Level.Trial)
+    public void prepara() throws IOException {
+        tasks = DatiBenchmark.tasks(dimensione);
+        testo = Files.createTempFile("benchmark", ".txt");
+        binario = Files.createTempFile("benchmark", ".bin");
+        destinazione = Files.createTempFile("benchmark", ".out");
+        FileManager.salvaTask(tasks, testo.toString());
+        FileManager.salvaTaskBinario(tasks, binario.toString());
+    }
+
+    /**
+     * Elimina i file temporanei.
+     *
+     * @throws IOException se non è possibile eliminare i file
+     */
+    @TearDown(Level.Trial)
+    public void pulisci() throws IOException {
+        Files.deleteIfExists(testo);
+        Files.deleteIfExists(binario);
+        Files.deleteIfExists(destinazione);
+    }
+
+    /**
+     * Misura il salvataggio in formato testuale.
+     */
+    @Benchmark
+    public void salvaTesto() {
+        FileManager.salvaTask(tasks, destinazione.toString());
+    }
+
+    /**
+     * Misura il caricamento dal formato testuale.
+     *
+     * @return le task caricate
+     */
+    @Benchmark
+    public List<Task> caricaTesto() {
+        return FileManager.caricaTask(testo.toString());
+    }
+
+    /**
+     * Misura il salvataggio in formato binario.
+     */
+    @Benchmark
+    public void salvaBinario() {
+        FileManager.salvaTaskBinario(tasks, destinazione.toString());
+    }
+
+    /**
+     * Misura il caricamento dal formato binario.
+     *
+     * @return le task caricate
+     */
+    @Benchmark
+    public List<Task> caricaBinario() {
+        return FileManager.caricaTaskBinario(binario.toString());
+    }
+
+    /**
+     * Misura l'importazione parallela mappata in memoria del formato testuale.
+     *
+     * @return il risultato dell'importazione
+     */
+    @Benchmark
+    public RisultatoImport importaMappato() {
+        return FileManager.importaMappato(testo.toString(), new TaskManager());
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import model.Task;
+import strategy.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark delle implementazioni di {@link TaskSortStrategy} al variare del numero di task.
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyBenchmark {
+
+    /** Numero di task da ordinare */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int dimensione;
+
+    /** Strategia misurata */
+    @Param({"priorita", "scadenza", "completamento", "multichiave"})
+    public String strategia;
+
+    /** Task da ordinare */
+    private List<Task> tasks;
+
+    /** Istanza della strategia misurata */
+    private TaskSortStrategy sorter;
+
+    /**
+     * Genera le task e istanzia la strategia.
+     */
+    @Setup(Level.Trial)
+    public void prepara() {
+        tasks = DatiBenchmark.tasks(dimensione);
+        switch (strategia) {
+            case "priorita":
+                sorter = new OrdinaPerPriorita();
+                break;
+            case "scadenza":
+                sorter = new OrdinaPerScadenza();
+                break;
+            case "completamento":
+                sorter = new OrdinaPerCompletamento();
+                break;
+            case "multichiave":
+                sorter = new OrdinaMultiChiave(OrdinaMultiChiave.Chiave.COMPLETAMENTO, OrdinaMultiChiave.Chiave.PRIORITA,
+                        OrdinaMultiChiave.Chiave.SCADENZA, OrdinaMultiChiave.Chiave.TITOLO);
+                break;
+            default:
+                throw new IllegalArgumentException("Strategia sconosciuta: " + strategia);
+        }
+    }
+
+    /**
+     * Misura l'ordinamento dell'intera lista.
+     *
+     * @return la lista ordinata
+     */
+    @Benchmark
+    public List<Task> ordina() {
+        return sorter.ordina(tasks);
+    }
+
+    /**
+     * Misura la selezione dei primi 50 task, come per la prima pagina dell'interfaccia.
+     *
+     * @return i primi 50 task ordinati
+     */
+    @Benchmark
+    public List<Task> ordinaPrimi() {
+        return sorter.ordinaPrimi(tasks, 50);
+    }
+}
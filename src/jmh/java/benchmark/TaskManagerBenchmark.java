@@ -0,0 +1,138 @@
+package benchmark;
+
+import model.*;
+import service.TaskManager;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark delle operazioni principali di {@link TaskManager} al variare del numero di task.
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+
+    /** Numero di task gestiti */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int dimensione;
+
+    /** Manager popolato con task semplici */
+    private TaskManager manager;
+
+    /** Manager popolato con task composite da dieci subtask */
+    private TaskManager managerComposito;
+
+    /** Task aggiunta e rimossa a ogni invocazione */
+    private Task temporanea;
+
+    /**
+     * Prepara i manager per la dimensione corrente.
+     */
+    @Setup(Level.Trial)
+    public void prepara() {
+        manager = new TaskManager();
+        for (Task t : DatiBenchmark.tasks(dimensione)) {
+            manager.aggiungiTask(t);
+        }
+        managerComposito = new TaskManager();
+        for (Task t : DatiBenchmark.foresta(dimensione, 10)) {
+            managerComposito.aggiungiTask(t);
+        }
+        temporanea = new Task("Temporanea", "Desc", LocalDate.of(2025, 6, 1), Priorita.ALTA);
+    }
+
+    /**
+     * Misura un'aggiunta seguita dalla rimozione della stessa task,
+     * lasciando invariata la dimensione del manager.
+     */
+    @Benchmark
+    public void aggiungiERimuovi() {
+        manager.aggiungiTask(temporanea);
+        manager.rimuoviTask(temporanea);
+    }
+
+    /**
+     * Misura il filtro per priorità.
+     *
+     * @return le task filtrate
+     */
+    @Benchmark
+    public List<Task> filtraPerPriorita() {
+        return manager.filtraPerPriorita(Priorita.ALTA);
+    }
+
+    /**
+     * Misura l'appiattimento della gerarchia di task composite.
+     *
+     * @return tutte le task con i subtask
+     */
+    @Benchmark
+    public List<Task> getTuttiConSubtasks() {
+        return managerComposito.getTuttiConSubtasks();
+    }
+
+    /**
+     * Misura un'iterazione completa del manager.
+     *
+     * @param blackhole consuma le task per evitare l'eliminazione del ciclo
+     */
+    @Benchmark
+    public void iterazione(Blackhole blackhole) {
+        for (Task t : manager) {
+            blackhole.consume(t);
+        }
+    }
+
+    /**
+     * Benchmark del riempimento di un manager vuoto, misurato come singola esecuzione.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public static class Riempimento {
+
+        /** Numero di task da aggiungere */
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int dimensione;
+
+        /** Task da aggiungere, nuove a ogni iterazione */
+        private List<Task> tasks;
+
+        /**
+         * Genera task nuove per ogni iterazione, così che nessuna sia già registrata
+         * nel manager di un'iterazione precedente.
+         */
+        @Setup(Level.Iteration)
+        public void prepara() {
+            tasks = DatiBenchmark.tasks(dimensione);
+        }
+
+        /**
+         * Misura l'aggiunta di tutte le task a un manager vuoto.
+         *
+         * @return il manager riempito
+         */
+        @Benchmark
+        public TaskManager aggiungiTask() {
+            TaskManager manager = new TaskManager();
+            for (Task t : tasks) {
+                manager.aggiungiTask(t);
+            }
+            return manager;
+        }
+    }
+}
@@ -170,16 +170,11 @@ public class Main {
 
         // Iterazione e stampa di tutti i tasks con indentazione dei subtasks
         System.out.println("\nTutti i task (inclusi subtasks):");
-        List<Task> tuttiConSubtasks = manager.getTuttiConSubtasks();
-        for (int i = 0; i < tuttiConSubtasks.size(); i++) {
-            Task t = tuttiConSubtasks.get(i);
-            String indent = (t instanceof CompositeTask || 
-                            tuttiConSubtasks.stream()
-                                .filter(ct -> ct instanceof CompositeTask)
-                                .anyMatch(ct -> ((CompositeTask)ct).getSubtasks().contains(t))) 
-                            ? "  " : "";
-            System.out.println(indent + (i+1) + ". " + t);
-        }
+        int[] numero = {0};
+        manager.visitaConSubtasks((t, profondita) -> {
+            String indent = (t instanceof CompositeTask || profondita > 0) ? "  " : "";
+            System.out.println(indent + (++numero[0]) + ". " + t);
+        });
 
         // Strategy Pattern : visualizzazione tasks e filtraggio
 
@@ -0,0 +1,440 @@
+package memento;
+
+import model.Priorita;
+import model.Task;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@code CronologiaDelta} è un caretaker limitato che conserva gli stati di {@link Task}
+ * come differenze tra stati consecutivi, con supporto per annullamento e ripristino.
+ *
+ * <p>Per ogni task (identificata dal titolo) viene mantenuto un solo stato completo, quello
+ * corrente. Ogni voce della cronologia contiene soltanto i campi che differiscono dallo stato
+ * adiacente più vicino a quello corrente, quindi un salvataggio senza modifiche non costa
+ * nulla oltre all'intestazione della voce e la memoria non dipende dai campi invariati.</p>
+ *
+ * <p>Le voci stanno in un buffer circolare: quando si supera la profondità massima
+ * o il budget di byte stimati, le voci più vecchie vengono scartate.</p>
+ *
+ * <p>La cronologia è unica per tutte le task, come in {@link TaskCaretaker}:
+ * {@link #annulla(TaskMemento)} e {@link #ripeti(TaskMemento)} ricevono lo stato corrente
+ * della task interessata, indicata da {@link #getTitoloDaAnnullare()} e
+ * {@link #getTitoloDaRipetere()}, così che l'operazione possa essere invertita.
+ * Un nuovo salvataggio scarta gli stati da ripetere.</p>
+ *
+ * <p>La classe non è thread-safe.</p>
+ *
+ * @see TaskMemento
+ * @see TaskCaretaker
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class CronologiaDelta {
+
+    /** Numero massimo predefinito di voci */
+    public static final int PROFONDITA_PREDEFINITA = 1000;
+
+    /** Budget predefinito di byte stimati */
+    public static final long BYTE_PREDEFINITI = 1L << 20;
+
+    /** Stima dei byte occupati da una voce senza campi modificati */
+    private static final int BYTE_VOCE = 48;
+
+    /** Stima dei byte di una stringa, esclusi i caratteri */
+    private static final int BYTE_STRINGA = 40;
+
+    /** Stima dei byte di una data */
+    private static final int BYTE_DATA = 24;
+
+    /** Bit della descrizione nella maschera dei campi modificati */
+    private static final int DESCRIZIONE = 1;
+
+    /** Bit della scadenza nella maschera dei campi modificati */
+    private static final int SCADENZA = 2;
+
+    /** Bit della priorità nella maschera dei campi modificati */
+    private static final int PRIORITA = 4;
+
+    /** Bit del completamento nella maschera dei campi modificati */
+    private static final int COMPLETAMENTO = 8;
+
+    /** Voci della cronologia, indicizzate per sequenza modulo la capacità */
+    private final Voce[] voci;
+
+    /** Budget massimo di byte stimati */
+    private final long byteMassimi;
+
+    /** Storia di ogni task con voci nella cronologia, indicizzata per titolo */
+    private final Map<String, Storia> storie = new HashMap<>();
+
+    /** Sequenza della voce più vecchia */
+    private long inizio;
+
+    /** Sequenza della prima voce da ripetere: le voci precedenti sono da annullare */
+    private long cursore;
+
+    /** Sequenza successiva all'ultima voce */
+    private long fine;
+
+    /** Byte stimati occupati dalle voci */
+    private long byteStimati;
+
+    /**
+     * Crea una cronologia con profondità e budget predefiniti.
+     */
+    public CronologiaDelta() {
+        this(PROFONDITA_PREDEFINITA, BYTE_PREDEFINITI);
+    }
+
+    /**
+     * Crea una cronologia con i limiti indicati.
+     *
+     * @param profondita numero massimo di voci conservate
+     * @param byteMassimi budget massimo di byte stimati per le voci
+     * @throws IllegalArgumentException se uno dei limiti non è positivo
+     */
+    public CronologiaDelta(int profondita, long byteMassimi) {
+        if (profondita <= 0 || byteMassimi <= 0) {
+            throw new IllegalArgumentException("Profondità e budget devono essere positivi");
+        }
+        this.voci = new Voce[profondita];
+        this.byteMassimi = byteMassimi;
+    }
+
+    /**
+     * Salva lo stato corrente di una task prima di modificarla.
+     * <p>Gli stati da ripetere vengono scartati.</p>
+     *
+     * @param stato il memento con lo stato corrente
+     * @throws IllegalArgumentException se {@code stato} è null
+     */
+    public void salva(TaskMemento stato) {
+        Stato corrente = Stato.di(stato);
+        scartaDaRipetere();
+        if (fine - inizio == voci.length) {
+            scartaPiuVecchia();
+        }
+        Storia storia = storie.computeIfAbsent(corrente.titolo, t -> new Storia(corrente));
+        if (storia.ultimaDaAnnullare >= inizio) {
+            ricodifica(voce(storia.ultimaDaAnnullare), storia.corrente, corrente);
+        }
+        Voce nuova = new Voce(corrente.titolo, storia.ultimaDaAnnullare);
+        codifica(nuova, corrente, corrente);
+        voci[indice(fine)] = nuova;
+        storia.ultimaDaAnnullare = fine;
+        storia.corrente = corrente;
+        fine++;
+        cursore = fine;
+        rispettaBudget();
+    }
+
+    /**
+     * Annulla l'ultima modifica salvata, restituendo lo stato precedente della task.
+     *
+     * @param corrente lo stato corrente della task indicata da {@link #getTitoloDaAnnullare()},
+     *                 conservato per poter ripetere la modifica
+     * @return il memento con lo stato da ripristinare, oppure {@code null} se non c'è nulla da annullare
+     * @throws IllegalArgumentException se {@code corrente} è null o riguarda un'altra task
+     */
+    public TaskMemento annulla(TaskMemento corrente) {
+        if (cursore == inizio) {
+            return null;
+        }
+        long sequenza = cursore - 1;
+        Voce voce = voce(sequenza);
+        Stato nuovo = Stato.di(corrente);
+        Storia storia = storiaDi(voce, nuovo);
+        Stato ripristinato = decodifica(voce, storia.corrente);
+        if (storia.primaDaRipetere >= 0) {
+            ricodifica(voce(storia.primaDaRipetere), storia.corrente, nuovo);
+        }
+        storia.ultimaDaAnnullare = voce.collegata >= inizio ? voce.collegata : -1;
+        voce.collegata = storia.primaDaRipetere;
+        storia.primaDaRipetere = sequenza;
+        codifica(voce, nuovo, ripristinato);
+        storia.corrente = ripristinato;
+        cursore--;
+        rispettaBudget();
+        return ripristinato.memento();
+    }
+
+    /**
+     * Ripete l'ultima modifica annullata, restituendo lo stato successivo della task.
+     *
+     * @param corrente lo stato corrente della task indicata da {@link #getTitoloDaRipetere()},
+     *                 conservato per poter annullare di nuovo la modifica
+     * @return il memento con lo stato da ripristinare, oppure {@code null} se non c'è nulla da ripetere
+     * @throws IllegalArgumentException se {@code corrente} è null o riguarda un'altra task
+     */
+    public TaskMemento ripeti(TaskMemento corrente) {
+        if (cursore == fine) {
+            return null;
+        }
+        long sequenza = cursore;
+        Voce voce = voce(sequenza);
+        Stato nuovo = Stato.di(corrente);
+        Storia storia = storiaDi(voce, nuovo);
+        Stato ripristinato = decodifica(voce, storia.corrente);
+        if (storia.ultimaDaAnnullare >= inizio) {
+            ricodifica(voce(storia.ultimaDaAnnullare), storia.corrente, nuovo);
+        }
+        storia.primaDaRipetere = voce.collegata;
+        voce.collegata = storia.ultimaDaAnnullare >= inizio ? storia.ultimaDaAnnullare : -1;
+        storia.ultimaDaAnnullare = sequenza;
+        codifica(voce, nuovo, ripristinato);
+        storia.corrente = ripristinato;
+        cursore++;
+        rispettaBudget();
+        return ripristinato.memento();
+    }
+
+    /**
+     * Restituisce il titolo della task interessata dal prossimo annullamento.
+     *
+     * @return il titolo, oppure {@code null} se non c'è nulla da annullare
+     */
+    public String getTitoloDaAnnullare() {
+        return cursore == inizio ? null : voce(cursore - 1).titolo;
+    }
+
+    /**
+     * Restituisce il titolo della task interessata dalla prossima ripetizione.
+     *
+     * @return il titolo, oppure {@code null} se non c'è nulla da ripetere
+     */
+    public String getTitoloDaRipetere() {
+        return cursore == fine ? null : voce(cursore).titolo;
+    }
+
+    /**
+     * Restituisce il numero di voci conservate, da annullare e da ripetere.
+     *
+     * @return numero di voci
+     */
+    public int getNumeroVoci() {
+        return (int) (fine - inizio);
+    }
+
+    /**
+     * Restituisce la stima dei byte occupati dalle voci.
+     *
+     * @return byte stimati
+     */
+    public long getByteStimati() {
+        return byteStimati;
+    }
+
+    /**
+     * Scarta tutte le voci da ripetere.
+     * La storia di una task senza voci da annullare viene eliminata alla sua prima voce,
+     * quindi le voci successive della stessa task non la trovano più.
+     */
+    private void scartaDaRipetere() {
+        for (long s = cursore; s < fine; s++) {
+            Voce voce = voce(s);
+            Storia storia = storie.get(voce.titolo);
+            if (storia != null) {
+                storia.primaDaRipetere = -1;
+                if (storia.ultimaDaAnnullare < inizio) {
+                    storie.remove(voce.titolo);
+                }
+            }
+            byteStimati -= voce.byteStimati;
+            voci[indice(s)] = null;
+        }
+        fine = cursore;
+    }
+
+    /**
+     * Scarta le voci da annullare più vecchie finché le voci rientrano nel budget.
+     * Le voci da ripetere non vengono scartate, perché sono le più vicine allo stato corrente.
+     */
+    private void rispettaBudget() {
+        while (byteStimati > byteMassimi && cursore > inizio) {
+            scartaPiuVecchia();
+        }
+    }
+
+    /**
+     * Scarta la voce più vecchia, che è sempre l'ultima da annullare della sua task.
+     */
+    private void scartaPiuVecchia() {
+        Voce voce = voce(inizio);
+        Storia storia = storie.get(voce.titolo);
+        if (storia.ultimaDaAnnullare == inizio) {
+            storia.ultimaDaAnnullare = -1;
+            if (storia.primaDaRipetere < 0) {
+                storie.remove(voce.titolo);
+            }
+        }
+        byteStimati -= voce.byteStimati;
+        voci[indice(inizio)] = null;
+        inizio++;
+    }
+
+    /**
+     * Restituisce la storia della task di una voce, verificando che lo stato corrente
+     * ricevuto riguardi la stessa task.
+     */
+    private Storia storiaDi(Voce voce, Stato corrente) {
+        if (!voce.titolo.equals(corrente.titolo)) {
+            throw new IllegalArgumentException("Lo stato corrente deve riguardare la task: " + voce.titolo);
+        }
+        return storie.get(voce.titolo);
+    }
+
+    /**
+     * Aggiorna il riferimento di una voce quando lo stato adiacente cambia.
+     *
+     * @param voce la voce da aggiornare
+     * @param vecchioRiferimento lo stato rispetto a cui è codificata
+     * @param nuovoRiferimento lo stato rispetto a cui deve essere codificata
+     */
+    private void ricodifica(Voce voce, Stato vecchioRiferimento, Stato nuovoRiferimento) {
+        codifica(voce, decodifica(voce, vecchioRiferimento), nuovoRiferimento);
+    }
+
+    /**
+     * Scrive nella voce i campi di {@code stato} che differiscono da {@code riferimento}.
+     */
+    private void codifica(Voce voce, Stato stato, Stato riferimento) {
+        int campi = 0;
+        int dimensione = BYTE_VOCE;
+        voce.descrizione = null;
+        voce.scadenza = null;
+        voce.priorita = null;
+        if (!Objects.equals(stato.descrizione, riferimento.descrizione)) {
+            campi |= DESCRIZIONE;
+            voce.descrizione = stato.descrizione;
+            dimensione += stato.descrizione == null ? 0 : BYTE_STRINGA + 2 * stato.descrizione.length();
+        }
+        if (!Objects.equals(stato.scadenza, riferimento.scadenza)) {
+            campi |= SCADENZA;
+            voce.scadenza = stato.scadenza;
+            dimensione += BYTE_DATA;
+        }
+        if (stato.priorita != riferimento.priorita) {
+            campi |= PRIORITA;
+            voce.priorita = stato.priorita;
+        }
+        if (stato.completato != riferimento.completato) {
+            campi |= COMPLETAMENTO;
+        }
+        voce.campi = (byte) campi;
+        byteStimati += dimensione - voce.byteStimati;
+        voce.byteStimati = dimensione;
+    }
+
+    /**
+     * Ricostruisce lo stato di una voce a partire dallo stato rispetto a cui è codificata.
+     */
+    private static Stato decodifica(Voce voce, Stato riferimento) {
+        if (voce.campi == 0) {
+            return riferimento;
+        }
+        return new Stato(riferimento.titolo,
+                (voce.campi & DESCRIZIONE) != 0 ? voce.descrizione : riferimento.descrizione,
+                (voce.campi & SCADENZA) != 0 ? voce.scadenza : riferimento.scadenza,
+                (voce.campi & PRIORITA) != 0 ? voce.priorita : riferimento.priorita,
+                (voce.campi & COMPLETAMENTO) != 0 != riferimento.completato);
+    }
+
+    /**
+     * Restituisce la voce con la sequenza indicata.
+     */
+    private Voce voce(long sequenza) {
+        return voci[indice(sequenza)];
+    }
+
+    /**
+     * Restituisce la posizione nel buffer circolare della voce con la sequenza indicata.
+     */
+    private int indice(long sequenza) {
+        return (int) (sequenza % voci.length);
+    }
+
+    /**
+     * Voce della cronologia: i campi che differiscono dallo stato adiacente verso quello corrente.
+     */
+    private static final class Voce {
+        /** Titolo della task */
+        private final String titolo;
+        /** Sequenza della voce adiacente della stessa task, più lontana dallo stato corrente */
+        private long collegata;
+        /** Maschera dei campi modificati */
+        private byte campi;
+        /** Valori dei campi modificati */
+        private String descrizione;
+        private LocalDate scadenza;
+        private Priorita priorita;
+        /** Byte stimati occupati dalla voce */
+        private int byteStimati;
+
+        Voce(String titolo, long collegata) {
+            this.titolo = titolo;
+            this.collegata = collegata;
+        }
+    }
+
+    /**
+     * Stato della cronologia di una task: lo stato corrente e le voci più vicine a esso.
+     */
+    private static final class Storia {
+        /** Stato corrente noto della task */
+        private Stato corrente;
+        /** Sequenza dell'ultima voce da annullare, oppure un valore negativo */
+        private long ultimaDaAnnullare = -1;
+        /** Sequenza della prima voce da ripetere, oppure un valore negativo */
+        private long primaDaRipetere = -1;
+
+        Storia(Stato corrente) {
+            this.corrente = corrente;
+        }
+    }
+
+    /**
+     * Valori immutabili dei campi di una task.
+     */
+    private static final class Stato {
+        private final String titolo;
+        private final String descrizione;
+        private final LocalDate scadenza;
+        private final Priorita priorita;
+        private final boolean completato;
+
+        Stato(String titolo, String descrizione, LocalDate scadenza, Priorita priorita, boolean completato) {
+            this.titolo = titolo;
+            this.descrizione = descrizione;
+            this.scadenza = scadenza;
+            this.priorita = priorita;
+            this.completato = completato;
+        }
+
+        /**
+         * Legge i campi della task salvata in un memento.
+         *
+         * @throws IllegalArgumentException se il memento o la sua task sono null
+         */
+        static Stato di(TaskMemento memento) {
+            if (memento == null || memento.getStatoSalvato() == null) {
+                throw new IllegalArgumentException("Il memento non può essere null");
+            }
+            Task t = memento.getStatoSalvato();
+            return new Stato(t.getTitolo(), t.getDescrizione(), t.getScadenza(), t.getPriorita(), t.isCompletato());
+        }
+
+        /**
+         * Crea un memento con una nuova task avente questi campi.
+         */
+        TaskMemento memento() {
+            Task t = new Task(titolo, descrizione, scadenza, priorita);
+            if (completato) {
+                t.completaTask();
+            }
+            return new TaskMemento(t);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package memento;
+
+import model.Task;
+import util.LoggerUtil;
+import util.TaskBinaryCodec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@code CronologiaSuDisco} è un caretaker a due livelli per sessioni di modifica molto lunghe:
+ * i {@link TaskMemento} più recenti restano in memoria, quelli più vecchi vengono spostati
+ * in un file e riletti solo quando un annullamento arriva fino a loro.
+ *
+ * <p>Come {@link TaskCaretaker}, la cronologia è una pila: {@link #annulla()} restituisce
+ * l'ultimo stato salvato. Oltre la capacità in memoria gli stati più vecchi vengono accodati
+ * e scritti a lotti da un thread in background, quindi {@link #salva(TaskMemento)} non attende
+ * il disco. Ogni lotto viene codificato sul thread chiamante nel momento in cui viene consegnato:
+ * il thread di scrittura riceve soltanto i byte già pronti e non accede mai alle task, che il
+ * chiamante può continuare a modificare. Ogni record del file è codificato con {@link TaskBinaryCodec#scriviTask} ed è seguito
+ * dalla propria lunghezza, così i record si rileggono a ritroso senza tenere in memoria
+ * alcun indice: la memoria occupata resta costante qualunque sia la lunghezza della cronologia.</p>
+ *
+ * <p>Degli stati scritti su disco vengono conservati i campi della task, non i suoi subtask.
+ * Se una scrittura fallisce l'errore viene registrato nel log e la cronologia continua
+ * a funzionare soltanto in memoria.</p>
+ *
+ * <p>La classe non è thread-safe e va chiusa con {@link #close()}, che elimina il file.</p>
+ *
+ * @see TaskMemento
+ * @see TaskCaretaker
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class CronologiaSuDisco implements Closeable {
+
+    /** Numero predefinito di stati conservati in memoria */
+    public static final int CAPACITA_PREDEFINITA = 256;
+
+    /** Numero di stati scritti su disco in un solo lotto */
+    public static final int DIMENSIONE_LOTTO = 64;
+
+    /** Numero di lotti in attesa oltre cui {@link #salva(TaskMemento)} attende la scrittura in corso */
+    private static final int LOTTI_IN_ATTESA = 4;
+
+    /** File in cui vengono spostati gli stati più vecchi */
+    private final Path file;
+
+    /** Canale del file, usato con letture e scritture posizionali */
+    private final FileChannel canale;
+
+    /** Numero massimo di stati conservati in memoria */
+    private final int capacita;
+
+    /** Thread che scrive i lotti sul file */
+    private final ExecutorService scrittore = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cronologia-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Codec usato per rileggere i record dal thread chiamante */
+    private final TaskBinaryCodec codecLettura = new TaskBinaryCodec();
+
+    /** Codec usato per codificare i lotti dal thread chiamante */
+    private final TaskBinaryCodec codecScrittura = new TaskBinaryCodec();
+
+    /** Stati più recenti, dal più vecchio al più nuovo */
+    private final Deque<TaskMemento> recenti = new ArrayDeque<>();
+
+    /** Stati usciti dalla memoria e in attesa di essere scritti, dal più vecchio al più nuovo */
+    private final Deque<TaskMemento> inAttesa = new ArrayDeque<>();
+
+    /** Lotto in corso di scrittura, oppure {@code null} */
+    private List<TaskMemento> inScrittura;
+
+    /** Scrittura in corso, che restituisce la nuova fine del file */
+    private CompletableFuture<Long> scrittura;
+
+    /** Fine dei record validi nel file */
+    private long fineFile;
+
+    /** Numero di stati scritti nel file */
+    private int suDisco;
+
+    /** Diventa {@code false} dopo un errore di scrittura */
+    private boolean discoDisponibile = true;
+
+    /**
+     * Crea una cronologia con la capacità in memoria predefinita.
+     *
+     * @param file il file in cui spostare gli stati più vecchi, sovrascritto se esiste
+     * @throws IOException se il file non può essere creato
+     */
+    public CronologiaSuDisco(Path file) throws IOException {
+        this(file, CAPACITA_PREDEFINITA);
+    }
+
+    /**
+     * Crea una cronologia con la capacità in memoria indicata.
+     *
+     * @param file il file in cui spostare gli stati più vecchi, sovrascritto se esiste
+     * @param capacita il numero di stati più recenti da conservare in memoria
+     * @throws IOException se il file non può essere creato
+     * @throws IllegalArgumentException se {@code file} è null o la capacità non è positiva
+     */
+    public CronologiaSuDisco(Path file, int capacita) throws IOException {
+        if (file == null || capacita <= 0) {
+            throw new IllegalArgumentException("File e capacità positiva sono obbligatori");
+        }
+        this.file = file;
+        this.capacita = capacita;
+        this.canale = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Salva uno stato nella cronologia.
+     * <p>Se la memoria è piena lo stato più vecchio viene accodato per la scrittura su disco,
+     * che avviene in background a lotti di {@link #DIMENSIONE_LOTTO} stati.</p>
+     *
+     * @param stato il memento da salvare
+     * @throws IllegalArgumentException se {@code stato} è null
+     */
+    public void salva(TaskMemento stato) {
+        if (stato == null) {
+            throw new IllegalArgumentException("Il memento non può essere null");
+        }
+        recenti.addLast(stato);
+        if (recenti.size() > capacita) {
+            inAttesa.addLast(recenti.removeFirst());
+            if (inAttesa.size() >= DIMENSIONE_LOTTO) {
+                avviaScrittura();
+            }
+        }
+    }
+
+    /**
+     * Ripristina l'ultimo stato salvato (undo). Quando gli stati in memoria sono esauriti,
+     * lo stato viene riletto dal file.
+     *
+     * @return il memento più recente, oppure {@code null} se la cronologia è vuota
+     *         o il file non può essere letto
+     */
+    public TaskMemento annulla() {
+        if (!recenti.isEmpty()) {
+            return recenti.removeLast();
+        }
+        if (!inAttesa.isEmpty()) {
+            return inAttesa.removeLast();
+        }
+        if (scrittura != null) {
+            completaScrittura();
+            if (!inAttesa.isEmpty()) {
+                return inAttesa.removeLast();
+            }
+        }
+        if (suDisco == 0) {
+            return null;
+        }
+        try {
+            return leggiUltimo();
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella lettura della cronologia: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Restituisce il numero di stati nella cronologia, in memoria e su disco.
+     *
+     * @return numero di stati
+     */
+    public int getNumeroStati() {
+        return recenti.size() + inAttesa.size() + (inScrittura == null ? 0 : inScrittura.size()) + suDisco;
+    }
+
+    /**
+     * Attende la scrittura in corso, chiude il file e lo elimina.
+     *
+     * @throws IOException se il file non può essere chiuso o eliminato
+     */
+    @Override
+    public void close() throws IOException {
+        if (scrittura != null) {
+            completaScrittura();
+        }
+        scrittore.shutdown();
+        canale.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Consegna al thread di scrittura gli stati in attesa. Se è già in corso una scrittura
+     * non ne avvia un'altra, a meno che gli stati in attesa non siano troppi: in quel caso
+     * attende la scrittura in corso.
+     */
+    private void avviaScrittura() {
+        if (scrittura != null) {
+            if (!scrittura.isDone() && inAttesa.size() < DIMENSIONE_LOTTO * LOTTI_IN_ATTESA) {
+                return;
+            }
+            completaScrittura();
+        }
+        if (!discoDisponibile) {
+            return;
+        }
+        List<TaskMemento> lotto = new ArrayList<>(inAttesa);
+        byte[] dati;
+        try {
+            dati = codifica(lotto);
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella codifica della cronologia: " + e.getMessage());
+            discoDisponibile = false;
+            return;
+        }
+        inAttesa.clear();
+        long posizione = fineFile;
+        inScrittura = lotto;
+        scrittura = CompletableFuture.supplyAsync(() -> scrivi(dati, posizione), scrittore);
+    }
+
+    /**
+     * Codifica un lotto di stati nei record del file, ciascuno seguito dalla propria lunghezza.
+     * Viene eseguito dal thread chiamante, così le task non vengono mai lette da altri thread.
+     *
+     * @param lotto gli stati da codificare, dal più vecchio al più nuovo
+     * @return i byte da accodare al file
+     * @throws IOException se uno stato non può essere codificato
+     */
+    private byte[] codifica(List<TaskMemento> lotto) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(lotto.size() * 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        for (TaskMemento m : lotto) {
+            int inizio = buffer.size();
+            codecScrittura.scriviTask(out, m.getStatoSalvato());
+            out.writeInt(buffer.size() - inizio);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Attende la scrittura in corso e ne registra l'esito. In caso di errore il lotto
+     * torna tra gli stati in attesa e la scrittura su disco viene disattivata.
+     */
+    private void completaScrittura() {
+        try {
+            fineFile = scrittura.join();
+            suDisco += inScrittura.size();
+        } catch (CompletionException e) {
+            LoggerUtil.getLogger().warning("Errore nella scrittura della cronologia: " + e.getCause().getMessage());
+            discoDisponibile = false;
+            for (int i = inScrittura.size() - 1; i >= 0; i--) {
+                inAttesa.addFirst(inScrittura.get(i));
+            }
+        }
+        inScrittura = null;
+        scrittura = null;
+    }
+
+    /**
+     * Scrive un lotto già codificato a partire dalla posizione indicata. Viene eseguito dal thread di scrittura.
+     *
+     * @param lotto i record da scrivere, prodotti da {@link #codifica(List)}
+     * @param posizione la posizione del file da cui scrivere
+     * @return la nuova fine dei record validi
+     */
+    private long scrivi(byte[] lotto, long posizione) {
+        try {
+            ByteBuffer dati = ByteBuffer.wrap(lotto);
+            long fine = posizione;
+            while (dati.hasRemaining()) {
+                fine += canale.write(dati, fine);
+            }
+            return fine;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rilegge l'ultimo stato scritto nel file e lo toglie dalla cronologia.
+     * Il record viene letto a ritroso grazie alla lunghezza che lo segue.
+     *
+     * @return il memento riletto
+     * @throws IOException se il file non può essere letto
+     */
+    private TaskMemento leggiUltimo() throws IOException {
+        ByteBuffer lunghezza = ByteBuffer.allocate(Integer.BYTES);
+        leggi(lunghezza, fineFile - Integer.BYTES);
+        int dimensione = lunghezza.flip().getInt();
+        long inizio = fineFile - Integer.BYTES - dimensione;
+        ByteBuffer record = ByteBuffer.allocate(dimensione);
+        leggi(record, inizio);
+        Task t = codecLettura.leggiTask(new DataInputStream(new ByteArrayInputStream(record.array())));
+        fineFile = inizio;
+        suDisco--;
+        return new TaskMemento(t);
+    }
+
+    /**
+     * Riempie il buffer leggendo dal file a partire dalla posizione indicata.
+     */
+    private void leggi(ByteBuffer buffer, long posizione) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (canale.read(buffer, posizione + buffer.position()) < 0) {
+                throw new EOFException("Record della cronologia incompleto");
+            }
+        }
+    }
+}
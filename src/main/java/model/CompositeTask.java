@@ -1,5 +1,7 @@
 package model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,6 +9,11 @@ import java.util.List;
 /**
  * La classe {@code CompositeTask} rappresenta un'attività composta da più sottotask.
  * <p>Estende {@link Task} e permette la gestione di attività gerarchiche.</p>
+ *
+ * <p>Ogni task può appartenere a una sola task composta. Lo stato aggregato del sottoalbero
+ * (sottotask diretti completati, foglie e foglie completate) è mantenuto in contatori
+ * aggiornati risalendo la catena dei padri a ogni cambiamento, quindi
+ * {@link #isCompletato()} e {@link #percentualeCompletamento()} hanno costo costante.</p>
  * 
  * @author Gian Luca Baccani
  * @version 1.0
@@ -14,7 +21,19 @@ import java.util.List;
 public class CompositeTask extends Task {
 
     /** Lista dei sottotask associati a questa task composta */
-    private List<Task> subtasks = new ArrayList<>();
+    final List<Task> subtasks = new ArrayList<>();
+
+    /** Numero di sottotask diretti completati */
+    int figliCompletati;
+
+    /** Numero di task del sottoalbero, esclusa questa task */
+    int numeroDiscendenti;
+
+    /** Numero di foglie del sottoalbero, esclusa questa task */
+    int numeroFoglie;
+
+    /** Numero di foglie completate del sottoalbero, esclusa questa task */
+    int numeroFoglieCompletate;
     
     /**
      * Costruttore di {@code CompositeTask}.
@@ -32,7 +51,8 @@ public class CompositeTask extends Task {
      * Aggiunge un sottotask alla lista.
      *
      * @param task il sottotask da aggiungere
-     * @throws IllegalArgumentException se il task è {@code null} o uguale a se stesso
+     * @throws IllegalArgumentException se il task è {@code null}, uguale a se stesso,
+     *         appartiene già a un'altra task composta o ne contiene una tra i suoi sottotask
      */
     public void addSubtask(Task task) {
         if (task == null) {
@@ -41,7 +61,29 @@ public class CompositeTask extends Task {
         if (task == this) {
             throw new IllegalArgumentException("Un task non può contenere se stesso");
         }
+        if (task.padre != null) {
+            throw new IllegalArgumentException("Il task appartiene già a un'altra task composta: " + task.getTitolo());
+        }
+        for (CompositeTask antenato = padre; antenato != null; antenato = antenato.padre) {
+            if (antenato == task) {
+                throw new IllegalArgumentException("Un task non può contenere un proprio antenato");
+            }
+        }
+        boolean prima = isCompletato();
+        int primaNodi = contaNodi();
+        int primaFoglie = contaFoglie();
+        int primaCompletate = contaFoglieCompletate();
+        task.padre = this;
+        task.posizione = subtasks.size();
         subtasks.add(task);
+        if (task.isCompletato()) {
+            figliCompletati++;
+        }
+        numeroDiscendenti += task.contaNodi();
+        numeroFoglie += task.contaFoglie();
+        numeroFoglieCompletate += task.contaFoglieCompletate();
+        propagaCambiamento(prima, primaNodi, primaFoglie, primaCompletate);
+        notificaGerarchia((observer, radice) -> observer.sottotaskAggiunto(radice, this, task));
     }
     
     /**
@@ -50,7 +92,27 @@ public class CompositeTask extends Task {
      * @param task il sottotask da rimuovere
      */
     public void removeSubtask(Task task) {
-        subtasks.remove(task);
+        int indice = subtasks.indexOf(task);
+        if (indice < 0) {
+            return;
+        }
+        boolean prima = isCompletato();
+        int primaNodi = contaNodi();
+        int primaFoglie = contaFoglie();
+        int primaCompletate = contaFoglieCompletate();
+        Task rimosso = subtasks.remove(indice);
+        rimosso.padre = null;
+        for (int i = indice; i < subtasks.size(); i++) {
+            subtasks.get(i).posizione = i;
+        }
+        if (rimosso.isCompletato()) {
+            figliCompletati--;
+        }
+        numeroDiscendenti -= rimosso.contaNodi();
+        numeroFoglie -= rimosso.contaFoglie();
+        numeroFoglieCompletate -= rimosso.contaFoglieCompletate();
+        propagaCambiamento(prima, primaNodi, primaFoglie, primaCompletate);
+        notificaGerarchia((observer, radice) -> observer.sottotaskRimosso(radice, this, rimosso, indice));
     }
     
     /**
@@ -62,6 +124,17 @@ public class CompositeTask extends Task {
         return new ArrayList<>(subtasks);
     }
     
+    /**
+     * Restituisce il sottotask nella posizione indicata, senza copiare la lista.
+     *
+     * @param indice la posizione del sottotask
+     * @return il sottotask
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public Task getSubtask(int indice) {
+        return subtasks.get(indice);
+    }
+
     /**
      * Restituisce il numero di sottotask.
      *
@@ -82,16 +155,84 @@ public class CompositeTask extends Task {
         if (subtasks.isEmpty()) {
             return super.isCompletato();
         }
-        return subtasks.stream().allMatch(Task::isCompletato);
+        return figliCompletati == subtasks.size();
     }
-    
+
+    /**
+     * Indica se questa task è stata segnata come completata essa stessa,
+     * indipendentemente dallo stato dei sottotask.
+     *
+     * @return {@code true} se la task è stata completata direttamente
+     */
+    public boolean isCompletatoDirettamente() {
+        return super.isCompletato();
+    }
+
+    /**
+     * Restituisce la percentuale di foglie completate nel sottoalbero di questa task.
+     * Se non ci sono sottotask, la task stessa è l'unica foglia.
+     *
+     * @return la percentuale di completamento, tra 0 e 100
+     */
+    public double percentualeCompletamento() {
+        return contaFoglieCompletate() * 100.0 / contaFoglie();
+    }
+
     /**
      * Segna come completata questa task e tutti i sottotask.
+     * <p>Il sottoalbero viene visitato da {@link CompositeTraversal}, in parallelo se
+     * abbastanza grande, e le task composte che la contengono vengono aggiornate in una
+     * sola risalita. Gli osservatori dei sottotask che cambiano stato vengono notificati
+     * durante la visita sequenziale, oppure al termine di quella parallela; quelli di questa
+     * task e delle task composte che la contengono al termine della risalita.</p>
      */
     @Override
     public void completaTask() {
-        super.completaTask();
-        subtasks.forEach(Task::completaTask);
+        boolean prima = isCompletato();
+        boolean primaDiretto = isCompletatoDirettamente();
+        int primaFoglie = contaFoglie();
+        int primaCompletate = contaFoglieCompletate();
+        Task[] cambiati = CompositeTraversal.completa(this);
+        propagaCambiamento(prima, contaNodi(), primaFoglie, primaCompletate);
+        for (Task t : cambiati) {
+            if (t != null) {
+                t.notificaCompletamento();
+            }
+        }
+        if (!prima || !primaDiretto) {
+            notificaGerarchia((observer, radice) -> observer.taskCompletato(radice, this));
+        }
+    }
+
+    /**
+     * Restituisce il numero di task del sottoalbero, compresa questa.
+     *
+     * @return il numero di task
+     */
+    @Override
+    int contaNodi() {
+        return 1 + numeroDiscendenti;
+    }
+
+    /**
+     * Restituisce il numero di foglie del sottoalbero, o 1 se non ci sono sottotask.
+     *
+     * @return il numero di foglie
+     */
+    @Override
+    int contaFoglie() {
+        return subtasks.isEmpty() ? 1 : numeroFoglie;
+    }
+
+    /**
+     * Restituisce il numero di foglie completate del sottoalbero,
+     * o lo stato della task stessa se non ci sono sottotask.
+     *
+     * @return il numero di foglie completate
+     */
+    @Override
+    int contaFoglieCompletate() {
+        return subtasks.isEmpty() ? (super.isCompletato() ? 1 : 0) : numeroFoglieCompletate;
     }
     
     /**
@@ -114,27 +255,41 @@ public class CompositeTask extends Task {
      * @return una stringa formattata in stile gerarchico
      */
     public String toStringGerarchico() {
-        return toStringGerarchico("");
+        StringBuilder sb = new StringBuilder();
+        try {
+            scriviGerarchia(sb);
+        } catch (IOException e) {
+            // Un StringBuilder non lancia IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
     }
-    
+
     /**
-     * Metodo interno ricorsivo per costruire la rappresentazione gerarchica.
+     * Scrive la rappresentazione gerarchica della task e dei suoi sottotask direttamente
+     * sulla destinazione, una riga per task, indentando ogni livello di due spazi.
+     * <p>La gerarchia viene visitata senza ricorsione e l'indentazione viene presa da un unico
+     * buffer di spazi, quindi la memoria usata non dipende dalla dimensione dell'albero.</p>
      *
-     * @param indent l'indentazione corrente
-     * @return stringa con struttura ad albero
+     * @param out la destinazione, ad esempio un {@link java.io.Writer}
+     * @throws IOException in caso di errore di scrittura
      */
-    private String toStringGerarchico(String indent) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(indent).append(this.toString()).append("\n");
-        
-        for (Task subtask : subtasks) {
-            if (subtask instanceof CompositeTask) {
-                sb.append(((CompositeTask) subtask).toStringGerarchico(indent + "  "));
-            } else {
-                sb.append(indent).append("  ").append(subtask.toString()).append("\n");
-            }
+    public void scriviGerarchia(Appendable out) throws IOException {
+        StringBuilder spazi = new StringBuilder();
+        try {
+            CompositeTraversal.visita(List.of(this), (t, profondita) -> {
+                int larghezza = profondita * 2;
+                while (spazi.length() < larghezza) {
+                    spazi.append(' ');
+                }
+                try {
+                    out.append(spazi, 0, larghezza).append(t.toString()).append('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        
-        return sb.toString();
     }
 }
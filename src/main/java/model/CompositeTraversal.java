@@ -0,0 +1,605 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * {@code CompositeTraversal} è il motore di visita delle gerarchie di {@link CompositeTask},
+ * usato per il completamento in blocco, l'appiattimento e il conteggio.
+ *
+ * <p>I sottoalberi con meno di {@link #SOGLIA_PARALLELA} task vengono visitati in preordine
+ * sul thread chiamante senza pile né copie delle liste dei sottotask: la visita scende
+ * al primo figlio e risale tramite il padre e la posizione di ogni task.
+ * Sopra la soglia il lavoro viene suddiviso in un {@link ForkJoinPool}: i sottoalberi grandi
+ * diventano attività separate e i fratelli piccoli vengono raggruppati in lotti di circa
+ * {@link #SOGLIA_PARALLELA} task.</p>
+ *
+ * <p>La dimensione di ogni sottoalbero è nota in tempo costante grazie ai contatori
+ * di {@link CompositeTask}, quindi la suddivisione e le posizioni dell'appiattimento
+ * non richiedono visite preliminari.</p>
+ *
+ * <p>Per le visite pigre, che possono fermarsi prima della fine, sono disponibili
+ * {@link #iteratore(List)} e {@link #spliterator(List)}: producono le task in preordine
+ * una alla volta, con memoria aggiuntiva costante, e lo spliterator può essere suddiviso
+ * per gli stream paralleli. Le gerarchie non devono essere modificate durante la visita.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public final class CompositeTraversal {
+
+    /** Numero di task sotto il quale un sottoalbero viene visitato su un solo thread */
+    public static final int SOGLIA_PARALLELA = 8_192;
+
+    /** Risultato del completamento sequenziale, che notifica i discendenti durante la visita */
+    private static final Task[] NESSUNA_TASK = new Task[0];
+
+    private CompositeTraversal() {
+        // Classe di utilità
+    }
+
+    /**
+     * Restituisce tutte le task delle gerarchie indicate in preordine:
+     * ogni radice è seguita dai suoi sottotask, ricorsivamente.
+     *
+     * @param radici le radici delle gerarchie
+     * @return una lista a dimensione fissa con tutte le task
+     */
+    public static List<Task> appiattisci(List<? extends Task> radici) {
+        Task[] risultato = new Task[contaNodi(radici)];
+        esegui(radici, new Appiattimento(risultato));
+        return Arrays.asList(risultato);
+    }
+
+    /**
+     * Conta le task delle gerarchie indicate, radici comprese, che soddisfano il criterio.
+     * <p>Sopra la soglia il criterio viene valutato da più thread contemporaneamente.</p>
+     *
+     * @param radici le radici delle gerarchie
+     * @param criterio il criterio da soddisfare
+     * @return il numero di task che soddisfano il criterio
+     */
+    public static int conta(List<? extends Task> radici, Predicate<? super Task> criterio) {
+        return esegui(radici, new Conteggio(criterio)).valore;
+    }
+
+    /**
+     * Segna come completate la task e tutte quelle del suo sottoalbero, aggiornandone i contatori.
+     * <p>Non aggiorna le task composte che contengono la radice e non notifica la radice.
+     * Sotto {@link #SOGLIA_PARALLELA} la visita avviene sul thread chiamante senza strutture
+     * di appoggio e ogni discendente che cambia stato viene notificato durante la visita,
+     * appena il suo stato è definitivo. Sopra la soglia i discendenti cambiati vengono
+     * raccolti, per essere notificati sul thread chiamante al termine.</p>
+     *
+     * @param radice la radice del sottoalbero
+     * @return i discendenti della radice il cui stato è cambiato e che restano da notificare,
+     *         ciascuno nella propria posizione in preordine, con le altre posizioni {@code null};
+     *         un array vuoto se la visita è stata sequenziale
+     */
+    static Task[] completa(CompositeTask radice) {
+        if (radice.contaNodi() < SOGLIA_PARALLELA) {
+            percorri(radice, 0, new Completamento(radice, null), null);
+            return NESSUNA_TASK;
+        }
+        Task[] cambiati = new Task[radice.contaNodi()];
+        ForkJoinPool.commonPool().invoke(new Suddivisione<>(new Completamento(radice, cambiati), radice, 0));
+        return cambiati;
+    }
+
+    /**
+     * Visita in preordine le task delle gerarchie indicate sul thread chiamante,
+     * passando a ogni task la sua profondità. La profondità viene aggiornata scendendo
+     * e risalendo, quindi la visita è lineare nel numero di task.
+     *
+     * @param radici le radici delle gerarchie, a profondità 0
+     * @param visitatore il visitatore che riceve le task
+     */
+    public static void visita(List<? extends Task> radici, VisitatoreGerarchia visitatore) {
+        for (int i = 0; i < radici.size(); i++) {
+            Task radice = radici.get(i);
+            Task nodo = radice;
+            int profondita = 0;
+            discesa:
+            while (true) {
+                visitatore.visita(nodo, profondita);
+                if (nodo instanceof CompositeTask && !((CompositeTask) nodo).subtasks.isEmpty()) {
+                    nodo = ((CompositeTask) nodo).subtasks.get(0);
+                    profondita++;
+                    continue;
+                }
+                while (nodo != radice) {
+                    CompositeTask padre = nodo.padre;
+                    int successivo = nodo.posizione + 1;
+                    if (successivo < padre.subtasks.size()) {
+                        nodo = padre.subtasks.get(successivo);
+                        continue discesa;
+                    }
+                    nodo = padre;
+                    profondita--;
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Restituisce un iteratore pigro sulle task delle gerarchie indicate, in preordine.
+     *
+     * @param radici le radici delle gerarchie
+     * @return un iteratore che non supporta la rimozione
+     */
+    public static Iterator<Task> iteratore(List<? extends Task> radici) {
+        return Spliterators.iterator(spliterator(radici));
+    }
+
+    /**
+     * Restituisce uno spliterator pigro e suddivisibile sulle task delle gerarchie indicate,
+     * in preordine.
+     *
+     * @param radici le radici delle gerarchie
+     * @return lo spliterator
+     */
+    public static Spliterator<Task> spliterator(List<? extends Task> radici) {
+        return new SpliteratorGerarchia(null, null, null, radici, 0, radici.size(), contaNodi(radici));
+    }
+
+    /**
+     * Restituisce la task che segue {@code nodo} in preordine all'interno del sottoalbero di {@code radice}.
+     *
+     * @param nodo la task corrente
+     * @param radice la radice del sottoalbero
+     * @return la task successiva, oppure {@code null} se il sottoalbero è terminato
+     */
+    private static Task successivo(Task nodo, Task radice) {
+        if (nodo instanceof CompositeTask && !((CompositeTask) nodo).subtasks.isEmpty()) {
+            return ((CompositeTask) nodo).subtasks.get(0);
+        }
+        while (nodo != radice) {
+            CompositeTask padre = nodo.padre;
+            int indice = nodo.posizione + 1;
+            if (indice < padre.subtasks.size()) {
+                return padre.subtasks.get(indice);
+            }
+            nodo = padre;
+        }
+        return null;
+    }
+
+    /**
+     * Somma le dimensioni dei sottoalberi delle radici indicate.
+     */
+    private static int contaNodi(List<? extends Task> radici) {
+        int totale = 0;
+        for (int i = 0; i < radici.size(); i++) {
+            totale += radici.get(i).contaNodi();
+        }
+        return totale;
+    }
+
+    /**
+     * Esegue la visita sulle radici indicate, in parallelo se abbastanza grandi.
+     */
+    private static <R> R esegui(List<? extends Task> radici, Visita<R> visita) {
+        if (contaNodi(radici) < SOGLIA_PARALLELA) {
+            R risultato = visita.nuovoRisultato();
+            int indice = 0;
+            for (int i = 0; i < radici.size(); i++) {
+                indice = percorri(radici.get(i), indice, visita, risultato);
+            }
+            return risultato;
+        }
+        return ForkJoinPool.commonPool().invoke(new Suddivisione<>(visita, radici, 0, radici.size(), 0, false));
+    }
+
+    /**
+     * Visita in preordine il sottoalbero della radice sul thread corrente,
+     * senza strutture di appoggio.
+     *
+     * @return l'indice in preordine successivo all'ultima task del sottoalbero
+     */
+    private static <R> int percorri(Task radice, int indice, Visita<R> visita, R risultato) {
+        Task nodo = radice;
+        discesa:
+        while (true) {
+            visita.pre(nodo, indice++, risultato);
+            if (nodo instanceof CompositeTask) {
+                CompositeTask composto = (CompositeTask) nodo;
+                if (!composto.subtasks.isEmpty()) {
+                    nodo = composto.subtasks.get(0);
+                    continue;
+                }
+                visita.post(composto, risultato);
+            }
+            while (nodo != radice) {
+                CompositeTask padre = nodo.padre;
+                int successivo = nodo.posizione + 1;
+                if (successivo < padre.subtasks.size()) {
+                    nodo = padre.subtasks.get(successivo);
+                    continue discesa;
+                }
+                nodo = padre;
+                visita.post(padre, risultato);
+            }
+            return indice;
+        }
+    }
+
+    /**
+     * Spliterator in preordine su una sequenza così composta: una eventuale task di testa
+     * (senza il suo sottoalbero), il resto di un sottoalbero già iniziato e infine
+     * i sottoalberi completi di un intervallo di fratelli.
+     * <p>La suddivisione cede il prefisso e conserva la seconda metà dei fratelli; quando
+     * resta un solo fratello composto, la visita prosegue dentro di esso: la task diventa
+     * la testa e i suoi sottotask i nuovi fratelli.</p>
+     */
+    private static final class SpliteratorGerarchia implements Spliterator<Task> {
+        private Task testa;
+        private Task radice;
+        private Task cursore;
+        private List<? extends Task> fratelli;
+        private int prossimo;
+        private int fine;
+        private long stima;
+
+        SpliteratorGerarchia(Task testa, Task radice, Task cursore, List<? extends Task> fratelli,
+                             int prossimo, int fine, long stima) {
+            this.testa = testa;
+            this.radice = radice;
+            this.cursore = cursore;
+            this.fratelli = fratelli;
+            this.prossimo = prossimo;
+            this.fine = fine;
+            this.stima = stima;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Task> azione) {
+            if (testa != null) {
+                Task t = testa;
+                testa = null;
+                azione.accept(t);
+                return true;
+            }
+            if (cursore == null) {
+                if (prossimo >= fine) {
+                    return false;
+                }
+                radice = fratelli.get(prossimo++);
+                cursore = radice;
+            }
+            Task t = cursore;
+            cursore = successivo(cursore, radice);
+            azione.accept(t);
+            return true;
+        }
+
+        @Override
+        public Spliterator<Task> trySplit() {
+            boolean iniziato = testa != null || cursore != null;
+            int rimanenti = fine - prossimo;
+            if (!iniziato && rimanenti == 1 && fratelli.get(prossimo) instanceof CompositeTask) {
+                CompositeTask unico = (CompositeTask) fratelli.get(prossimo);
+                if (unico.subtasks.isEmpty()) {
+                    return null;
+                }
+                testa = unico;
+                fratelli = unico.subtasks;
+                prossimo = 0;
+                fine = unico.subtasks.size();
+                iniziato = true;
+                rimanenti = fine;
+            }
+            if (rimanenti == 0 || (!iniziato && rimanenti == 1)) {
+                return null;
+            }
+            int meta = prossimo + rimanenti / 2;
+            long stimaPrefisso = stima * (meta - prossimo + (iniziato ? 1 : 0)) / (rimanenti + (iniziato ? 1 : 0));
+            Spliterator<Task> prefisso = new SpliteratorGerarchia(testa, radice, cursore, fratelli,
+                    prossimo, meta, stimaPrefisso);
+            testa = null;
+            radice = null;
+            cursore = null;
+            prossimo = meta;
+            stima -= stimaPrefisso;
+            return prefisso;
+        }
+
+        @Override
+        public long estimateSize() {
+            return stima;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * Operazione eseguita su ogni task visitata. Ogni thread accumula in un proprio risultato,
+     * che viene poi combinato con gli altri nell'ordine delle task.
+     *
+     * @param <R> il tipo del risultato parziale
+     */
+    private abstract static class Visita<R> {
+
+        /**
+         * Crea un risultato parziale vuoto.
+         *
+         * @return il risultato parziale
+         */
+        abstract R nuovoRisultato();
+
+        /**
+         * Visita una task prima dei suoi sottotask.
+         *
+         * @param nodo la task visitata
+         * @param indice la posizione della task in preordine
+         * @param risultato il risultato parziale del thread corrente
+         */
+        abstract void pre(Task nodo, int indice, R risultato);
+
+        /**
+         * Visita una task composta dopo tutti i suoi sottotask.
+         *
+         * @param nodo la task composta visitata
+         * @param risultato il risultato parziale del thread corrente
+         */
+        void post(CompositeTask nodo, R risultato) {
+            // Nessuna azione predefinita
+        }
+
+        /**
+         * Aggiunge al primo risultato parziale il secondo, che riguarda task successive.
+         *
+         * @param primo il risultato da aggiornare
+         * @param secondo il risultato da aggiungere
+         * @return il risultato combinato
+         */
+        abstract R combina(R primo, R secondo);
+    }
+
+    /**
+     * Attività fork-join che visita una task grande, suddividendone i sottotask,
+     * oppure un intervallo di fratelli, sequenzialmente o suddividendolo a sua volta.
+     * Le parti di una suddivisione sono concatenate tra loro, senza liste di appoggio.
+     * Le attività non vengono mai serializzate.
+     */
+    @SuppressWarnings("serial")
+    private static final class Suddivisione<R> extends RecursiveTask<R> {
+        private final Visita<R> visita;
+        private final Task nodo;
+        private final List<? extends Task> fratelli;
+        private final int da;
+        private final int a;
+        private final int indice;
+        private final boolean sequenziale;
+
+        /** Prima parte della suddivisione, eseguita dal thread corrente */
+        private Suddivisione<R> primaParte;
+
+        /** Ultima parte accodata alla suddivisione */
+        private Suddivisione<R> ultimaParte;
+
+        /** Parte successiva a questa nella suddivisione del padre */
+        private Suddivisione<R> prossima;
+
+        /** Visita una task grande, suddividendo i suoi sottotask */
+        Suddivisione(Visita<R> visita, Task nodo, int indice) {
+            this(visita, nodo, null, 0, 0, indice, false);
+        }
+
+        /** Visita un intervallo di fratelli, il primo dei quali ha la posizione in preordine indicata */
+        Suddivisione(Visita<R> visita, List<? extends Task> fratelli, int da, int a, int indice, boolean sequenziale) {
+            this(visita, null, fratelli, da, a, indice, sequenziale);
+        }
+
+        private Suddivisione(Visita<R> visita, Task nodo, List<? extends Task> fratelli,
+                             int da, int a, int indice, boolean sequenziale) {
+            this.visita = visita;
+            this.nodo = nodo;
+            this.fratelli = fratelli;
+            this.da = da;
+            this.a = a;
+            this.indice = indice;
+            this.sequenziale = sequenziale;
+        }
+
+        @Override
+        protected R compute() {
+            if (nodo != null) {
+                CompositeTask composto = (CompositeTask) nodo;
+                R risultato = visita.nuovoRisultato();
+                visita.pre(composto, indice, risultato);
+                risultato = visita.combina(risultato, dividi(composto.subtasks, 0, composto.subtasks.size(), indice + 1));
+                visita.post(composto, risultato);
+                return risultato;
+            }
+            if (sequenziale) {
+                R risultato = visita.nuovoRisultato();
+                int posizione = indice;
+                for (int i = da; i < a; i++) {
+                    posizione = percorri(fratelli.get(i), posizione, visita, risultato);
+                }
+                return risultato;
+            }
+            return dividi(fratelli, da, a, indice);
+        }
+
+        /**
+         * Suddivide un intervallo di fratelli: ogni sottoalbero grande diventa un'attività
+         * a sé, i fratelli piccoli consecutivi vengono raggruppati in lotti.
+         */
+        private R dividi(List<? extends Task> lista, int da, int a, int indice) {
+            int inizioLotto = da;
+            int indiceLotto = indice;
+            int dimensioneLotto = 0;
+            int posizione = indice;
+            for (int i = da; i < a; i++) {
+                Task figlio = lista.get(i);
+                int nodi = figlio.contaNodi();
+                if (nodi >= SOGLIA_PARALLELA) {
+                    if (i > inizioLotto) {
+                        accoda(new Suddivisione<>(visita, lista, inizioLotto, i, indiceLotto, true));
+                    }
+                    accoda(new Suddivisione<>(visita, figlio, posizione));
+                    inizioLotto = i + 1;
+                    indiceLotto = posizione + nodi;
+                    dimensioneLotto = 0;
+                } else {
+                    dimensioneLotto += nodi;
+                    if (dimensioneLotto >= SOGLIA_PARALLELA) {
+                        accoda(new Suddivisione<>(visita, lista, inizioLotto, i + 1, indiceLotto, true));
+                        inizioLotto = i + 1;
+                        indiceLotto = posizione + nodi;
+                        dimensioneLotto = 0;
+                    }
+                }
+                posizione += nodi;
+            }
+            if (inizioLotto < a) {
+                accoda(new Suddivisione<>(visita, lista, inizioLotto, a, indiceLotto, true));
+            }
+            R risultato = primaParte.compute();
+            for (Suddivisione<R> parte = primaParte.prossima; parte != null; parte = parte.prossima) {
+                risultato = visita.combina(risultato, parte.join());
+            }
+            return risultato;
+        }
+
+        /**
+         * Accoda una parte della suddivisione: la prima verrà eseguita dal thread corrente,
+         * le successive vengono avviate subito.
+         */
+        private void accoda(Suddivisione<R> parte) {
+            if (primaParte == null) {
+                primaParte = parte;
+            } else {
+                ultimaParte.prossima = parte;
+                parte.fork();
+            }
+            ultimaParte = parte;
+        }
+    }
+
+    /**
+     * Scrive ogni task nella sua posizione in preordine.
+     */
+    private static final class Appiattimento extends Visita<Void> {
+        private final Task[] risultato;
+
+        Appiattimento(Task[] risultato) {
+            this.risultato = risultato;
+        }
+
+        @Override
+        Void nuovoRisultato() {
+            return null;
+        }
+
+        @Override
+        void pre(Task nodo, int indice, Void parziale) {
+            risultato[indice] = nodo;
+        }
+
+        @Override
+        Void combina(Void primo, Void secondo) {
+            return null;
+        }
+    }
+
+    /**
+     * Conta le task che soddisfano un criterio.
+     */
+    private static final class Conteggio extends Visita<Conteggio.Contatore> {
+        private final Predicate<? super Task> criterio;
+
+        Conteggio(Predicate<? super Task> criterio) {
+            this.criterio = criterio;
+        }
+
+        /** Contatore parziale di un thread */
+        static final class Contatore {
+            int valore;
+        }
+
+        @Override
+        Contatore nuovoRisultato() {
+            return new Contatore();
+        }
+
+        @Override
+        void pre(Task nodo, int indice, Contatore parziale) {
+            if (criterio.test(nodo)) {
+                parziale.valore++;
+            }
+        }
+
+        @Override
+        Contatore combina(Contatore primo, Contatore secondo) {
+            primo.valore += secondo.valore;
+            return primo;
+        }
+    }
+
+    /**
+     * Segna come completate le task e riallinea i contatori delle task composte.
+     * <p>I discendenti della radice che cambiano stato vengono scritti nella loro posizione
+     * in preordine oppure, se non è presente un array, notificati subito: le foglie e le
+     * composite senza sottotask in preordine, le altre composite dopo i propri sottotask,
+     * quando i loro contatori sono aggiornati.</p>
+     */
+    private static final class Completamento extends Visita<Void> {
+        private final CompositeTask radice;
+        /** Discendenti cambiati, oppure {@code null} per notificarli durante la visita */
+        private final Task[] cambiati;
+
+        Completamento(CompositeTask radice, Task[] cambiati) {
+            this.radice = radice;
+            this.cambiati = cambiati;
+        }
+
+        @Override
+        Void nuovoRisultato() {
+            return null;
+        }
+
+        @Override
+        void pre(Task nodo, int indice, Void parziale) {
+            // In preordine il sottoalbero del nodo non è ancora stato modificato
+            boolean cambiato = nodo != radice && !nodo.isCompletato();
+            nodo.segnaCompletato();
+            if (!cambiato) {
+                return;
+            }
+            if (cambiati != null) {
+                cambiati[indice] = nodo;
+            } else if (!(nodo instanceof CompositeTask) || ((CompositeTask) nodo).subtasks.isEmpty()) {
+                nodo.notificaCompletamento();
+            }
+        }
+
+        @Override
+        void post(CompositeTask nodo, Void parziale) {
+            // Solo questo metodo modifica i contatori del nodo, quindi lo stato è ancora quello iniziale
+            boolean cambiato = cambiati == null && nodo != radice && !nodo.isCompletato();
+            nodo.figliCompletati = nodo.subtasks.size();
+            nodo.numeroFoglieCompletate = nodo.numeroFoglie;
+            if (cambiato) {
+                nodo.notificaCompletamento();
+            }
+        }
+
+        @Override
+        Void combina(Void primo, Void secondo) {
+            return null;
+        }
+    }
+}
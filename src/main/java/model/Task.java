@@ -1,7 +1,9 @@
 package model;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 /**
  * La classe {@code Task} rappresenta un'attività singola con titolo, descrizione,
@@ -25,6 +27,16 @@ public class Task {
     private Priorita priorita;
     /** Stato che indica se la task è completata */
     private boolean completato;
+    /**
+     * Osservatori notificati ai cambi di completamento, oppure {@code null} se non ce ne sono.
+     * L'array non viene mai modificato: registrazioni e rimozioni ne pubblicano una copia
+     * sotto il lock della task, così le notifiche possono scorrerlo senza lock da qualsiasi thread.
+     */
+    private volatile TaskObserver[] observers;
+    /** La task composta che contiene questa task, oppure {@code null} */
+    CompositeTask padre;
+    /** Posizione di questa task tra i sottotask del padre */
+    int posizione;
 
     /**
      * Costruttore della classe {@code Task}.
@@ -70,6 +82,33 @@ public class Task {
      */
     public Priorita getPriorita() { return priorita; }
 
+    /**
+     * Restituisce la task composta che contiene questa task.
+     *
+     * @return la task padre, oppure {@code null} se la task non è un sottotask
+     */
+    public CompositeTask getPadre() { return padre; }
+
+    /**
+     * Restituisce la posizione della task tra i sottotask del padre.
+     *
+     * @return la posizione, oppure 0 se la task non è un sottotask
+     */
+    public int getPosizione() { return padre == null ? 0 : posizione; }
+
+    /**
+     * Restituisce la profondità della task nella sua gerarchia, risalendo la catena dei padri.
+     *
+     * @return 0 se la task non è un sottotask, altrimenti la profondità del padre più uno
+     */
+    public int getProfondita() {
+        int profondita = 0;
+        for (CompositeTask p = padre; p != null; p = p.padre) {
+            profondita++;
+        }
+        return profondita;
+    }
+
     /**
      * Indica se la task è stata completata.
      *
@@ -81,7 +120,167 @@ public class Task {
      * Segna la task come completata.
      */
     public void completaTask() {
+        boolean prima = isCompletato();
+        int primaCompletate = contaFoglieCompletate();
         this.completato = true;
+        propagaCambiamento(prima, contaNodi(), contaFoglie(), primaCompletate);
+        if (!prima) {
+            notificaGerarchia((observer, radice) -> observer.taskCompletato(radice, this));
+        }
+    }
+
+    /**
+     * Imposta lo stato di completamento senza aggiornare le task composte
+     * che la contengono né notificare gli osservatori.
+     */
+    void segnaCompletato() {
+        this.completato = true;
+    }
+
+    /**
+     * Restituisce il numero di task del sottoalbero di questa task, compresa se stessa.
+     *
+     * @return il numero di task
+     */
+    int contaNodi() {
+        return 1;
+    }
+
+    /**
+     * Restituisce il numero di foglie che questa task apporta ai contatori della task padre.
+     *
+     * @return il numero di foglie
+     */
+    int contaFoglie() {
+        return 1;
+    }
+
+    /**
+     * Restituisce il numero di foglie completate che questa task apporta ai contatori della task padre.
+     *
+     * @return il numero di foglie completate
+     */
+    int contaFoglieCompletate() {
+        return isCompletato() ? 1 : 0;
+    }
+
+    /**
+     * Aggiorna i contatori delle task composte che contengono questa task dopo un cambio
+     * del suo stato, poi notifica gli osservatori di ogni task il cui stato è cambiato.
+     * <p>Il costo è proporzionale alla profondità: la risalita si ferma al primo livello
+     * in cui né lo stato né i contatori cambiano.</p>
+     *
+     * @param primaCompletato lo stato di completamento prima del cambio
+     * @param primaNodi il numero di task del sottoalbero prima del cambio
+     * @param primaFoglie il numero di foglie prima del cambio
+     * @param primaCompletate il numero di foglie completate prima del cambio
+     */
+    void propagaCambiamento(boolean primaCompletato, int primaNodi, int primaFoglie, int primaCompletate) {
+        int deltaNodi = contaNodi() - primaNodi;
+        int deltaFoglie = contaFoglie() - primaFoglie;
+        int deltaCompletate = contaFoglieCompletate() - primaCompletate;
+        boolean cambiato = primaCompletato != isCompletato();
+        // I livelli cambiati sono sempre contigui: un padre cambia stato solo se cambia un figlio
+        int livelliCambiati = cambiato ? 1 : 0;
+        Task figlio = this;
+        for (CompositeTask p = padre; p != null && (cambiato || deltaNodi != 0 || deltaFoglie != 0 || deltaCompletate != 0); p = p.padre) {
+            boolean primaPadre = p.isCompletato();
+            if (cambiato) {
+                p.figliCompletati += figlio.isCompletato() ? 1 : -1;
+            }
+            p.numeroDiscendenti += deltaNodi;
+            p.numeroFoglie += deltaFoglie;
+            p.numeroFoglieCompletate += deltaCompletate;
+            cambiato = primaPadre != p.isCompletato();
+            if (cambiato) {
+                livelliCambiati++;
+            }
+            figlio = p;
+        }
+        Task nodo = this;
+        for (int i = 0; i < livelliCambiati && nodo != null; i++) {
+            nodo.notificaCompletamento();
+            nodo = nodo.padre;
+        }
+    }
+
+    /**
+     * Registra un osservatore che verrà notificato quando lo stato di completamento cambia.
+     * <p>Può essere invocato da più thread contemporaneamente.</p>
+     *
+     * @param observer l'osservatore da registrare
+     * @throws IllegalArgumentException se {@code observer} è null
+     */
+    public synchronized void aggiungiObserver(TaskObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("L'observer non può essere null");
+        }
+        TaskObserver[] correnti = observers;
+        if (correnti == null) {
+            observers = new TaskObserver[] {observer};
+            return;
+        }
+        TaskObserver[] nuovi = Arrays.copyOf(correnti, correnti.length + 1);
+        nuovi[correnti.length] = observer;
+        observers = nuovi;
+    }
+
+    /**
+     * Rimuove un osservatore registrato in precedenza.
+     * <p>Può essere invocato da più thread contemporaneamente.</p>
+     *
+     * @param observer l'osservatore da rimuovere
+     */
+    public synchronized void rimuoviObserver(TaskObserver observer) {
+        TaskObserver[] correnti = observers;
+        if (correnti == null) {
+            return;
+        }
+        for (int i = 0; i < correnti.length; i++) {
+            if (correnti[i].equals(observer)) {
+                if (correnti.length == 1) {
+                    observers = null;
+                    return;
+                }
+                TaskObserver[] nuovi = new TaskObserver[correnti.length - 1];
+                System.arraycopy(correnti, 0, nuovi, 0, i);
+                System.arraycopy(correnti, i + 1, nuovi, i, nuovi.length - i);
+                observers = nuovi;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Notifica a tutti gli osservatori registrati che lo stato di completamento è cambiato.
+     */
+    protected void notificaCompletamento() {
+        TaskObserver[] correnti = observers;
+        if (correnti == null) {
+            return;
+        }
+        for (TaskObserver observer : correnti) {
+            observer.completamentoCambiato(this);
+        }
+    }
+
+    /**
+     * Notifica un evento agli osservatori della radice della gerarchia che contiene questa task.
+     *
+     * @param evento l'evento, che riceve l'osservatore e la radice
+     */
+    void notificaGerarchia(BiConsumer<TaskObserver, Task> evento) {
+        Task radice = this;
+        while (radice.padre != null) {
+            radice = radice.padre;
+        }
+        TaskObserver[] correnti = radice.observers;
+        if (correnti == null) {
+            return;
+        }
+        for (TaskObserver observer : correnti) {
+            evento.accept(observer, radice);
+        }
     }
 
     /**
@@ -0,0 +1,64 @@
+package model;
+
+/**
+ * {@code TaskObserver} è un'interfaccia che implementa l'Observer Pattern per ricevere
+ * notifiche quando lo stato di completamento di una {@link Task} cambia.
+ *
+ * <p>È utilizzata dal {@code TaskManager} per mantenere aggiornati i propri indici.
+ * Le task composte non hanno bisogno di osservatori: vengono aggiornate direttamente
+ * risalendo la catena dei padri.</p>
+ *
+ * <p>Gli osservatori della radice di una gerarchia ricevono inoltre, tramite i metodi
+ * di default, le modifiche avvenute al suo interno: completamenti diretti e aggiunte
+ * o rimozioni di sottotask a qualsiasi livello.</p>
+ *
+ * @see Task#aggiungiObserver(TaskObserver)
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface TaskObserver {
+
+    /**
+     * Notifica che lo stato restituito da {@link Task#isCompletato()} è cambiato.
+     *
+     * @param task la task il cui stato di completamento è cambiato
+     */
+    void completamentoCambiato(Task task);
+
+    /**
+     * Notifica che una task della gerarchia, radice compresa, è stata completata
+     * con {@link Task#completaTask()}.
+     * <p>I cambi di stato che ne derivano (dei sottotask di una task composta e delle task
+     * composte che la contengono) non vengono notificati con questo metodo.</p>
+     *
+     * @param radice la radice della gerarchia, a cui è registrato l'osservatore
+     * @param task la task completata
+     */
+    default void taskCompletato(Task radice, Task task) {
+        // Nessuna azione di default
+    }
+
+    /**
+     * Notifica che un sottotask è stato aggiunto a una task composta della gerarchia.
+     *
+     * @param radice la radice della gerarchia, a cui è registrato l'osservatore
+     * @param padre la task composta che ha ricevuto il sottotask
+     * @param sottotask il sottotask aggiunto, ora in ultima posizione
+     */
+    default void sottotaskAggiunto(Task radice, CompositeTask padre, Task sottotask) {
+        // Nessuna azione di default
+    }
+
+    /**
+     * Notifica che un sottotask è stato rimosso da una task composta della gerarchia.
+     *
+     * @param radice la radice della gerarchia, a cui è registrato l'osservatore
+     * @param padre la task composta da cui è stato rimosso il sottotask
+     * @param sottotask il sottotask rimosso
+     * @param posizione la posizione che il sottotask occupava
+     */
+    default void sottotaskRimosso(Task radice, CompositeTask padre, Task sottotask, int posizione) {
+        // Nessuna azione di default
+    }
+}
@@ -0,0 +1,21 @@
+package model;
+
+/**
+ * {@code VisitatoreGerarchia} riceve le task di una gerarchia di {@link CompositeTask}
+ * in preordine, insieme alla loro profondità.
+ *
+ * @see CompositeTraversal#visita(java.util.List, VisitatoreGerarchia)
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface VisitatoreGerarchia {
+
+    /**
+     * Visita una task della gerarchia.
+     *
+     * @param task la task visitata
+     * @param profondita la profondità della task: 0 per le radici, 1 per i loro sottotask e così via
+     */
+    void visita(Task task, int profondita);
+}
@@ -0,0 +1,418 @@
+package service;
+
+import model.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * La classe {@code ConcurrentTaskManager} è una variante thread-safe di {@link TaskManager},
+ * pensata per essere condivisa da più thread senza un lock globale.
+ *
+ * <p>Le task sono indicizzate per titolo in una {@link ConcurrentHashMap} e mantenute in ordine
+ * di inserimento in una {@link ConcurrentSkipListMap} ordinata per numero di sequenza.
+ * Aggiunta e rimozione di una stessa task sono serializzate da un lock sulla sola voce
+ * interessata, quindi operazioni su titoli diversi procedono in parallelo e le letture
+ * non acquisiscono alcun lock.</p>
+ *
+ * <p>Iteratori e filtri sono <em>debolmente consistenti</em>: non copiano l'elenco,
+ * non lanciano {@link ConcurrentModificationException} e riflettono lo stato del manager
+ * in un momento qualsiasi tra la loro creazione e il loro utilizzo. Anche i task completati
+ * e da completare sono indicizzati, quindi le relative interrogazioni non scorrono l'elenco.</p>
+ *
+ * <p>I listener vengono notificati sul thread che ha eseguito la modifica, dopo averla resa
+ * visibile e senza tenere alcun lock. Modifiche concorrenti, anche sullo stesso titolo
+ * (ad esempio una rimozione e una nuova aggiunta), possono quindi essere notificate in un
+ * ordine diverso da quello in cui sono avvenute: i listener che richiedono un ordine totale
+ * degli eventi, come un journal, vanno usati con {@link TaskManager} oppure con modifiche
+ * serializzate dal chiamante.</p>
+ *
+ * <p>Come in {@link TaskManager} i titoli sono univoci. La sincronizzazione riguarda
+ * l'elenco e non lo stato interno delle singole task: una task non dovrebbe essere
+ * modificata da più thread contemporaneamente se non tramite {@link #completaTask(Task)}.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class ConcurrentTaskManager implements Iterable<Task> {
+
+    /**
+     * Costruttore di default.
+     */
+    public ConcurrentTaskManager() {
+        for (Priorita p : Priorita.values()) {
+            indicePriorita.put(p, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /** Generatore dei numeri di sequenza che stabiliscono l'ordine di inserimento */
+    private final AtomicLong sequenza = new AtomicLong();
+
+    /** Voce di ogni task, indicizzata per titolo */
+    private final ConcurrentHashMap<String, Voce> perTitolo = new ConcurrentHashMap<>();
+
+    /** Task in ordine di inserimento, indicizzate per numero di sequenza */
+    private final ConcurrentSkipListMap<Long, Task> perOrdine = new ConcurrentSkipListMap<>();
+
+    /** Indice secondario: task raggruppate per priorità, in ordine di inserimento */
+    private final EnumMap<Priorita, ConcurrentSkipListMap<Long, Task>> indicePriorita = new EnumMap<>(Priorita.class);
+
+    /** Task prive di priorità, che non possono essere chiavi dell'{@code EnumMap} */
+    private final ConcurrentSkipListMap<Long, Task> senzaPriorita = new ConcurrentSkipListMap<>();
+
+    /** Indice secondario: task completate, in ordine di inserimento */
+    private final ConcurrentSkipListMap<Long, Task> completati = new ConcurrentSkipListMap<>();
+
+    /** Indice secondario: task da completare, in ordine di inserimento */
+    private final ConcurrentSkipListMap<Long, Task> daCompletare = new ConcurrentSkipListMap<>();
+
+    /** Indice secondario: task ordinate per data di scadenza e, a parità, per inserimento */
+    private final ConcurrentSkipListMap<ChiaveScadenza, Task> indiceScadenza = new ConcurrentSkipListMap<>();
+
+    /** Listener notificati a ogni modifica dell'elenco */
+    private final List<TaskManagerListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Osservatore registrato su ogni task per aggiornare l'indice di completamento e notificare i listener */
+    private final TaskObserver observerCompletamento = this::aggiornaCompletamento;
+
+    /**
+     * Aggiunge un task all'elenco.
+     *
+     * @param t il task da aggiungere
+     * @throws IllegalArgumentException se {@code t} o il suo titolo sono null
+     *         o esiste già un task con lo stesso titolo
+     */
+    public void aggiungiTask(Task t) {
+        if (t == null || t.getTitolo() == null) {
+            throw new IllegalArgumentException("Il task e il suo titolo non possono essere null");
+        }
+        Voce voce = new Voce(sequenza.getAndIncrement(), t);
+        synchronized (voce) {
+            if (perTitolo.putIfAbsent(t.getTitolo(), voce) != null) {
+                throw new IllegalArgumentException("Esiste già un task con titolo: " + t.getTitolo());
+            }
+            perOrdine.put(voce.sequenza, t);
+            bucketPriorita(t.getPriorita()).put(voce.sequenza, t);
+            if (t.getScadenza() != null) {
+                indiceScadenza.put(new ChiaveScadenza(t.getScadenza(), voce.sequenza), t);
+            }
+            t.aggiungiObserver(observerCompletamento);
+            indicizzaCompletamento(voce);
+        }
+        for (TaskManagerListener listener : listeners) {
+            listener.taskAggiunto(t);
+        }
+        concludiModifica();
+    }
+
+    /**
+     * Registra un listener che verrà notificato a ogni modifica dell'elenco.
+     * <p>Le notifiche vengono consegnate sul thread che ha eseguito la modifica.</p>
+     *
+     * @param listener il listener da registrare
+     * @throws IllegalArgumentException se {@code listener} è null
+     */
+    public void aggiungiListener(TaskManagerListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Il listener non può essere null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Rimuove un listener registrato in precedenza.
+     *
+     * @param listener il listener da rimuovere
+     */
+    public void rimuoviListener(TaskManagerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Restituisce una copia dell'elenco di tutti i task, in ordine di inserimento.
+     *
+     * @return lista dei task
+     */
+    public List<Task> getTutti() {
+        return new ArrayList<>(perOrdine.values());
+    }
+
+    /**
+     * Cerca un task a partire dal suo titolo.
+     *
+     * @param titolo il titolo del task
+     * @return il task con quel titolo, oppure {@code null} se non presente
+     */
+    public Task trovaPerTitolo(String titolo) {
+        Voce voce = titolo == null ? null : perTitolo.get(titolo);
+        return voce == null ? null : voce.task;
+    }
+
+    /**
+     * Filtra i task in base alla priorità specificata.
+     *
+     * @param priorita la priorità da filtrare
+     * @return lista di task con la priorità data, in ordine di inserimento
+     */
+    public List<Task> filtraPerPriorita(Priorita priorita) {
+        return List.copyOf(bucketPriorita(priorita).values());
+    }
+
+    /**
+     * Restituisce i task con scadenza compresa tra le due date (estremi inclusi),
+     * ordinati per data di scadenza.
+     *
+     * @param da la data di inizio dell'intervallo
+     * @param a la data di fine dell'intervallo
+     * @return lista di task in scadenza nell'intervallo
+     * @throws IllegalArgumentException se una delle date è null o {@code da} è successiva ad {@code a}
+     */
+    public List<Task> filtraPerScadenza(LocalDate da, LocalDate a) {
+        if (da == null || a == null || da.isAfter(a)) {
+            throw new IllegalArgumentException("Intervallo di date non valido");
+        }
+        return List.copyOf(indiceScadenza.subMap(new ChiaveScadenza(da, Long.MIN_VALUE), true,
+                new ChiaveScadenza(a, Long.MAX_VALUE), true).values());
+    }
+
+    /**
+     * Restituisce i task completati, in ordine di inserimento.
+     *
+     * @return lista dei task completati
+     */
+    public List<Task> getCompletati() {
+        return List.copyOf(completati.values());
+    }
+
+    /**
+     * Restituisce i task non ancora completati, in ordine di inserimento.
+     *
+     * @return lista dei task da completare
+     */
+    public List<Task> getDaCompletare() {
+        return List.copyOf(daCompletare.values());
+    }
+
+    /**
+     * Rimuove un task dall'elenco.
+     * <p>Il task viene individuato tramite il titolo, in tempo costante.</p>
+     *
+     * @param t il task da rimuovere
+     */
+    public void rimuoviTask(Task t) {
+        if (t == null || t.getTitolo() == null) {
+            return;
+        }
+        Voce voce = perTitolo.remove(t.getTitolo());
+        if (voce == null) {
+            return;
+        }
+        Task rimosso = voce.task;
+        synchronized (voce) {
+            perOrdine.remove(voce.sequenza);
+            bucketPriorita(rimosso.getPriorita()).remove(voce.sequenza);
+            if (rimosso.getScadenza() != null) {
+                indiceScadenza.remove(new ChiaveScadenza(rimosso.getScadenza(), voce.sequenza));
+            }
+            completati.remove(voce.sequenza);
+            daCompletare.remove(voce.sequenza);
+            rimosso.rimuoviObserver(observerCompletamento);
+        }
+        for (TaskManagerListener listener : listeners) {
+            listener.taskRimosso(rimosso);
+        }
+        concludiModifica();
+    }
+
+    /**
+     * Segna come completato il task gestito con lo stesso titolo di quello indicato.
+     * <p>Completamenti concorrenti della stessa task vengono serializzati.</p>
+     *
+     * @param t il task da completare
+     * @return {@code true} se il task è presente nel manager, altrimenti {@code false}
+     */
+    public boolean completaTask(Task t) {
+        Voce voce = t == null || t.getTitolo() == null ? null : perTitolo.get(t.getTitolo());
+        if (voce == null) {
+            return false;
+        }
+        synchronized (voce) {
+            voce.task.completaTask();
+        }
+        return true;
+    }
+
+    /**
+     * Restituisce il numero totale di task gestiti.
+     *
+     * @return numero di task
+     */
+    public int getNumeroTasks() {
+        return perTitolo.size();
+    }
+
+    /**
+     * Restituisce un iteratore debolmente consistente sui task, in ordine di inserimento.
+     * <p>L'iteratore non copia l'elenco e non supporta la rimozione.</p>
+     *
+     * @return un {@code Iterator} su {@code Task}
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return Collections.unmodifiableCollection(perOrdine.values()).iterator();
+    }
+
+    /**
+     * Restituisce uno spliterator debolmente consistente sui task, che può essere
+     * suddiviso per elaborare l'elenco in parallelo.
+     *
+     * @return uno {@code Spliterator} su {@code Task}
+     */
+    @Override
+    public Spliterator<Task> spliterator() {
+        return perOrdine.values().spliterator();
+    }
+
+    /**
+     * Restituisce la lista di tutti i task, inclusi i subtasks ricorsivamente.
+     * <p>La visita è delegata a {@link CompositeTraversal}, che suddivide
+     * le gerarchie più grandi tra più thread.</p>
+     *
+     * @return lista completa con subtasks, a dimensione fissa
+     */
+    public List<Task> getTuttiConSubtasks() {
+        return CompositeTraversal.appiattisci(getTutti());
+    }
+
+    /**
+     * Visita tutti i task, inclusi i subtasks, nello stesso ordine di
+     * {@link #getTuttiConSubtasks()}, passando a ognuno la sua profondità nella gerarchia.
+     *
+     * @param visitatore il visitatore che riceve i task e le loro profondità
+     */
+    public void visitaConSubtasks(VisitatoreGerarchia visitatore) {
+        CompositeTraversal.visita(getTutti(), visitatore);
+    }
+
+    /**
+     * Restituisce un iteratore pigro su tutti i task, inclusi i subtasks, nello stesso
+     * ordine di {@link #getTuttiConSubtasks()} ma senza costruire la lista.
+     *
+     * @return un iteratore in profondità sulla gerarchia
+     */
+    public Iterator<Task> iteratoreConSubtasks() {
+        return CompositeTraversal.iteratore(getTutti());
+    }
+
+    /**
+     * Restituisce uno stream pigro su tutti i task, inclusi i subtasks.
+     * <p>Lo stream può essere reso parallelo: la gerarchia viene suddivisa tra i thread
+     * senza essere copiata.</p>
+     *
+     * @return uno stream in profondità sulla gerarchia
+     */
+    public Stream<Task> streamConSubtasks() {
+        return StreamSupport.stream(CompositeTraversal.spliterator(getTutti()), false);
+    }
+
+    /**
+     * Sposta la task della voce nell'indice corrispondente al suo stato di completamento attuale.
+     * <p>Va invocato tenendo il lock della voce: lo stato viene riletto a ogni chiamata,
+     * quindi l'ultima chiamata lascia l'indice coerente qualunque sia l'ordine degli eventi.</p>
+     *
+     * @param voce la voce della task
+     */
+    private void indicizzaCompletamento(Voce voce) {
+        if (voce.task.isCompletato()) {
+            daCompletare.remove(voce.sequenza);
+            completati.put(voce.sequenza, voce.task);
+        } else {
+            completati.remove(voce.sequenza);
+            daCompletare.put(voce.sequenza, voce.task);
+        }
+    }
+
+    /**
+     * Aggiorna l'indice di completamento dopo il cambio di stato di un task
+     * e inoltra il cambio ai listener.
+     *
+     * @param t il task che ha cambiato stato
+     */
+    private void aggiornaCompletamento(Task t) {
+        Voce voce = perTitolo.get(t.getTitolo());
+        if (voce != null && voce.task == t) {
+            synchronized (voce) {
+                // La task potrebbe essere stata rimossa nel frattempo
+                if (perTitolo.get(t.getTitolo()) == voce) {
+                    indicizzaCompletamento(voce);
+                }
+            }
+        }
+        for (TaskManagerListener listener : listeners) {
+            listener.completamentoCambiato(t);
+        }
+        concludiModifica();
+    }
+
+    /**
+     * Notifica ai listener che la modifica corrente è conclusa.
+     */
+    private void concludiModifica() {
+        for (TaskManagerListener listener : listeners) {
+            listener.modificaConclusa();
+        }
+    }
+
+    /**
+     * Restituisce il bucket dell'indice relativo alla priorità data.
+     *
+     * @param priorita la priorità (può essere null)
+     * @return le task con quella priorità, per numero di sequenza
+     */
+    private ConcurrentSkipListMap<Long, Task> bucketPriorita(Priorita priorita) {
+        return priorita == null ? senzaPriorita : indicePriorita.get(priorita);
+    }
+
+    /**
+     * Voce dell'indice per titolo: associa a una task il suo numero di sequenza
+     * e fa da lock per le modifiche che la riguardano.
+     */
+    private static final class Voce {
+        /** Numero di sequenza assegnato all'inserimento */
+        final long sequenza;
+        /** La task gestita */
+        final Task task;
+
+        Voce(long sequenza, Task task) {
+            this.sequenza = sequenza;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Chiave dell'indice per scadenza: la data, con il numero di sequenza
+     * per distinguere task con la stessa scadenza.
+     */
+    private static final class ChiaveScadenza implements Comparable<ChiaveScadenza> {
+        /** La data di scadenza */
+        final LocalDate data;
+        /** Numero di sequenza della task */
+        final long sequenza;
+
+        ChiaveScadenza(LocalDate data, long sequenza) {
+            this.data = data;
+            this.sequenza = sequenza;
+        }
+
+        @Override
+        public int compareTo(ChiaveScadenza altra) {
+            int confronto = data.compareTo(altra.data);
+            return confronto != 0 ? confronto : Long.compare(sequenza, altra.sequenza);
+        }
+    }
+}
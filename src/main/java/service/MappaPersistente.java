@@ -0,0 +1,327 @@
+package service;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@code MappaPersistente} è una mappa immutabile realizzata come hash array mapped trie.
+ *
+ * <p>Ogni nodo interno ha fino a 32 figli, selezionati da 5 bit dell'hash della chiave,
+ * e memorizza solo i figli presenti in un array compatto indicizzato da una bitmap.
+ * Aggiunte e rimozioni restituiscono una nuova mappa copiando soltanto i nodi del percorso
+ * dalla radice alla chiave, al più sette: tutto il resto è condiviso con la mappa originale.
+ * Le chiavi con lo stesso hash finiscono in un nodo di collisione.</p>
+ *
+ * <p>Chiavi e valori non possono essere null.</p>
+ *
+ * @param <K> il tipo delle chiavi
+ * @param <V> il tipo dei valori
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+final class MappaPersistente<K, V> {
+
+    /** Bit dell'hash consumati a ogni livello */
+    private static final int BIT = 5;
+
+    /** Maschera per estrarre i bit di un livello */
+    private static final int MASCHERA = (1 << BIT) - 1;
+
+    /** La mappa vuota */
+    private static final MappaPersistente<?, ?> VUOTA = new MappaPersistente<>(new NodoBitmap(0, new Object[0]), 0);
+
+    /** Radice del trie */
+    private final NodoBitmap radice;
+
+    /** Numero di chiavi */
+    private final int dimensione;
+
+    private MappaPersistente(NodoBitmap radice, int dimensione) {
+        this.radice = radice;
+        this.dimensione = dimensione;
+    }
+
+    /**
+     * Restituisce la mappa vuota.
+     *
+     * @param <K> il tipo delle chiavi
+     * @param <V> il tipo dei valori
+     * @return la mappa vuota, condivisa
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> MappaPersistente<K, V> vuota() {
+        return (MappaPersistente<K, V>) VUOTA;
+    }
+
+    /**
+     * Restituisce il valore associato alla chiave.
+     *
+     * @param chiave la chiave
+     * @return il valore, oppure {@code null} se la chiave è assente
+     */
+    @SuppressWarnings("unchecked")
+    V get(K chiave) {
+        Object valore = radice.cerca(hash(chiave), 0, chiave);
+        return (V) valore;
+    }
+
+    /**
+     * Restituisce una mappa con la chiave associata al valore indicato.
+     *
+     * @param chiave la chiave
+     * @param valore il valore
+     * @return la nuova mappa, oppure questa se l'associazione era già presente
+     */
+    MappaPersistente<K, V> con(K chiave, V valore) {
+        Objects.requireNonNull(valore);
+        boolean presente = get(chiave) != null;
+        NodoBitmap nuova = radice.con(hash(chiave), 0, new Foglia(hash(chiave), chiave, valore));
+        return nuova == radice ? this : new MappaPersistente<>(nuova, presente ? dimensione : dimensione + 1);
+    }
+
+    /**
+     * Restituisce una mappa senza la chiave indicata.
+     *
+     * @param chiave la chiave da togliere
+     * @return la nuova mappa, oppure questa se la chiave era assente
+     */
+    MappaPersistente<K, V> senza(K chiave) {
+        Object nuova = radice.senza(hash(chiave), 0, chiave);
+        if (nuova == radice) {
+            return this;
+        }
+        if (nuova == null) {
+            return vuota();
+        }
+        if (nuova instanceof Foglia) {
+            nuova = new NodoBitmap(bit(((Foglia) nuova).hash, 0), new Object[] {nuova});
+        }
+        return new MappaPersistente<>((NodoBitmap) nuova, dimensione - 1);
+    }
+
+    /**
+     * Restituisce il numero di chiavi.
+     *
+     * @return numero di chiavi
+     */
+    int size() {
+        return dimensione;
+    }
+
+    /**
+     * Distribuisce anche sui bit bassi le differenze tra i bit alti dell'hash.
+     */
+    private static int hash(Object chiave) {
+        int h = chiave.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Restituisce il bit della bitmap corrispondente all'hash al livello indicato.
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASCHERA);
+    }
+
+    /**
+     * Crea il sottoalbero che contiene due foglie con chiavi diverse.
+     */
+    private static Object unisci(int shift, Foglia a, Foglia b) {
+        if (a.hash == b.hash) {
+            return new Collisione(a.hash, new Foglia[] {a, b});
+        }
+        int bitA = bit(a.hash, shift);
+        int bitB = bit(b.hash, shift);
+        if (bitA == bitB) {
+            return new NodoBitmap(bitA, new Object[] {unisci(shift + BIT, a, b)});
+        }
+        // Il bit 31 è negativo: l'ordine dei figli va calcolato senza segno
+        return new NodoBitmap(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[] {a, b} : new Object[] {b, a});
+    }
+
+    /**
+     * Coppia chiave-valore con l'hash della chiave.
+     */
+    private static final class Foglia {
+        private final int hash;
+        private final Object chiave;
+        private final Object valore;
+
+        Foglia(int hash, Object chiave, Object valore) {
+            this.hash = hash;
+            this.chiave = chiave;
+            this.valore = valore;
+        }
+    }
+
+    /**
+     * Nodo interno: la bitmap indica quali dei 32 figli sono presenti, l'array contiene
+     * nell'ordine dei bit le foglie e i sottonodi presenti.
+     */
+    private static final class NodoBitmap {
+        private final int bitmap;
+        private final Object[] figli;
+
+        NodoBitmap(int bitmap, Object[] figli) {
+            this.bitmap = bitmap;
+            this.figli = figli;
+        }
+
+        Object cerca(int hash, int shift, Object chiave) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object figlio = figli[Integer.bitCount(bitmap & (bit - 1))];
+            if (figlio instanceof Foglia) {
+                Foglia foglia = (Foglia) figlio;
+                return foglia.chiave.equals(chiave) ? foglia.valore : null;
+            }
+            if (figlio instanceof Collisione) {
+                return ((Collisione) figlio).cerca(chiave);
+            }
+            return ((NodoBitmap) figlio).cerca(hash, shift + BIT, chiave);
+        }
+
+        NodoBitmap con(int hash, int shift, Foglia nuova) {
+            int bit = bit(hash, shift);
+            int indice = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] copia = new Object[figli.length + 1];
+                System.arraycopy(figli, 0, copia, 0, indice);
+                copia[indice] = nuova;
+                System.arraycopy(figli, indice, copia, indice + 1, figli.length - indice);
+                return new NodoBitmap(bitmap | bit, copia);
+            }
+            Object figlio = figli[indice];
+            Object sostituto;
+            if (figlio instanceof Foglia) {
+                Foglia foglia = (Foglia) figlio;
+                if (foglia.chiave.equals(nuova.chiave)) {
+                    if (foglia.valore == nuova.valore) {
+                        return this;
+                    }
+                    sostituto = nuova;
+                } else {
+                    sostituto = unisci(shift + BIT, foglia, nuova);
+                }
+            } else if (figlio instanceof Collisione) {
+                Collisione collisione = (Collisione) figlio;
+                sostituto = collisione.hash == hash
+                        ? collisione.con(nuova)
+                        : new NodoBitmap(bit(collisione.hash, shift + BIT), new Object[] {collisione})
+                                .con(hash, shift + BIT, nuova);
+            } else {
+                sostituto = ((NodoBitmap) figlio).con(hash, shift + BIT, nuova);
+            }
+            if (sostituto == figlio) {
+                return this;
+            }
+            Object[] copia = figli.clone();
+            copia[indice] = sostituto;
+            return new NodoBitmap(bitmap, copia);
+        }
+
+        /**
+         * Restituisce il nodo senza la chiave: questo stesso nodo se la chiave è assente,
+         * {@code null} se il nodo resta vuoto, una sola foglia se resta soltanto quella.
+         */
+        Object senza(int hash, int shift, Object chiave) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int indice = Integer.bitCount(bitmap & (bit - 1));
+            Object figlio = figli[indice];
+            Object sostituto;
+            if (figlio instanceof Foglia) {
+                if (!((Foglia) figlio).chiave.equals(chiave)) {
+                    return this;
+                }
+                sostituto = null;
+            } else if (figlio instanceof Collisione) {
+                sostituto = ((Collisione) figlio).senza(chiave);
+            } else {
+                sostituto = ((NodoBitmap) figlio).senza(hash, shift + BIT, chiave);
+            }
+            if (sostituto == figlio) {
+                return this;
+            }
+            if (sostituto != null) {
+                if (figli.length == 1 && sostituto instanceof Foglia) {
+                    return sostituto;
+                }
+                Object[] copia = figli.clone();
+                copia[indice] = sostituto;
+                return new NodoBitmap(bitmap, copia);
+            }
+            if (figli.length == 1) {
+                return null;
+            }
+            if (figli.length == 2 && figli[1 - indice] instanceof Foglia) {
+                return figli[1 - indice];
+            }
+            Object[] copia = new Object[figli.length - 1];
+            System.arraycopy(figli, 0, copia, 0, indice);
+            System.arraycopy(figli, indice + 1, copia, indice, figli.length - indice - 1);
+            return new NodoBitmap(bitmap & ~bit, copia);
+        }
+    }
+
+    /**
+     * Nodo con le foglie di chiavi diverse aventi lo stesso hash.
+     */
+    private static final class Collisione {
+        private final int hash;
+        private final Foglia[] foglie;
+
+        Collisione(int hash, Foglia[] foglie) {
+            this.hash = hash;
+            this.foglie = foglie;
+        }
+
+        Object cerca(Object chiave) {
+            for (Foglia foglia : foglie) {
+                if (foglia.chiave.equals(chiave)) {
+                    return foglia.valore;
+                }
+            }
+            return null;
+        }
+
+        Collisione con(Foglia nuova) {
+            for (int i = 0; i < foglie.length; i++) {
+                if (foglie[i].chiave.equals(nuova.chiave)) {
+                    if (foglie[i].valore == nuova.valore) {
+                        return this;
+                    }
+                    Foglia[] copia = foglie.clone();
+                    copia[i] = nuova;
+                    return new Collisione(hash, copia);
+                }
+            }
+            Foglia[] copia = Arrays.copyOf(foglie, foglie.length + 1);
+            copia[foglie.length] = nuova;
+            return new Collisione(hash, copia);
+        }
+
+        /**
+         * Restituisce il nodo senza la chiave: questo stesso nodo se la chiave è assente,
+         * la foglia rimasta se ne resta una sola.
+         */
+        Object senza(Object chiave) {
+            for (int i = 0; i < foglie.length; i++) {
+                if (foglie[i].chiave.equals(chiave)) {
+                    if (foglie.length == 2) {
+                        return foglie[1 - i];
+                    }
+                    Foglia[] copia = new Foglia[foglie.length - 1];
+                    System.arraycopy(foglie, 0, copia, 0, i);
+                    System.arraycopy(foglie, i + 1, copia, i, foglie.length - i - 1);
+                    return new Collisione(hash, copia);
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * {@code SequenzaPersistente} è un array sparso immutabile indicizzato da numeri di sequenza,
+ * realizzato come trie con 32 figli per nodo.
+ *
+ * <p>Impostare o svuotare una posizione restituisce una nuova sequenza copiando solo i nodi
+ * del percorso verso quella posizione; gli altri sono condivisi. I sottoalberi rimasti vuoti
+ * vengono eliminati, e la visita percorre le posizioni occupate in ordine crescente.
+ * L'iteratore scende nel trie solo quando serve il prossimo elemento, quindi interrompere
+ * una visita non costa la lettura delle posizioni restanti.</p>
+ *
+ * @param <E> il tipo degli elementi
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+final class SequenzaPersistente<E> {
+
+    /** Bit dell'indice consumati a ogni livello */
+    private static final int BIT = 5;
+
+    /** Numero di figli di ogni nodo */
+    private static final int LARGHEZZA = 1 << BIT;
+
+    /** La sequenza vuota */
+    private static final SequenzaPersistente<?> VUOTA = new SequenzaPersistente<>(null, 0);
+
+    /** Radice del trie, oppure {@code null} se la sequenza è vuota */
+    private final Object[] radice;
+
+    /** Bit di cui spostare l'indice per ottenere la posizione nella radice */
+    private final int shift;
+
+    private SequenzaPersistente(Object[] radice, int shift) {
+        this.radice = radice;
+        this.shift = shift;
+    }
+
+    /**
+     * Restituisce la sequenza vuota.
+     *
+     * @param <E> il tipo degli elementi
+     * @return la sequenza vuota, condivisa
+     */
+    @SuppressWarnings("unchecked")
+    static <E> SequenzaPersistente<E> vuota() {
+        return (SequenzaPersistente<E>) VUOTA;
+    }
+
+    /**
+     * Restituisce una sequenza con l'elemento nella posizione indicata.
+     *
+     * @param indice la posizione, non negativa
+     * @param elemento l'elemento, oppure {@code null} per svuotare la posizione
+     * @return la nuova sequenza
+     */
+    SequenzaPersistente<E> con(long indice, E elemento) {
+        Object[] nodo = radice;
+        int livello = shift;
+        if (elemento != null) {
+            while (indice >>> livello >= LARGHEZZA) {
+                if (nodo != null) {
+                    Object[] nuovaRadice = new Object[LARGHEZZA];
+                    nuovaRadice[0] = nodo;
+                    nodo = nuovaRadice;
+                }
+                livello += BIT;
+            }
+        } else if (nodo == null || indice >>> livello >= LARGHEZZA) {
+            return this;
+        }
+        Object[] nuova = imposta(nodo, livello, indice, elemento);
+        return nuova == null ? vuota() : new SequenzaPersistente<>(nuova, livello);
+    }
+
+    /**
+     * Visita gli elementi in ordine di posizione.
+     *
+     * @param azione l'azione da eseguire su ogni elemento
+     */
+    @SuppressWarnings("unchecked")
+    void perOgni(Consumer<? super E> azione) {
+        visita(radice, shift, (Consumer<Object>) azione);
+    }
+
+    /**
+     * Restituisce un iteratore pigro sugli elementi in ordine di posizione.
+     * <p>L'iteratore tiene soltanto il percorso dalla radice al nodo corrente e salta le
+     * posizioni vuote; poiché i sottoalberi vuoti vengono eliminati, ogni discesa porta
+     * a un elemento.</p>
+     *
+     * @return un {@code Iterator} sugli elementi
+     */
+    Iterator<E> iteratore() {
+        return new Iteratore<>(radice, shift);
+    }
+
+    /**
+     * Copia il percorso verso la posizione e vi scrive l'elemento.
+     *
+     * @return il nodo copiato, oppure {@code null} se è rimasto vuoto
+     */
+    private static Object[] imposta(Object[] nodo, int livello, long indice, Object elemento) {
+        if (nodo == null && elemento == null) {
+            return null;
+        }
+        Object[] copia = nodo == null ? new Object[LARGHEZZA] : nodo.clone();
+        int i = (int) (indice >>> livello) & (LARGHEZZA - 1);
+        copia[i] = livello == 0 ? elemento : imposta((Object[]) copia[i], livello - BIT, indice, elemento);
+        if (copia[i] == null) {
+            for (Object figlio : copia) {
+                if (figlio != null) {
+                    return copia;
+                }
+            }
+            return null;
+        }
+        return copia;
+    }
+
+    /**
+     * Visita in ordine le posizioni occupate di un sottoalbero.
+     */
+    private static void visita(Object[] nodo, int livello, Consumer<Object> azione) {
+        if (nodo == null) {
+            return;
+        }
+        for (Object figlio : nodo) {
+            if (figlio == null) {
+                continue;
+            }
+            if (livello == 0) {
+                azione.accept(figlio);
+            } else {
+                visita((Object[]) figlio, livello - BIT, azione);
+            }
+        }
+    }
+
+    /**
+     * Iteratore che percorre il trie con una pila esplicita di nodi, un livello per elemento.
+     */
+    private static final class Iteratore<E> implements Iterator<E> {
+
+        /** Nodi del percorso corrente, dalla radice alle foglie */
+        private final Object[][] nodi;
+
+        /** Prossimo figlio da visitare per ogni nodo del percorso */
+        private final int[] indici;
+
+        /** Livello del nodo da cui riprendere la visita */
+        private int livello;
+
+        /** Prossimo elemento, oppure {@code null} se la visita è terminata */
+        private Object prossimo;
+
+        Iteratore(Object[] radice, int shift) {
+            int livelli = shift / BIT + 1;
+            nodi = new Object[livelli][];
+            indici = new int[livelli];
+            nodi[0] = radice;
+            avanza();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return prossimo != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (prossimo == null) {
+                throw new NoSuchElementException();
+            }
+            E elemento = (E) prossimo;
+            avanza();
+            return elemento;
+        }
+
+        /**
+         * Cerca la prossima posizione occupata, risalendo dai nodi esauriti.
+         */
+        private void avanza() {
+            int foglie = nodi.length - 1;
+            for (int d = livello; d >= 0; ) {
+                Object[] nodo = nodi[d];
+                if (nodo == null || indici[d] == LARGHEZZA) {
+                    d--;
+                    continue;
+                }
+                Object figlio = nodo[indici[d]++];
+                if (figlio == null) {
+                    continue;
+                }
+                if (d == foglie) {
+                    prossimo = figlio;
+                    livello = d;
+                    return;
+                }
+                nodi[++d] = (Object[]) figlio;
+                indici[d] = 0;
+            }
+            prossimo = null;
+            livello = 0;
+            nodi[0] = null;
+        }
+    }
+}
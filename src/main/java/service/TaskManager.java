@@ -1,18 +1,50 @@
 package service;
 
 import model.*;
+import strategy.TaskSortStrategy;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * La classe {@code TaskManager} gestisce un elenco di oggetti {@link Task},
  * fornendo metodi per aggiungere, rimuovere, filtrare e iterare le attività.
  * <p>Supporta anche task composite e implementa l'iterator pattern.</p>
- * 
+ *
+ * <p>Mantiene indici secondari per priorità, data di scadenza e stato di completamento,
+ * aggiornati a ogni aggiunta e rimozione: le interrogazioni su questi campi hanno un costo
+ * proporzionale al numero di risultati e non alla dimensione dell'elenco.</p>
+ *
+ * <p>Le task sono identificate dal titolo, coerentemente con {@link Task#equals(Object)}:
+ * ogni titolo può comparire una sola volta e ricerca e rimozione avvengono in tempo costante.</p>
+ *
+ * <p>L'indice di completamento è aggiornato da un osservatore registrato su ogni task gestita,
+ * quindi una task mantiene raggiungibile il manager finché non ne viene rimossa. Un manager
+ * che non serve più, ma le cui task restano in uso altrove, va svuotato con {@link #svuota()}.</p>
+ *
+ * <p>L'elenco è condiviso in copy-on-write con iteratori e viste: {@link #iterator()} e
+ * {@link #getTutti()} non copiano nulla e restituiscono un'istantanea immutabile, mentre
+ * la prima rimozione successiva copia l'array una sola volta per tutte le istantanee aperte.
+ * Le aggiunte scrivono oltre la fine di ogni istantanea e non richiedono copie.</p>
+ *
+ * <p>Aggiunte e rimozioni vengono registrate in un log di comandi e possono essere annullate
+ * e ripetute con {@link #annulla()} e {@link #ripeti()}. Con {@link #eseguiTransazione(Runnable)}
+ * più modifiche formano un'unica transazione atomica, che viene annullata o ripetuta in blocco:
+ * l'array viene ampliato e compattato una sola volta e, se la transazione riguarda buona parte
+ * dei task, gli indici secondari vengono ricostruiti in un solo passaggio.</p>
+ *
  * @author Gian Luca Baccani
  * @version 1.0
  */
 public class TaskManager implements Iterable<Task> {
 
+    /** Capacità iniziale dell'array delle posizioni */
+    private static final int CAPACITA_INIZIALE = 16;
+
+    /** Numero massimo di transazioni conservate per l'annullamento */
+    public static final int LIMITE_CRONOLOGIA = 100;
+
     /**
      * Costruttore di default.
      */
@@ -20,29 +52,128 @@ public class TaskManager implements Iterable<Task> {
         // Nessuna inizializzazione
     }
 
-    /** Elenco delle task gestite */
-    private List<Task> elenco = new ArrayList<>();
+    /**
+     * Posizioni delle task in ordine di inserimento.
+     * Le posizioni delle task rimosse restano vuote ({@code null}) fino alla compattazione.
+     */
+    private Task[] elenco = new Task[CAPACITA_INIZIALE];
+
+    /** Numero di posizioni utilizzate in {@link #elenco}, comprese quelle vuote */
+    private int fine;
+
+    /** Numero di task effettivamente presenti */
+    private int numero;
+
+    /**
+     * Indica che {@link #elenco} è condiviso con almeno un'istantanea:
+     * prima di modificare le posizioni già occupate occorre copiarlo.
+     */
+    private boolean condiviso;
+
+    /** Posizione in {@link #elenco} di ogni task, indicizzata per titolo */
+    private final Map<String, Integer> posizioni = new HashMap<>();
+
+    /** Indice secondario: task raggruppate per priorità, in ordine di inserimento */
+    private final EnumMap<Priorita, Set<Task>> indicePriorita = new EnumMap<>(Priorita.class);
+
+    /** Task prive di priorità, che non possono essere chiavi dell'{@code EnumMap} */
+    private final Set<Task> senzaPriorita = new LinkedHashSet<>();
+
+    /** Indice secondario: task raggruppate per data di scadenza, in ordine di data */
+    private final NavigableMap<LocalDate, Set<Task>> indiceScadenza = new TreeMap<>();
+
+    /** Task completate, nell'ordine in cui sono entrate nello stato */
+    private final Set<Task> completati = new LinkedHashSet<>();
+
+    /** Task non ancora completate, nell'ordine in cui sono entrate nello stato */
+    private final Set<Task> daCompletare = new LinkedHashSet<>();
+
+    /** Osservatore registrato su ogni task per aggiornare l'indice di completamento */
+    private final TaskObserver observerCompletamento = this::aggiornaIndiceCompletamento;
+
+    /** Listener notificati a ogni modifica dell'elenco */
+    private final List<TaskManagerListener> listeners = new ArrayList<>();
+
+    /** Transazioni che possono essere annullate, dalla più recente */
+    private final Deque<List<Operazione>> annullabili = new ArrayDeque<>();
+
+    /** Transazioni annullate che possono essere ripetute, dalla più recente */
+    private final Deque<List<Operazione>> ripetibili = new ArrayDeque<>();
+
+    /** Operazioni della transazione in corso, oppure {@code null} */
+    private List<Operazione> transazione;
+
+    /** Numero di transazioni aperte e annidate in quella corrente */
+    private int livelloTransazione;
 
     /**
      * Aggiunge un task all'elenco.
      *
      * @param t il task da aggiungere
-     * @throws IllegalArgumentException se {@code t} è null
+     * @throws IllegalArgumentException se {@code t} è null o esiste già un task con lo stesso titolo
      */
     public void aggiungiTask(Task t) {
         if (t == null) {
             throw new IllegalArgumentException("Il task non può essere null");
         }
-        elenco.add(t);
+        if (posizioni.containsKey(t.getTitolo())) {
+            throw new IllegalArgumentException("Esiste già un task con titolo: " + t.getTitolo());
+        }
+        riservaSpazio(1);
+        inserisci(t, true);
+        registra(new Operazione(true, t));
+        for (TaskManagerListener listener : listeners) {
+            listener.taskAggiunto(t);
+        }
+        concludiModifica();
+    }
+
+    /**
+     * Registra un listener che verrà notificato a ogni modifica dell'elenco.
+     *
+     * @param listener il listener da registrare
+     * @throws IllegalArgumentException se {@code listener} è null
+     */
+    public void aggiungiListener(TaskManagerListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Il listener non può essere null");
+        }
+        listeners.add(listener);
     }
 
     /**
-     * Restituisce una copia dell'elenco di tutti i task.
+     * Rimuove un listener registrato in precedenza.
+     *
+     * @param listener il listener da rimuovere
+     */
+    public void rimuoviListener(TaskManagerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Restituisce una vista non modificabile dell'elenco di tutti i task.
+     * <p>La vista è un'istantanea: non riflette le modifiche successive del manager
+     * e viene creata senza copiare l'elenco.</p>
      *
      * @return lista dei task
      */
     public List<Task> getTutti() {
-        return new ArrayList<>(elenco);
+        if (fine != numero) {
+            compatta();
+        }
+        condiviso = true;
+        return new Istantanea(elenco, numero);
+    }
+
+    /**
+     * Cerca un task a partire dal suo titolo.
+     *
+     * @param titolo il titolo del task
+     * @return il task con quel titolo, oppure {@code null} se non presente
+     */
+    public Task trovaPerTitolo(String titolo) {
+        Integer posizione = posizioni.get(titolo);
+        return posizione == null ? null : elenco[posizione];
     }
 
     /**
@@ -52,99 +183,630 @@ public class TaskManager implements Iterable<Task> {
      * @return lista di task con la priorità data
      */
     public List<Task> filtraPerPriorita(Priorita priorita) {
-        return elenco.stream()
-                .filter(t -> t.getPriorita() == priorita)
-                .toList();
+        return List.copyOf(bucketPriorita(priorita));
+    }
+
+    /**
+     * Restituisce i task con scadenza compresa tra le due date (estremi inclusi),
+     * ordinati per data di scadenza.
+     *
+     * @param da la data di inizio dell'intervallo
+     * @param a la data di fine dell'intervallo
+     * @return lista di task in scadenza nell'intervallo
+     * @throws IllegalArgumentException se una delle date è null o {@code da} è successiva ad {@code a}
+     */
+    public List<Task> filtraPerScadenza(LocalDate da, LocalDate a) {
+        if (da == null || a == null || da.isAfter(a)) {
+            throw new IllegalArgumentException("Intervallo di date non valido");
+        }
+        List<Task> risultato = new ArrayList<>();
+        for (Set<Task> bucket : indiceScadenza.subMap(da, true, a, true).values()) {
+            risultato.addAll(bucket);
+        }
+        return Collections.unmodifiableList(risultato);
+    }
+
+    /**
+     * Restituisce i task completati.
+     *
+     * @return lista dei task completati
+     */
+    public List<Task> getCompletati() {
+        return List.copyOf(completati);
+    }
+
+    /**
+     * Restituisce i task non ancora completati.
+     *
+     * @return lista dei task da completare
+     */
+    public List<Task> getDaCompletare() {
+        return List.copyOf(daCompletare);
     }
-    
+
     /**
      * Rimuove un task dall'elenco.
+     * <p>Il task viene individuato tramite il titolo, in tempo costante.</p>
      *
      * @param t il task da rimuovere
      */
     public void rimuoviTask(Task t) {
-        elenco.remove(t);
+        if (t == null) {
+            return;
+        }
+        Task rimosso = estrai(t.getTitolo(), true);
+        if (rimosso == null) {
+            return;
+        }
+        if (fine - numero > numero) {
+            compatta();
+        }
+        registra(new Operazione(false, rimosso));
+        for (TaskManagerListener listener : listeners) {
+            listener.taskRimosso(rimosso);
+        }
+        concludiModifica();
     }
-    
+
+    /**
+     * Segna come completato il task gestito con lo stesso titolo di quello indicato.
+     *
+     * @param t il task da completare
+     * @return {@code true} se il task è presente nel manager, altrimenti {@code false}
+     */
+    public boolean completaTask(Task t) {
+        Task gestito = t == null ? null : trovaPerTitolo(t.getTitolo());
+        if (gestito == null) {
+            return false;
+        }
+        gestito.completaTask();
+        return true;
+    }
+
+    /**
+     * Rimuove tutti i task in un'unica transazione, staccando dai task l'osservatore del manager.
+     * <p>Va invocato prima di abbandonare un manager i cui task restano in uso, perché ogni task
+     * gestito mantiene un riferimento al manager e gli notifica i propri cambi di completamento.
+     * Come ogni transazione, lo svuotamento può essere annullato con {@link #annulla()}.</p>
+     */
+    public void svuota() {
+        eseguiTransazione(() -> {
+            for (Task t : getTutti()) {
+                rimuoviTask(t);
+            }
+        });
+    }
+
     /**
      * Restituisce il numero totale di task gestiti.
      *
      * @return numero di task
      */
     public int getNumeroTasks() {
-        return elenco.size();
+        return numero;
+    }
+
+    /**
+     * Esegue le modifiche indicate come un'unica transazione atomica.
+     * <p>Se le operazioni terminano con un'eccezione, le modifiche già eseguite vengono
+     * annullate in blocco e l'eccezione viene rilanciata. Altrimenti la transazione entra
+     * nella cronologia e può essere annullata con una sola chiamata a {@link #annulla()}.
+     * Le transazioni annidate fanno parte di quella più esterna.</p>
+     *
+     * @param operazioni le modifiche da eseguire sul manager
+     * @throws IllegalArgumentException se {@code operazioni} è null
+     */
+    public void eseguiTransazione(Runnable operazioni) {
+        if (operazioni == null) {
+            throw new IllegalArgumentException("Le operazioni non possono essere null");
+        }
+        iniziaTransazione();
+        boolean completata = false;
+        try {
+            operazioni.run();
+            completata = true;
+        } finally {
+            if (completata || livelloTransazione > 1) {
+                confermaTransazione();
+            } else {
+                List<Operazione> parziale = transazione;
+                transazione = null;
+                livelloTransazione = 0;
+                riproduci(parziale, true);
+            }
+        }
+    }
+
+    /**
+     * Apre una transazione: le modifiche successive, fino a {@link #confermaTransazione()},
+     * vengono annullate e ripetute insieme. Le transazioni possono essere annidate.
+     */
+    public void iniziaTransazione() {
+        if (livelloTransazione++ == 0) {
+            transazione = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Chiude la transazione aperta con {@link #iniziaTransazione()}. Alla chiusura di quella
+     * più esterna le sue modifiche entrano nella cronologia come un'unica voce.
+     *
+     * @throws IllegalStateException se non c'è una transazione aperta
+     */
+    public void confermaTransazione() {
+        if (livelloTransazione == 0) {
+            throw new IllegalStateException("Nessuna transazione aperta");
+        }
+        if (--livelloTransazione == 0) {
+            List<Operazione> operazioni = transazione;
+            transazione = null;
+            if (!operazioni.isEmpty()) {
+                archivia(operazioni);
+            }
+        }
+    }
+
+    /**
+     * Annulla l'ultima transazione, o l'ultima modifica eseguita fuori da una transazione.
+     * <p>Le operazioni vengono applicate in blocco: i task rimossi tornano in fondo all'elenco.</p>
+     *
+     * @return {@code true} se c'era qualcosa da annullare
+     * @throws IllegalStateException se è aperta una transazione
+     */
+    public boolean annulla() {
+        controllaNessunaTransazione();
+        List<Operazione> operazioni = annullabili.pollFirst();
+        if (operazioni == null) {
+            return false;
+        }
+        riproduci(operazioni, true);
+        ripetibili.addFirst(operazioni);
+        return true;
+    }
+
+    /**
+     * Ripete l'ultima transazione annullata.
+     *
+     * @return {@code true} se c'era qualcosa da ripetere
+     * @throws IllegalStateException se è aperta una transazione
+     */
+    public boolean ripeti() {
+        controllaNessunaTransazione();
+        List<Operazione> operazioni = ripetibili.pollFirst();
+        if (operazioni == null) {
+            return false;
+        }
+        riproduci(operazioni, false);
+        annullabili.addFirst(operazioni);
+        return true;
+    }
+
+    /**
+     * Svuota la cronologia delle modifiche, ad esempio dopo il caricamento iniziale dei task.
+     *
+     * @throws IllegalStateException se è aperta una transazione
+     */
+    public void svuotaCronologia() {
+        controllaNessunaTransazione();
+        annullabili.clear();
+        ripetibili.clear();
+    }
+
+    /**
+     * Registra un'operazione nella transazione in corso oppure, se non ce n'è una,
+     * come transazione a sé.
+     *
+     * @param operazione l'operazione eseguita
+     */
+    private void registra(Operazione operazione) {
+        if (transazione != null) {
+            transazione.add(operazione);
+        } else {
+            List<Operazione> singola = new ArrayList<>(1);
+            singola.add(operazione);
+            archivia(singola);
+        }
+    }
+
+    /**
+     * Aggiunge una transazione conclusa alla cronologia, scartando le transazioni
+     * da ripetere e quelle oltre {@link #LIMITE_CRONOLOGIA}.
+     *
+     * @param operazioni le operazioni della transazione
+     */
+    private void archivia(List<Operazione> operazioni) {
+        ripetibili.clear();
+        annullabili.addFirst(operazioni);
+        if (annullabili.size() > LIMITE_CRONOLOGIA) {
+            annullabili.removeLast();
+        }
+    }
+
+    /**
+     * Applica in blocco le operazioni di una transazione, oppure le loro inverse in ordine
+     * opposto. L'array viene ampliato al massimo una volta e compattato alla fine; se le
+     * operazioni sono più della metà dei task, gli indici secondari vengono ricostruiti
+     * con un solo passaggio invece di essere aggiornati task per task.
+     * I listener ricevono gli eventi quando il manager è di nuovo coerente e
+     * {@link TaskManagerListener#modificaConclusa()} una sola volta, dopo l'ultimo evento.
+     *
+     * @param operazioni le operazioni da applicare
+     * @param inverse {@code true} per annullarle, {@code false} per ripeterle
+     */
+    private void riproduci(List<Operazione> operazioni, boolean inverse) {
+        int n = operazioni.size();
+        boolean ricostruisci = n * 2 > numero;
+        int aggiunte = 0;
+        for (Operazione op : operazioni) {
+            if (op.aggiunta != inverse) {
+                aggiunte++;
+            }
+        }
+        riservaSpazio(aggiunte);
+        for (int i = 0; i < n; i++) {
+            Operazione op = operazioni.get(inverse ? n - 1 - i : i);
+            if (op.aggiunta != inverse) {
+                inserisci(op.task, !ricostruisci);
+            } else {
+                estrai(op.task.getTitolo(), !ricostruisci);
+            }
+        }
+        if (fine != numero && (ricostruisci || fine - numero > numero)) {
+            compatta();
+        }
+        if (ricostruisci) {
+            ricostruisciIndici();
+        }
+        for (int i = 0; i < n; i++) {
+            Operazione op = operazioni.get(inverse ? n - 1 - i : i);
+            for (TaskManagerListener listener : listeners) {
+                if (op.aggiunta != inverse) {
+                    listener.taskAggiunto(op.task);
+                } else {
+                    listener.taskRimosso(op.task);
+                }
+            }
+        }
+        concludiModifica();
     }
-    
+
+    /**
+     * Verifica che non sia aperta una transazione.
+     *
+     * @throws IllegalStateException se è aperta una transazione
+     */
+    private void controllaNessunaTransazione() {
+        if (livelloTransazione != 0) {
+            throw new IllegalStateException("Operazione non consentita durante una transazione");
+        }
+    }
+
+    /**
+     * Garantisce spazio in fondo all'array per il numero di task indicato.
+     *
+     * @param aggiunte il numero di task da aggiungere
+     */
+    private void riservaSpazio(int aggiunte) {
+        if (fine + aggiunte > elenco.length) {
+            elenco = Arrays.copyOf(elenco, Math.max(elenco.length * 2, fine + aggiunte));
+            condiviso = false;
+        }
+    }
+
+    /**
+     * Scrive un task in fondo all'elenco, che deve avere spazio sufficiente.
+     *
+     * @param t il task da inserire
+     * @param aggiornaIndici {@code false} se gli indici verranno ricostruiti in seguito
+     */
+    private void inserisci(Task t, boolean aggiornaIndici) {
+        elenco[fine] = t;
+        posizioni.put(t.getTitolo(), fine);
+        fine++;
+        numero++;
+        if (aggiornaIndici) {
+            indicizza(t);
+        }
+        t.aggiungiObserver(observerCompletamento);
+    }
+
+    /**
+     * Toglie dall'elenco il task con il titolo indicato, lasciandone vuota la posizione.
+     *
+     * @param titolo il titolo del task
+     * @param aggiornaIndici {@code false} se gli indici verranno ricostruiti in seguito
+     * @return il task rimosso, oppure {@code null} se non presente
+     */
+    private Task estrai(String titolo, boolean aggiornaIndici) {
+        Integer posizione = posizioni.remove(titolo);
+        if (posizione == null) {
+            return null;
+        }
+        Task rimosso = elenco[posizione];
+        if (condiviso) {
+            elenco = Arrays.copyOf(elenco, elenco.length);
+            condiviso = false;
+        }
+        elenco[posizione] = null;
+        numero--;
+        rimosso.rimuoviObserver(observerCompletamento);
+        if (aggiornaIndici) {
+            deindicizza(rimosso);
+        }
+        return rimosso;
+    }
+
+    /**
+     * Ricostruisce gli indici secondari dall'elenco, in ordine di inserimento.
+     */
+    private void ricostruisciIndici() {
+        indicePriorita.clear();
+        senzaPriorita.clear();
+        indiceScadenza.clear();
+        completati.clear();
+        daCompletare.clear();
+        for (int i = 0; i < fine; i++) {
+            if (elenco[i] != null) {
+                indicizza(elenco[i]);
+            }
+        }
+    }
+
+    /**
+     * Elimina le posizioni vuote lasciate dalle rimozioni, preservando l'ordine di inserimento.
+     * <p>Viene invocata quando le posizioni vuote superano i task presenti, quindi il suo
+     * costo è ammortizzato sulle rimozioni, oppure prima di creare una vista con {@link #getTutti()}.
+     * Se l'array è condiviso con un'istantanea, la compattazione avviene su un nuovo array.</p>
+     */
+    private void compatta() {
+        Task[] destinazione = condiviso ? new Task[elenco.length] : elenco;
+        int scrittura = 0;
+        for (int lettura = 0; lettura < fine; lettura++) {
+            Task t = elenco[lettura];
+            if (t != null) {
+                if (scrittura != lettura) {
+                    posizioni.put(t.getTitolo(), scrittura);
+                }
+                destinazione[scrittura++] = t;
+            }
+        }
+        if (destinazione == elenco) {
+            Arrays.fill(elenco, scrittura, fine, null);
+        }
+        elenco = destinazione;
+        condiviso = false;
+        fine = scrittura;
+    }
+
+    /**
+     * Inserisce un task negli indici secondari.
+     *
+     * @param t il task da indicizzare
+     */
+    private void indicizza(Task t) {
+        bucketPriorita(t.getPriorita()).add(t);
+        if (t.getScadenza() != null) {
+            indiceScadenza.computeIfAbsent(t.getScadenza(), d -> new LinkedHashSet<>()).add(t);
+        }
+        (t.isCompletato() ? completati : daCompletare).add(t);
+    }
+
+    /**
+     * Rimuove un task dagli indici secondari.
+     *
+     * @param t il task da rimuovere
+     */
+    private void deindicizza(Task t) {
+        bucketPriorita(t.getPriorita()).remove(t);
+        if (t.getScadenza() != null) {
+            Set<Task> bucket = indiceScadenza.get(t.getScadenza());
+            bucket.remove(t);
+            if (bucket.isEmpty()) {
+                indiceScadenza.remove(t.getScadenza());
+            }
+        }
+        (t.isCompletato() ? completati : daCompletare).remove(t);
+    }
+
+    /**
+     * Sposta un task tra completati e da completare quando il suo stato cambia.
+     *
+     * @param t il task che ha cambiato stato
+     */
+    private void aggiornaIndiceCompletamento(Task t) {
+        if (t.isCompletato()) {
+            daCompletare.remove(t);
+            completati.add(t);
+        } else {
+            completati.remove(t);
+            daCompletare.add(t);
+        }
+        for (TaskManagerListener listener : listeners) {
+            listener.completamentoCambiato(t);
+        }
+        concludiModifica();
+    }
+
+    /**
+     * Notifica ai listener che la modifica corrente è conclusa.
+     */
+    private void concludiModifica() {
+        for (TaskManagerListener listener : listeners) {
+            listener.modificaConclusa();
+        }
+    }
+
+    /**
+     * Restituisce il bucket dell'indice relativo alla priorità data.
+     *
+     * @param priorita la priorità (può essere null)
+     * @return l'insieme delle task con quella priorità
+     */
+    private Set<Task> bucketPriorita(Priorita priorita) {
+        if (priorita == null) {
+            return senzaPriorita;
+        }
+        return indicePriorita.computeIfAbsent(priorita, p -> new LinkedHashSet<>());
+    }
+
+    /**
+     * Crea una vista dei task che resta ordinata secondo la strategia indicata
+     * mentre il manager viene modificato.
+     * <p>La creazione costa quanto un ordinamento; in seguito ogni aggiunta, rimozione
+     * o cambio di completamento aggiorna la vista in tempo logaritmico.
+     * La vista va chiusa con {@link VistaOrdinata#close()} quando non serve più.</p>
+     *
+     * @param strategia la strategia che definisce l'ordine
+     * @return la vista ordinata, registrata come listener del manager
+     * @throws IllegalArgumentException se {@code strategia} è null
+     * @throws UnsupportedOperationException se la strategia non definisce un
+     *         {@link TaskSortStrategy#comparatore() comparatore}
+     */
+    public VistaOrdinata vistaOrdinata(TaskSortStrategy strategia) {
+        if (strategia == null) {
+            throw new IllegalArgumentException("La strategia non può essere null");
+        }
+        VistaOrdinata vista = new VistaOrdinata(this, strategia);
+        aggiungiListener(vista);
+        return vista;
+    }
+
     /**
      * Restituisce un iteratore personalizzato per scorrere i task.
+     * <p>L'iteratore lavora su un'istantanea dell'elenco ottenuta in tempo costante,
+     * quindi il manager può essere modificato durante l'iterazione.</p>
      *
      * @return un {@code Iterator} su {@code Task}
      */
     @Override
     public Iterator<Task> iterator() {
-        return new TaskIterator();
+        condiviso = true;
+        return new TaskIterator(elenco, fine);
     }
-    
+
     /**
      * Classe interna per l'iteratore personalizzato.
-     * Implementa una copia difensiva della lista per sicurezza.
+     * Scorre un'istantanea dell'array condiviso in copy-on-write, saltando le posizioni vuote.
      */
-    private class TaskIterator implements Iterator<Task> {
-        private int currentIndex = 0;
-        private final List<Task> tasksCopy;
-        
-        public TaskIterator() {
-            // Copia difensiva per evitare ConcurrentModificationException
-            this.tasksCopy = new ArrayList<>(elenco);
+    private static class TaskIterator implements Iterator<Task> {
+        private final Task[] istantanea;
+        private final int fine;
+        private int currentIndex;
+
+        TaskIterator(Task[] istantanea, int fine) {
+            this.istantanea = istantanea;
+            this.fine = fine;
+            avanza();
         }
-        
+
         @Override
         public boolean hasNext() {
-            return currentIndex < tasksCopy.size();
+            return currentIndex < fine;
         }
-        
+
         @Override
         public Task next() {
             if (!hasNext()) {
                 throw new NoSuchElementException("Nessun altro task disponibile");
             }
-            return tasksCopy.get(currentIndex++);
+            Task t = istantanea[currentIndex++];
+            avanza();
+            return t;
+        }
+
+        /**
+         * Porta l'indice corrente sulla prossima posizione occupata.
+         */
+        private void avanza() {
+            while (currentIndex < fine && istantanea[currentIndex] == null) {
+                currentIndex++;
+            }
         }
-        
+
         @Override
         public void remove() {
             throw new UnsupportedOperationException("Rimozione non supportata dall'iterator");
         }
     }
-    
+
+    /**
+     * Operazione registrata nel log dei comandi: l'aggiunta o la rimozione di un task.
+     */
+    private static final class Operazione {
+        /** {@code true} per un'aggiunta, {@code false} per una rimozione */
+        private final boolean aggiunta;
+        /** Il task aggiunto o rimosso */
+        private final Task task;
+
+        Operazione(boolean aggiunta, Task task) {
+            this.aggiunta = aggiunta;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Vista non modificabile su un prefisso compatto dell'array condiviso in copy-on-write.
+     */
+    private static final class Istantanea extends AbstractList<Task> implements RandomAccess {
+        private final Task[] istantanea;
+        private final int dimensione;
+
+        Istantanea(Task[] istantanea, int dimensione) {
+            this.istantanea = istantanea;
+            this.dimensione = dimensione;
+        }
+
+        @Override
+        public Task get(int indice) {
+            Objects.checkIndex(indice, dimensione);
+            return istantanea[indice];
+        }
+
+        @Override
+        public int size() {
+            return dimensione;
+        }
+    }
+
     /**
      * Restituisce la lista di tutti i task, inclusi i subtasks ricorsivamente.
+     * <p>La visita è delegata a {@link CompositeTraversal}, che suddivide
+     * le gerarchie più grandi tra più thread.</p>
      *
      * @return lista completa con subtasks
      */
     public List<Task> getTuttiConSubtasks() {
-        List<Task> tutti = new ArrayList<>();
-        for (Task task : elenco) {
-            tutti.add(task);
-            if (task instanceof CompositeTask) {
-                aggiungiSubtasksRicorsivo((CompositeTask) task, tutti);
-            }
-        }
-        return tutti;
+        return new ArrayList<>(CompositeTraversal.appiattisci(getTutti()));
     }
-    
+
     /**
-     * Metodo ausiliario per aggiungere i subtasks ricorsivamente a una lista.
+     * Visita tutti i task, inclusi i subtasks, nello stesso ordine di
+     * {@link #getTuttiConSubtasks()}, passando a ognuno la sua profondità nella gerarchia.
      *
-     * @param composite task contenente subtasks
-     * @param lista la lista dove aggiungere i subtasks
+     * @param visitatore il visitatore che riceve i task e le loro profondità
      */
-    private void aggiungiSubtasksRicorsivo(CompositeTask composite, List<Task> lista) {
-        for (Task subtask : composite.getSubtasks()) {
-            lista.add(subtask);
-            if (subtask instanceof CompositeTask) {
-                aggiungiSubtasksRicorsivo((CompositeTask) subtask, lista);
-            }
-        }
+    public void visitaConSubtasks(VisitatoreGerarchia visitatore) {
+        CompositeTraversal.visita(getTutti(), visitatore);
+    }
+
+    /**
+     * Restituisce un iteratore pigro su tutti i task, inclusi i subtasks, nello stesso
+     * ordine di {@link #getTuttiConSubtasks()} ma senza costruire la lista.
+     *
+     * @return un iteratore in profondità sulla gerarchia
+     */
+    public Iterator<Task> iteratoreConSubtasks() {
+        return CompositeTraversal.iteratore(getTutti());
+    }
+
+    /**
+     * Restituisce uno stream pigro su tutti i task, inclusi i subtasks.
+     * <p>Lo stream può essere reso parallelo: la gerarchia viene suddivisa tra i thread
+     * senza essere copiata.</p>
+     *
+     * @return uno stream in profondità sulla gerarchia
+     */
+    public Stream<Task> streamConSubtasks() {
+        return StreamSupport.stream(CompositeTraversal.spliterator(getTutti()), false);
     }
-}
\ No newline at end of file
+}
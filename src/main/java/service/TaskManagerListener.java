@@ -0,0 +1,52 @@
+package service;
+
+import model.Task;
+
+/**
+ * {@code TaskManagerListener} riceve le notifiche delle modifiche apportate
+ * all'elenco di un {@link TaskManager}.
+ *
+ * <p>Tutti i metodi hanno un'implementazione vuota, così ogni listener
+ * può ridefinire solo gli eventi di suo interesse.</p>
+ *
+ * @see TaskManager#aggiungiListener(TaskManagerListener)
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public interface TaskManagerListener {
+
+    /**
+     * Notifica che un task è stato aggiunto al manager.
+     *
+     * @param task il task aggiunto
+     */
+    default void taskAggiunto(Task task) {
+        // Nessuna azione predefinita
+    }
+
+    /**
+     * Notifica che un task è stato rimosso dal manager.
+     *
+     * @param task il task rimosso
+     */
+    default void taskRimosso(Task task) {
+        // Nessuna azione predefinita
+    }
+
+    /**
+     * Notifica che lo stato di completamento di un task del manager è cambiato.
+     *
+     * @param task il task il cui stato è cambiato
+     */
+    default void completamentoCambiato(Task task) {
+        // Nessuna azione predefinita
+    }
+
+    /**
+     * Notifica che una modifica è conclusa: tutti i listener ne hanno ricevuto gli eventi
+     * e il manager è di nuovo coerente, quindi può essere letto o modificato.
+     */
+    default void modificaConclusa() {
+        // Nessuna azione predefinita
+    }
+}
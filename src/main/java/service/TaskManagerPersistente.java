@@ -0,0 +1,339 @@
+package service;
+
+import model.CompositeTask;
+import model.Priorita;
+import model.Task;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * {@code TaskManagerPersistente} è un gestore di task in cui ogni modifica produce
+ * una nuova {@link Versione} immutabile, che condivide la struttura con le precedenti.
+ *
+ * <p>I task sono indicizzati per titolo in una {@link MappaPersistente} (hash array mapped
+ * trie) e conservati in ordine di inserimento in una {@link SequenzaPersistente}. Ogni
+ * aggiunta, rimozione o completamento copia soltanto i nodi del percorso interessato,
+ * quindi catturare lo stato del manager costa O(1) e le ultime versioni, fino al numero
+ * indicato alla creazione, restano consultabili per numero senza copiare le altre.</p>
+ *
+ * <p>Le versioni non contengono oggetti {@link Task}, che sono modificabili, ma i loro campi
+ * in voci immutabili condivise tra le versioni. Il manager accetta solo task semplici e ne
+ * copia i campi all'aggiunta; ogni lettura restituisce un nuovo {@link Task} indipendente,
+ * creato in tempo costante, che il chiamante può modificare, completare o inserire in una
+ * task composita senza effetti sul manager. Il completamento con {@link #completaTask(Task)}
+ * sostituisce la voce con una completata, lasciando invariate le versioni precedenti.</p>
+ *
+ * <p>La classe non è thread-safe, ma le versioni sono immutabili e possono essere lette
+ * da qualsiasi thread.</p>
+ *
+ * @see TaskManager
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class TaskManagerPersistente implements Iterable<Task> {
+
+    /** Numero predefinito di versioni conservate */
+    public static final int VERSIONI_PREDEFINITE = 10_000;
+
+    /** Ultime versioni, indicizzate per numero modulo la capacità */
+    private final Versione[] versioni;
+
+    /** Versione corrente */
+    private Versione corrente;
+
+    /**
+     * Crea un manager vuoto che conserva il numero predefinito di versioni.
+     */
+    public TaskManagerPersistente() {
+        this(VERSIONI_PREDEFINITE);
+    }
+
+    /**
+     * Crea un manager vuoto che conserva le ultime versioni indicate.
+     *
+     * @param versioniConservate il numero di versioni consultabili, compresa quella corrente
+     * @throws IllegalArgumentException se {@code versioniConservate} non è positivo
+     */
+    public TaskManagerPersistente(int versioniConservate) {
+        if (versioniConservate <= 0) {
+            throw new IllegalArgumentException("Il numero di versioni conservate deve essere positivo");
+        }
+        this.versioni = new Versione[versioniConservate];
+        pubblica(new Versione(0, MappaPersistente.vuota(), SequenzaPersistente.vuota(), 0));
+    }
+
+    /**
+     * Aggiunge una copia del task, creando una nuova versione.
+     * <p>Le modifiche successive al task indicato non riguardano il manager.</p>
+     *
+     * @param t il task da aggiungere
+     * @throws IllegalArgumentException se {@code t} è null, non ha titolo, è una task composita
+     *         o esiste già un task con lo stesso titolo
+     */
+    public void aggiungiTask(Task t) {
+        if (t == null || t.getTitolo() == null) {
+            throw new IllegalArgumentException("Il task e il suo titolo non possono essere null");
+        }
+        if (t instanceof CompositeTask) {
+            throw new IllegalArgumentException("Le task composite non possono essere versionate: " + t.getTitolo());
+        }
+        if (corrente.titoli.get(t.getTitolo()) != null) {
+            throw new IllegalArgumentException("Esiste già un task con titolo: " + t.getTitolo());
+        }
+        long sequenza = corrente.prossimaSequenza;
+        Voce voce = new Voce(sequenza, t, t.isCompletato());
+        pubblica(new Versione(corrente.numero + 1,
+                corrente.titoli.con(voce.titolo, voce),
+                corrente.ordine.con(sequenza, voce),
+                sequenza + 1));
+    }
+
+    /**
+     * Rimuove il task con lo stesso titolo di quello indicato, creando una nuova versione.
+     *
+     * @param t il task da rimuovere
+     */
+    public void rimuoviTask(Task t) {
+        Voce voce = t == null || t.getTitolo() == null ? null : corrente.titoli.get(t.getTitolo());
+        if (voce == null) {
+            return;
+        }
+        pubblica(new Versione(corrente.numero + 1,
+                corrente.titoli.senza(t.getTitolo()),
+                corrente.ordine.con(voce.sequenza, null),
+                corrente.prossimaSequenza));
+    }
+
+    /**
+     * Completa il task con lo stesso titolo di quello indicato, sostituendone la voce
+     * nella nuova versione con una completata.
+     *
+     * @param t il task da completare
+     * @return {@code true} se il task è presente nel manager, altrimenti {@code false}
+     */
+    public boolean completaTask(Task t) {
+        Voce voce = t == null || t.getTitolo() == null ? null : corrente.titoli.get(t.getTitolo());
+        if (voce == null) {
+            return false;
+        }
+        if (!voce.completato) {
+            Voce completata = voce.completata();
+            pubblica(new Versione(corrente.numero + 1,
+                    corrente.titoli.con(completata.titolo, completata),
+                    corrente.ordine.con(voce.sequenza, completata),
+                    corrente.prossimaSequenza));
+        }
+        return true;
+    }
+
+    /**
+     * Restituisce la versione corrente, in tempo costante.
+     *
+     * @return la versione corrente
+     */
+    public Versione getVersioneCorrente() {
+        return corrente;
+    }
+
+    /**
+     * Restituisce una delle ultime versioni, in tempo costante.
+     *
+     * @param numero il numero della versione
+     * @return la versione richiesta
+     * @throws IllegalArgumentException se la versione non esiste o non è più conservata
+     */
+    public Versione getVersione(long numero) {
+        if (numero < 0 || numero > corrente.numero || corrente.numero - numero >= versioni.length) {
+            throw new IllegalArgumentException("Versione non disponibile: " + numero);
+        }
+        return versioni[(int) (numero % versioni.length)];
+    }
+
+    /**
+     * Cerca un task nella versione corrente a partire dal suo titolo.
+     *
+     * @param titolo il titolo del task
+     * @return una copia del task con quel titolo, oppure {@code null} se non presente
+     */
+    public Task trovaPerTitolo(String titolo) {
+        return corrente.trovaPerTitolo(titolo);
+    }
+
+    /**
+     * Restituisce il numero di task della versione corrente.
+     *
+     * @return numero di task
+     */
+    public int getNumeroTasks() {
+        return corrente.getNumeroTasks();
+    }
+
+    /**
+     * Restituisce i task della versione corrente in ordine di inserimento.
+     *
+     * @return lista non modificabile di copie dei task
+     */
+    public List<Task> getTutti() {
+        return corrente.getTutti();
+    }
+
+    /**
+     * Restituisce un iteratore sui task della versione corrente.
+     * Il manager può essere modificato durante l'iterazione.
+     *
+     * @return un {@code Iterator} su {@code Task}
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return corrente.iterator();
+    }
+
+    /**
+     * Rende corrente una nuova versione e la conserva tra le ultime.
+     *
+     * @param versione la nuova versione
+     */
+    private void pubblica(Versione versione) {
+        corrente = versione;
+        versioni[(int) (versione.numero % versioni.length)] = versione;
+    }
+
+    /**
+     * Voce immutabile di un task: i suoi campi e la sua posizione nell'ordine di inserimento.
+     * È condivisa da tutte le versioni che contengono il task, che ne ricevono copie.
+     */
+    private static final class Voce {
+        private final long sequenza;
+        private final String titolo;
+        private final String descrizione;
+        private final LocalDate scadenza;
+        private final Priorita priorita;
+        private final boolean completato;
+
+        Voce(long sequenza, Task origine, boolean completato) {
+            this(sequenza, origine.getTitolo(), origine.getDescrizione(), origine.getScadenza(),
+                    origine.getPriorita(), completato);
+        }
+
+        private Voce(long sequenza, String titolo, String descrizione, LocalDate scadenza,
+                     Priorita priorita, boolean completato) {
+            this.sequenza = sequenza;
+            this.titolo = titolo;
+            this.descrizione = descrizione;
+            this.scadenza = scadenza;
+            this.priorita = priorita;
+            this.completato = completato;
+        }
+
+        /**
+         * Restituisce la stessa voce, completata.
+         */
+        Voce completata() {
+            return new Voce(sequenza, titolo, descrizione, scadenza, priorita, true);
+        }
+
+        /**
+         * Crea un nuovo task con i campi della voce, indipendente dal manager.
+         */
+        Task comeTask() {
+            Task t = new Task(titolo, descrizione, scadenza, priorita);
+            if (completato) {
+                t.completaTask();
+            }
+            return t;
+        }
+    }
+
+    /**
+     * {@code Versione} è lo stato immutabile del manager dopo una modifica.
+     * Condivide la struttura con le versioni vicine, quindi conservarla non copia nulla;
+     * ogni task letto dalla versione è una copia nuova.
+     */
+    public static final class Versione implements Iterable<Task> {
+
+        /** Numero progressivo della versione */
+        private final long numero;
+
+        /** Task indicizzati per titolo */
+        private final MappaPersistente<String, Voce> titoli;
+
+        /** Voci in ordine di inserimento */
+        private final SequenzaPersistente<Voce> ordine;
+
+        /** Posizione che verrà assegnata al prossimo task aggiunto */
+        private final long prossimaSequenza;
+
+        private Versione(long numero, MappaPersistente<String, Voce> titoli, SequenzaPersistente<Voce> ordine,
+                         long prossimaSequenza) {
+            this.numero = numero;
+            this.titoli = titoli;
+            this.ordine = ordine;
+            this.prossimaSequenza = prossimaSequenza;
+        }
+
+        /**
+         * Restituisce il numero progressivo della versione; il manager vuoto ha versione 0.
+         *
+         * @return il numero della versione
+         */
+        public long getNumero() {
+            return numero;
+        }
+
+        /**
+         * Restituisce il numero di task della versione.
+         *
+         * @return numero di task
+         */
+        public int getNumeroTasks() {
+            return titoli.size();
+        }
+
+        /**
+         * Cerca un task a partire dal suo titolo, in tempo pressoché costante.
+         *
+         * @param titolo il titolo del task
+         * @return una copia del task con quel titolo, oppure {@code null} se non presente
+         */
+        public Task trovaPerTitolo(String titolo) {
+            Voce voce = titolo == null ? null : titoli.get(titolo);
+            return voce == null ? null : voce.comeTask();
+        }
+
+        /**
+         * Restituisce i task della versione in ordine di inserimento.
+         * <p>Copia tutti i task; per visitarli senza materializzare la lista
+         * si può usare {@link #iterator()}.</p>
+         *
+         * @return lista non modificabile di copie dei task
+         */
+        public List<Task> getTutti() {
+            List<Task> tutti = new ArrayList<>(titoli.size());
+            ordine.perOgni(voce -> tutti.add(voce.comeTask()));
+            return Collections.unmodifiableList(tutti);
+        }
+
+        /**
+         * Restituisce un iteratore sui task della versione in ordine di inserimento.
+         * <p>L'iteratore visita il trie un elemento alla volta e crea la copia di ogni
+         * task solo quando viene restituito, quindi non copia nulla in anticipo.</p>
+         *
+         * @return un {@code Iterator} su copie dei task
+         */
+        @Override
+        public Iterator<Task> iterator() {
+            Iterator<Voce> voci = ordine.iteratore();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return voci.hasNext();
+                }
+
+                @Override
+                public Task next() {
+                    return voci.next().comeTask();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package service;
+
+import model.CompositeTask;
+import model.Priorita;
+import model.Task;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * {@code TaskStore} conserva i task in forma colonnare: ogni campo è un array di primitivi
+ * e i task sono righe, invece di oggetti separati con intestazioni e puntatori.
+ *
+ * <p>Le colonne sono:</p>
+ * <ul>
+ *   <li>titolo e descrizione come indici in un pool di stringhe condiviso, che memorizza
+ *       una sola volta le stringhe uguali</li>
+ *   <li>la scadenza come {@code int} di giorni dall'epoca</li>
+ *   <li>la priorità come {@code byte} con l'ordinale</li>
+ *   <li>il completamento come bit di un {@link BitSet}</li>
+ * </ul>
+ *
+ * <p>Le scansioni, come il filtro per priorità o l'ordinamento per scadenza, scorrono array
+ * contigui di primitivi. I {@link Task} vengono creati solo su richiesta come viste: i campi
+ * sono copiati dalle colonne, mentre il completamento viene letto e scritto direttamente
+ * nello store finché la riga da cui è nata la vista vi è presente: una vista resta legata alla
+ * propria riga anche se il task viene rimosso e poi aggiunto di nuovo con lo stesso titolo.
+ * Una vista viene completata lungo il percorso ordinario di {@link Task}, sia direttamente con
+ * {@link Task#completaTask()} sia completando una task composita che la contiene: gli osservatori
+ * vengono notificati, le task composite aggiornate e lo stato scritto nella colonna.
+ * Il completamento con {@link #completaTask(String)} modifica soltanto la colonna e non
+ * notifica le viste già create.</p>
+ *
+ * <p>Le righe sono compatte: rimuovendo un task l'ultima riga prende il suo posto, quindi
+ * l'ordine delle righe non è quello di inserimento. Le stringhe del pool non vengono
+ * rilasciate. Le task composite non sono supportate e la classe non è thread-safe.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class TaskStore {
+
+    /** Capacità iniziale delle colonne */
+    private static final int CAPACITA_INIZIALE = 16;
+
+    /** Valore della colonna delle scadenze per i task senza data, che li ordina dopo ogni data */
+    private static final int NESSUNA_SCADENZA = Integer.MAX_VALUE;
+
+    /** Valore della colonna delle priorità per i task senza priorità */
+    private static final byte NESSUNA_PRIORITA = -1;
+
+    /** Indice del pool per le stringhe null */
+    private static final int NESSUNA_STRINGA = -1;
+
+    /** Valori della priorità, letti una sola volta */
+    private static final Priorita[] PRIORITA = Priorita.values();
+
+    /** Colonna dei titoli, come indici nel pool */
+    private int[] titoli = new int[CAPACITA_INIZIALE];
+
+    /** Colonna delle descrizioni, come indici nel pool */
+    private int[] descrizioni = new int[CAPACITA_INIZIALE];
+
+    /** Colonna delle scadenze, in giorni dall'epoca */
+    private int[] scadenze = new int[CAPACITA_INIZIALE];
+
+    /** Colonna delle priorità, come ordinali */
+    private byte[] priorita = new byte[CAPACITA_INIZIALE];
+
+    /** Colonna del completamento */
+    private final BitSet completati = new BitSet();
+
+    /** Colonna delle identità, che distinguono le righe aggiunte con lo stesso titolo */
+    private long[] identita = new long[CAPACITA_INIZIALE];
+
+    /** Identità che verrà assegnata alla prossima riga aggiunta */
+    private long prossimaIdentita;
+
+    /** Numero di righe */
+    private int numero;
+
+    /** Stringhe del pool, nell'ordine in cui sono state inserite */
+    private String[] stringhe = new String[CAPACITA_INIZIALE];
+
+    /** Numero di stringhe del pool */
+    private int numeroStringhe;
+
+    /** Indice nel pool di ogni stringa */
+    private final Map<String, Integer> indiciStringhe = new HashMap<>();
+
+    /** Riga di ogni task, indicizzata per titolo */
+    private final Map<String, Integer> righe = new HashMap<>();
+
+    /**
+     * Costruttore di default.
+     */
+    public TaskStore() {
+        // Nessuna inizializzazione
+    }
+
+    /**
+     * Aggiunge un task, copiandone i campi nelle colonne.
+     *
+     * @param t il task da aggiungere
+     * @throws IllegalArgumentException se {@code t} è null, è una task composita, esiste già
+     *         un task con lo stesso titolo o la scadenza è fuori dall'intervallo rappresentabile
+     *         (dall'epoca, {@link Integer#MIN_VALUE} giorni prima e meno di {@link Integer#MAX_VALUE} dopo)
+     */
+    public void aggiungiTask(Task t) {
+        if (t == null) {
+            throw new IllegalArgumentException("Il task non può essere null");
+        }
+        if (t instanceof CompositeTask) {
+            throw new IllegalArgumentException("Le task composite non sono supportate: " + t.getTitolo());
+        }
+        if (righe.containsKey(t.getTitolo())) {
+            throw new IllegalArgumentException("Esiste già un task con titolo: " + t.getTitolo());
+        }
+        long giorno = t.getScadenza() == null ? NESSUNA_SCADENZA : t.getScadenza().toEpochDay();
+        if (t.getScadenza() != null && (giorno < Integer.MIN_VALUE || giorno >= NESSUNA_SCADENZA)) {
+            throw new IllegalArgumentException("Scadenza non rappresentabile: " + t.getScadenza());
+        }
+        if (numero == titoli.length) {
+            int capacita = titoli.length * 2;
+            titoli = Arrays.copyOf(titoli, capacita);
+            descrizioni = Arrays.copyOf(descrizioni, capacita);
+            scadenze = Arrays.copyOf(scadenze, capacita);
+            priorita = Arrays.copyOf(priorita, capacita);
+            identita = Arrays.copyOf(identita, capacita);
+        }
+        int riga = numero++;
+        titoli[riga] = indiceStringa(t.getTitolo());
+        descrizioni[riga] = indiceStringa(t.getDescrizione());
+        scadenze[riga] = (int) giorno;
+        priorita[riga] = t.getPriorita() == null ? NESSUNA_PRIORITA : (byte) t.getPriorita().ordinal();
+        completati.set(riga, t.isCompletato());
+        identita[riga] = prossimaIdentita++;
+        righe.put(t.getTitolo(), riga);
+    }
+
+    /**
+     * Rimuove il task con il titolo indicato, spostando l'ultima riga al suo posto.
+     *
+     * @param titolo il titolo del task
+     * @return {@code true} se il task era presente
+     */
+    public boolean rimuoviTask(String titolo) {
+        Integer riga = righe.remove(titolo);
+        if (riga == null) {
+            return false;
+        }
+        int ultima = --numero;
+        if (riga != ultima) {
+            titoli[riga] = titoli[ultima];
+            descrizioni[riga] = descrizioni[ultima];
+            scadenze[riga] = scadenze[ultima];
+            priorita[riga] = priorita[ultima];
+            completati.set(riga, completati.get(ultima));
+            identita[riga] = identita[ultima];
+            righe.put(stringhe[titoli[riga]], riga);
+        }
+        completati.clear(ultima);
+        return true;
+    }
+
+    /**
+     * Segna come completato il task con il titolo indicato.
+     * <p>Le viste già create leggono il nuovo stato, ma i loro osservatori non vengono notificati:
+     * per le viste osservate o contenute in una task composita va usato {@link Task#completaTask()}.</p>
+     *
+     * @param titolo il titolo del task
+     * @return {@code true} se il task è presente
+     */
+    public boolean completaTask(String titolo) {
+        Integer riga = righe.get(titolo);
+        if (riga == null) {
+            return false;
+        }
+        completati.set(riga);
+        return true;
+    }
+
+    /**
+     * Restituisce il numero di task.
+     *
+     * @return numero di task
+     */
+    public int getNumeroTasks() {
+        return numero;
+    }
+
+    /**
+     * Cerca un task a partire dal suo titolo.
+     *
+     * @param titolo il titolo del task
+     * @return una vista del task, oppure {@code null} se non presente
+     */
+    public Task trovaPerTitolo(String titolo) {
+        Integer riga = righe.get(titolo);
+        return riga == null ? null : vista(riga);
+    }
+
+    /**
+     * Restituisce le viste di tutti i task, nell'ordine delle righe.
+     *
+     * @return lista non modificabile dei task
+     */
+    public List<Task> getTutti() {
+        List<Task> tutti = new ArrayList<>(numero);
+        for (int riga = 0; riga < numero; riga++) {
+            tutti.add(vista(riga));
+        }
+        return Collections.unmodifiableList(tutti);
+    }
+
+    /**
+     * Conta i task con la priorità indicata scorrendo soltanto la colonna delle priorità.
+     *
+     * @param p la priorità (può essere null)
+     * @return il numero di task con quella priorità
+     */
+    public int contaPerPriorita(Priorita p) {
+        byte cercata = p == null ? NESSUNA_PRIORITA : (byte) p.ordinal();
+        int conteggio = 0;
+        for (int riga = 0; riga < numero; riga++) {
+            if (priorita[riga] == cercata) {
+                conteggio++;
+            }
+        }
+        return conteggio;
+    }
+
+    /**
+     * Filtra i task in base alla priorità, scorrendo la colonna delle priorità
+     * e creando le viste solo per le righe selezionate.
+     *
+     * @param p la priorità da filtrare (può essere null)
+     * @return lista non modificabile dei task con quella priorità, nell'ordine delle righe
+     */
+    public List<Task> filtraPerPriorita(Priorita p) {
+        byte cercata = p == null ? NESSUNA_PRIORITA : (byte) p.ordinal();
+        List<Task> risultato = new ArrayList<>();
+        for (int riga = 0; riga < numero; riga++) {
+            if (priorita[riga] == cercata) {
+                risultato.add(vista(riga));
+            }
+        }
+        return Collections.unmodifiableList(risultato);
+    }
+
+    /**
+     * Restituisce i task ordinati per scadenza crescente, con quelli senza scadenza in fondo.
+     * <p>Ogni riga diventa un {@code long} con la scadenza con segno nei 32 bit alti e la riga
+     * nei bassi: l'ordinamento avviene su un array di primitivi ed è stabile rispetto all'ordine
+     * delle righe. I task senza data hanno la scadenza massima e vanno in fondo.</p>
+     *
+     * @return lista non modificabile dei task ordinati
+     */
+    public List<Task> ordinaPerScadenza() {
+        long[] chiavi = new long[numero];
+        for (int riga = 0; riga < numero; riga++) {
+            chiavi[riga] = (long) scadenze[riga] << 32 | riga;
+        }
+        Arrays.sort(chiavi);
+        List<Task> risultato = new ArrayList<>(numero);
+        for (long chiave : chiavi) {
+            risultato.add(vista((int) chiave));
+        }
+        return Collections.unmodifiableList(risultato);
+    }
+
+    /**
+     * Restituisce i task completati, scorrendo soltanto i bit impostati.
+     *
+     * @return lista non modificabile dei task completati
+     */
+    public List<Task> getCompletati() {
+        List<Task> risultato = new ArrayList<>(completati.cardinality());
+        for (int riga = completati.nextSetBit(0); riga >= 0; riga = completati.nextSetBit(riga + 1)) {
+            risultato.add(vista(riga));
+        }
+        return Collections.unmodifiableList(risultato);
+    }
+
+    /**
+     * Restituisce la riga da cui è nata una vista, se è ancora nello store.
+     *
+     * @param vista la vista
+     * @return la riga, oppure -1 se il task della vista è stato rimosso
+     */
+    private int riga(VistaTask vista) {
+        Integer riga = righe.get(vista.getTitolo());
+        return riga == null || identita[riga] != vista.identita ? -1 : riga;
+    }
+
+    /**
+     * Restituisce l'indice nel pool della stringa, aggiungendola se non presente.
+     *
+     * @param s la stringa (può essere null)
+     * @return l'indice nel pool
+     */
+    private int indiceStringa(String s) {
+        if (s == null) {
+            return NESSUNA_STRINGA;
+        }
+        Integer indice = indiciStringhe.get(s);
+        if (indice != null) {
+            return indice;
+        }
+        if (numeroStringhe == stringhe.length) {
+            stringhe = Arrays.copyOf(stringhe, stringhe.length * 2);
+        }
+        stringhe[numeroStringhe] = s;
+        indiciStringhe.put(s, numeroStringhe);
+        return numeroStringhe++;
+    }
+
+    /**
+     * Restituisce la stringa del pool con l'indice indicato.
+     */
+    private String stringa(int indice) {
+        return indice == NESSUNA_STRINGA ? null : stringhe[indice];
+    }
+
+    /**
+     * Crea la vista del task di una riga.
+     */
+    private Task vista(int riga) {
+        return new VistaTask(this, identita[riga],
+                stringa(titoli[riga]),
+                stringa(descrizioni[riga]),
+                scadenze[riga] == NESSUNA_SCADENZA ? null : LocalDate.ofEpochDay(scadenze[riga]),
+                priorita[riga] == NESSUNA_PRIORITA ? null : PRIORITA[priorita[riga]]);
+    }
+
+    /**
+     * Vista di un task dello store: i campi sono copiati dalle colonne, mentre il completamento
+     * è letto e scritto nella riga da cui è nata la vista, ritrovata per titolo e riconosciuta
+     * dalla sua identità anche dopo gli spostamenti. Se la riga viene rimossa, la vista mantiene
+     * l'ultimo stato letto.
+     */
+    private static final class VistaTask extends Task {
+        private final TaskStore store;
+        private final long identita;
+        private boolean ultimoStato;
+
+        VistaTask(TaskStore store, long identita, String titolo, String descrizione, LocalDate scadenza,
+                  Priorita priorita) {
+            super(titolo, descrizione, scadenza, priorita);
+            this.store = store;
+            this.identita = identita;
+        }
+
+        @Override
+        public boolean isCompletato() {
+            int riga = store.riga(this);
+            if (riga >= 0) {
+                ultimoStato = store.completati.get(riga);
+            }
+            return ultimoStato || super.isCompletato();
+        }
+
+        /**
+         * Scrive il completamento nella riga prima di notificare gli osservatori. Ogni percorso
+         * di completamento di {@link Task} passa di qui quando lo stato della vista cambia,
+         * compreso il completamento di una task composita che la contiene.
+         */
+        @Override
+        protected void notificaCompletamento() {
+            int riga = store.riga(this);
+            if (riga >= 0 && super.isCompletato()) {
+                store.completati.set(riga);
+            }
+            super.notificaCompletamento();
+        }
+    }
+}
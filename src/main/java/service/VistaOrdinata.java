@@ -0,0 +1,186 @@
+package service;
+
+import model.Task;
+import strategy.TaskSortStrategy;
+import java.util.*;
+
+/**
+ * {@code VistaOrdinata} è una vista dei task di un {@link TaskManager} che resta ordinata
+ * secondo una {@link TaskSortStrategy} mentre il manager viene modificato.
+ *
+ * <p>La vista è registrata come {@link TaskManagerListener}: ogni aggiunta, rimozione o
+ * cambio di completamento la aggiorna in tempo logaritmico, mentre la lettura non copia
+ * né riordina nulla. L'ordine coincide con quello di
+ * {@code strategia.ordina(manager.getTutti())}: a parità di chiave i task restano
+ * nell'ordine di inserimento nel manager.</p>
+ *
+ * <p>Ogni task viene posizionato tramite una fotografia dei campi usati dai comparatori.
+ * Titolo, descrizione, scadenza e priorità non cambiano, mentre il completamento viene
+ * aggiornato a ogni notifica: così la vecchia posizione si ritrova anche dopo il cambio
+ * di stato.</p>
+ *
+ * <p>La vista non è modificabile e non è thread-safe, come il {@link TaskManager}.
+ * Quando non serve più va chiusa con {@link #close()}, per smettere di ricevere le notifiche.</p>
+ *
+ * @see TaskManager#vistaOrdinata(TaskSortStrategy)
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public final class VistaOrdinata extends AbstractCollection<Task> implements TaskManagerListener, AutoCloseable {
+
+    /**
+     * Posizione di un task nella vista.
+     */
+    private static final class Voce {
+        /** Il task del manager */
+        private final Task task;
+        /** Copia dei campi del task al momento dell'ultimo aggiornamento */
+        private final Task fotografia;
+        /** Ordine di inserimento nel manager, usato a parità di chiave */
+        private final long sequenza;
+
+        Voce(Task task, Task fotografia, long sequenza) {
+            this.task = task;
+            this.fotografia = fotografia;
+            this.sequenza = sequenza;
+        }
+    }
+
+    /** Il manager osservato */
+    private final TaskManager manager;
+
+    /** Task ordinati secondo la strategia e, a parità, per ordine di inserimento */
+    private final NavigableSet<Voce> ordinati;
+
+    /** Voce corrente di ogni task, indicizzata per titolo */
+    private final Map<String, Voce> voci = new HashMap<>();
+
+    /** Prossimo numero di sequenza da assegnare */
+    private long prossimaSequenza;
+
+    /**
+     * Crea la vista a partire dai task già presenti nel manager.
+     *
+     * @param manager il manager da osservare
+     * @param strategia la strategia che definisce l'ordine
+     */
+    VistaOrdinata(TaskManager manager, TaskSortStrategy strategia) {
+        this.manager = manager;
+        Comparator<Task> comparatore = strategia.comparatore();
+        this.ordinati = new TreeSet<>((a, b) -> {
+            int c = comparatore.compare(a.fotografia, b.fotografia);
+            return c != 0 ? c : Long.compare(a.sequenza, b.sequenza);
+        });
+        for (Task t : manager) {
+            taskAggiunto(t);
+        }
+    }
+
+    /**
+     * Inserisce il task aggiunto al manager nella sua posizione.
+     *
+     * @param task il task aggiunto
+     */
+    @Override
+    public void taskAggiunto(Task task) {
+        Voce voce = new Voce(task, fotografa(task), prossimaSequenza++);
+        voci.put(task.getTitolo(), voce);
+        ordinati.add(voce);
+    }
+
+    /**
+     * Toglie dalla vista il task rimosso dal manager.
+     *
+     * @param task il task rimosso
+     */
+    @Override
+    public void taskRimosso(Task task) {
+        Voce voce = voci.remove(task.getTitolo());
+        if (voce != null) {
+            ordinati.remove(voce);
+        }
+    }
+
+    /**
+     * Sposta il task nella posizione corrispondente al nuovo stato di completamento,
+     * mantenendo il suo ordine di inserimento.
+     *
+     * @param task il task il cui stato è cambiato
+     */
+    @Override
+    public void completamentoCambiato(Task task) {
+        Voce voce = voci.get(task.getTitolo());
+        if (voce == null || voce.fotografia.isCompletato() == task.isCompletato()) {
+            return;
+        }
+        ordinati.remove(voce);
+        Voce aggiornata = new Voce(task, fotografa(task), voce.sequenza);
+        voci.put(task.getTitolo(), aggiornata);
+        ordinati.add(aggiornata);
+    }
+
+    /**
+     * Restituisce un iteratore sui task nell'ordine della strategia.
+     * <p>Come per le altre collezioni ordinate, il manager non va modificato
+     * durante l'iterazione.</p>
+     *
+     * @return un iteratore non modificabile
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        Iterator<Voce> it = ordinati.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                return it.next().task;
+            }
+        };
+    }
+
+    /**
+     * Restituisce il numero di task nella vista.
+     *
+     * @return numero di task
+     */
+    @Override
+    public int size() {
+        return ordinati.size();
+    }
+
+    /**
+     * Restituisce il primo task nell'ordine della strategia, in tempo logaritmico.
+     *
+     * @return il primo task, oppure {@code null} se la vista è vuota
+     */
+    public Task getPrimo() {
+        return ordinati.isEmpty() ? null : ordinati.first().task;
+    }
+
+    /**
+     * Smette di seguire le modifiche del manager. Dopo la chiusura la vista
+     * mantiene l'ultimo ordine calcolato.
+     */
+    @Override
+    public void close() {
+        manager.rimuoviListener(this);
+    }
+
+    /**
+     * Copia i campi del task letti dai comparatori, compreso lo stato di completamento.
+     *
+     * @param t il task da fotografare
+     * @return una task indipendente con gli stessi campi
+     */
+    private static Task fotografa(Task t) {
+        Task copia = new Task(t.getTitolo(), t.getDescrizione(), t.getScadenza(), t.getPriorita());
+        if (t.isCompletato()) {
+            copia.completaTask();
+        }
+        return copia;
+    }
+}
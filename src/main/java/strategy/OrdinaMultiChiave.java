@@ -0,0 +1,202 @@
+package strategy;
+
+import model.Priorita;
+import model.Task;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * {@code OrdinaMultiChiave} è una strategia di ordinamento che ordina i {@link Task}
+ * secondo più chiavi in cascata, ad esempio prima i task da completare, poi per priorità
+ * decrescente, poi per scadenza e infine per titolo.
+ *
+ * <p>Le chiavi di ogni task vengono lette una sola volta e compresse in un {@code long}:
+ * nei 31 bit alti le chiavi nell'ordine indicato (1 bit per il completamento, 2 per la
+ * priorità, 28 per il giorno di scadenza), nei 32 bit bassi la posizione originale.
+ * L'ordinamento avviene sull'array di primitivi, senza accedere ai task durante i
+ * confronti, e la posizione rende l'ordine stabile. Il titolo, che non può essere compresso,
+ * viene confrontato solo all'interno dei gruppi di task con le altre chiavi uguali.</p>
+ *
+ * <p>I task senza priorità o senza scadenza vengono ordinati dopo gli altri per quella chiave.</p>
+ *
+ * <p>Implementa l'interfaccia {@link TaskSortStrategy} secondo il pattern Strategy.</p>
+ *
+ * @see TaskSortStrategy
+ * @see Task
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class OrdinaMultiChiave implements TaskSortStrategy {
+
+    /**
+     * Chiavi di ordinamento disponibili.
+     */
+    public enum Chiave {
+        /** Task non completati prima di quelli completati */
+        COMPLETAMENTO(1),
+        /** Priorità decrescente */
+        PRIORITA(2),
+        /** Data di scadenza crescente */
+        SCADENZA(28),
+        /** Titolo in ordine alfabetico; se presente deve essere l'ultima chiave */
+        TITOLO(0);
+
+        /** Numero di bit occupati nella chiave compressa */
+        private final int bit;
+
+        Chiave(int bit) {
+            this.bit = bit;
+        }
+    }
+
+    /** Valore della chiave di scadenza per i task senza data, dopo tutte le date */
+    private static final long SCADENZA_ASSENTE = (1L << 28) - 1;
+
+    /** Scostamento che rende non negativo il giorno epoch delle date rappresentabili */
+    private static final long SCOSTAMENTO_SCADENZA = 1L << 27;
+
+    /** Chiavi nell'ordine di applicazione */
+    private final Chiave[] chiavi;
+
+    /** Indica se l'ultima chiave è il titolo */
+    private final boolean perTitolo;
+
+    /** Comparatore equivalente, usato per {@link #ordinaPrimi(List, int)} */
+    private final Comparator<Task> comparatore;
+
+    /**
+     * Crea una strategia che applica le chiavi nell'ordine indicato.
+     *
+     * @param chiavi le chiavi di ordinamento, dalla più significativa
+     * @throws IllegalArgumentException se non ci sono chiavi, se una chiave è ripetuta
+     *         o se il titolo non è l'ultima chiave
+     */
+    public OrdinaMultiChiave(Chiave... chiavi) {
+        if (chiavi == null || chiavi.length == 0) {
+            throw new IllegalArgumentException("Serve almeno una chiave di ordinamento");
+        }
+        EnumSet<Chiave> viste = EnumSet.noneOf(Chiave.class);
+        for (int i = 0; i < chiavi.length; i++) {
+            if (chiavi[i] == null || !viste.add(chiavi[i])) {
+                throw new IllegalArgumentException("Chiave di ordinamento non valida o ripetuta: " + chiavi[i]);
+            }
+            if (chiavi[i] == Chiave.TITOLO && i != chiavi.length - 1) {
+                throw new IllegalArgumentException("Il titolo deve essere l'ultima chiave di ordinamento");
+            }
+        }
+        this.chiavi = chiavi.clone();
+        this.perTitolo = chiavi[chiavi.length - 1] == Chiave.TITOLO;
+        Comparator<Task> c = Comparator.comparingLong(this::chiaveCompressa);
+        if (perTitolo) {
+            c = c.thenComparing(Task::getTitolo, Comparator.nullsLast(Comparator.naturalOrder()));
+        }
+        this.comparatore = c;
+    }
+
+    /**
+     * Ordina una lista di task secondo le chiavi della strategia.
+     *
+     * @param tasks la lista di task da ordinare
+     * @return una nuova lista ordinata
+     */
+    @Override
+    public List<Task> ordina(List<Task> tasks) {
+        Task[] originali = tasks.toArray(new Task[0]);
+        long[] chiaviCompresse = new long[originali.length];
+        for (int i = 0; i < originali.length; i++) {
+            chiaviCompresse[i] = chiaveCompressa(originali[i]) << 32 | i;
+        }
+        // Le chiavi sono tutte distinte grazie alla posizione, quindi anche l'ordinamento
+        // parallelo dei primitivi dà un risultato stabile
+        if (chiaviCompresse.length >= OrdinamentoStabile.SOGLIA_PARALLELA) {
+            Arrays.parallelSort(chiaviCompresse);
+        } else {
+            Arrays.sort(chiaviCompresse);
+        }
+        Task[] ordinati = new Task[originali.length];
+        for (int i = 0; i < ordinati.length; i++) {
+            ordinati[i] = originali[(int) chiaviCompresse[i]];
+        }
+        if (perTitolo) {
+            ordinaGruppiPerTitolo(ordinati, chiaviCompresse);
+        }
+        return List.of(ordinati);
+    }
+
+    /**
+     * Restituisce il comparatore equivalente all'ordinamento della strategia.
+     *
+     * @return il comparatore, creato una sola volta per istanza
+     */
+    @Override
+    public Comparator<Task> comparatore() {
+        return comparatore;
+    }
+
+    /**
+     * Ordina per titolo ogni gruppo consecutivo di task con la stessa chiave compressa.
+     * L'ordinamento è stabile, quindi a parità di titolo resta l'ordine originale.
+     *
+     * @param ordinati i task già ordinati per chiave compressa
+     * @param chiaviCompresse le chiavi compresse ordinate, con la posizione nei bit bassi
+     */
+    private static void ordinaGruppiPerTitolo(Task[] ordinati, long[] chiaviCompresse) {
+        Comparator<Task> perTitolo = Comparator.comparing(Task::getTitolo, Comparator.nullsLast(Comparator.naturalOrder()));
+        int inizio = 0;
+        while (inizio < ordinati.length) {
+            long chiave = chiaviCompresse[inizio] >>> 32;
+            int fine = inizio + 1;
+            while (fine < ordinati.length && chiaviCompresse[fine] >>> 32 == chiave) {
+                fine++;
+            }
+            if (fine - inizio > 1) {
+                Arrays.sort(ordinati, inizio, fine, perTitolo);
+            }
+            inizio = fine;
+        }
+    }
+
+    /**
+     * Comprime le chiavi del task, esclusa l'eventuale chiave del titolo, in un valore
+     * non negativo di al più 31 bit.
+     *
+     * @param t il task
+     * @return la chiave compressa
+     */
+    private long chiaveCompressa(Task t) {
+        long chiave = 0;
+        for (Chiave c : chiavi) {
+            if (c == Chiave.TITOLO) {
+                break;
+            }
+            chiave = chiave << c.bit | valore(c, t);
+        }
+        return chiave;
+    }
+
+    /**
+     * Restituisce il valore di una chiave per il task, crescente nell'ordine desiderato.
+     *
+     * @param c la chiave
+     * @param t il task
+     * @return il valore della chiave
+     */
+    private static long valore(Chiave c, Task t) {
+        switch (c) {
+            case COMPLETAMENTO:
+                return t.isCompletato() ? 1 : 0;
+            case PRIORITA:
+                Priorita p = t.getPriorita();
+                return p == null ? 3 : Priorita.ALTA.ordinal() - p.ordinal();
+            case SCADENZA:
+                LocalDate scadenza = t.getScadenza();
+                if (scadenza == null) {
+                    return SCADENZA_ASSENTE;
+                }
+                long giorno = scadenza.toEpochDay() + SCOSTAMENTO_SCADENZA;
+                return Math.max(0, Math.min(SCADENZA_ASSENTE - 1, giorno));
+            default:
+                return 0;
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package strategy;
 
 import model.Task;
-import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.stream.Collectors;
+import java.util.List;
 
 /**
  * {@code OrdinaPerCompletamento} è una strategia di ordinamento che ordina i {@link Task}
  * in base al loro stato di completamento.
- * <p>Le task non completate vengono ordinate prima di quelle completate.</p>
+ * <p>Le task non completate vengono ordinate prima di quelle completate.
+ * L'ordinamento è stabile e viene eseguito per conteggio in tempo lineare.</p>
  * 
  * <p>Implementa l'interfaccia {@link TaskSortStrategy} secondo il pattern Strategy.</p>
  * 
@@ -19,6 +21,9 @@ import java.util.stream.Collectors;
  */
 public class OrdinaPerCompletamento implements TaskSortStrategy {
 
+    /** Comparatore per stato di completamento: incompleti prima, completi dopo, creato una sola volta */
+    public static final Comparator<Task> COMPARATORE = Comparator.comparing(Task::isCompletato);
+
     /**
      * Costruttore di default.
      */
@@ -30,12 +35,20 @@ public class OrdinaPerCompletamento implements TaskSortStrategy {
      * Ordina una lista di task per stato di completamento: incompleti prima, completi dopo.
      *
      * @param lista la lista di task da ordinare
-     * @return una nuova lista ordinata per stato di completamento
+     * @return una nuova lista modificabile ordinata per stato di completamento
      */
     @Override
     public List<Task> ordina(List<Task> lista) {
-        return lista.stream()
-                .sorted(Comparator.comparing(Task::isCompletato))
-                .collect(Collectors.toList());
+        return new ArrayList<>(Arrays.asList(OrdinamentoStabile.perConteggio(lista, 2, t -> t.isCompletato() ? 1 : 0)));
+    }
+
+    /**
+     * Restituisce il comparatore della strategia.
+     *
+     * @return {@link #COMPARATORE}
+     */
+    @Override
+    public Comparator<Task> comparatore() {
+        return COMPARATORE;
     }
 }
@@ -1,11 +1,14 @@
 package strategy;
 
+import model.Priorita;
 import model.Task;
 import java.util.*;
 
 /**
  * {@code OrdinaPerPriorita} è una strategia di ordinamento che ordina i {@link Task}
  * in base alla loro priorità, dalla più alta alla più bassa.
+ * <p>L'ordinamento è stabile e, avendo la priorità solo tre valori, viene eseguito
+ * per conteggio in tempo lineare.</p>
  * 
  * <p>Implementa l'interfaccia {@link TaskSortStrategy} secondo il pattern Strategy.</p>
  * 
@@ -16,6 +19,14 @@ import java.util.*;
  */
 public class OrdinaPerPriorita implements TaskSortStrategy {
 
+    /** Comparatore per priorità decrescente, creato una sola volta */
+    public static final Comparator<Task> COMPARATORE = Comparator.comparing(Task::getPriorita).reversed();
+
+    /** Valori della priorità, letti una sola volta */
+    private static final Priorita[] PRIORITA = Priorita.values();
+
+    /** Ordinale della priorità più alta, che va nel primo gruppo */
+    private static final int ALTA = PRIORITA.length - 1;
 
     /**
      * Costruttore di default.
@@ -31,8 +42,17 @@ public class OrdinaPerPriorita implements TaskSortStrategy {
      * @return una nuova lista ordinata per priorità
      */
     public List<Task> ordina(List<Task> tasks) {
-        return tasks.stream()
-                .sorted(Comparator.comparing(Task::getPriorita).reversed())
-                .toList();
+        return Collections.unmodifiableList(Arrays.asList(
+                OrdinamentoStabile.perConteggio(tasks, PRIORITA.length, t -> ALTA - t.getPriorita().ordinal())));
+    }
+
+    /**
+     * Restituisce il comparatore della strategia.
+     *
+     * @return {@link #COMPARATORE}
+     */
+    @Override
+    public Comparator<Task> comparatore() {
+        return COMPARATORE;
     }
 }
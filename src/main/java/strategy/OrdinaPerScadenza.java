@@ -6,6 +6,7 @@ import java.util.*;
 /**
  * {@code OrdinaPerScadenza} è una strategia di ordinamento che ordina i {@link Task}
  * in base alla data di scadenza, dalla più prossima alla più lontana.
+ * <p>L'ordinamento è stabile e sulle liste grandi viene eseguito in parallelo.</p>
  * 
  * <p>Implementa l'interfaccia {@link TaskSortStrategy} secondo il pattern Strategy.</p>
  * 
@@ -16,6 +17,9 @@ import java.util.*;
  */
 public class OrdinaPerScadenza implements TaskSortStrategy {
 
+    /** Comparatore per data di scadenza crescente, creato una sola volta */
+    public static final Comparator<Task> COMPARATORE = Comparator.comparing(Task::getScadenza);
+
     /**
      * Costruttore di default.
      */
@@ -30,8 +34,16 @@ public class OrdinaPerScadenza implements TaskSortStrategy {
      * @return una nuova lista ordinata per scadenza
      */
     public List<Task> ordina(List<Task> tasks) {
-        return tasks.stream()
-                .sorted(Comparator.comparing(Task::getScadenza))
-                .toList();
+        return Collections.unmodifiableList(Arrays.asList(OrdinamentoStabile.ordina(tasks, COMPARATORE)));
+    }
+
+    /**
+     * Restituisce il comparatore della strategia.
+     *
+     * @return {@link #COMPARATORE}
+     */
+    @Override
+    public Comparator<Task> comparatore() {
+        return COMPARATORE;
     }
 }
@@ -0,0 +1,74 @@
+package strategy;
+
+import model.Task;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@code OrdinamentoStabile} ordina un array di task in modo stabile, passando
+ * all'ordinamento parallelo sulle liste più grandi.
+ * <p>{@link Arrays#parallelSort(Object[], Comparator)} è un merge sort stabile come
+ * {@link Arrays#sort(Object[], Comparator)}, quindi il risultato non dipende dalla modalità.
+ * Per le chiavi con pochi valori è disponibile un ordinamento per conteggio in tempo lineare.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+final class OrdinamentoStabile {
+
+    /** Numero di task oltre il quale l'ordinamento viene eseguito in parallelo */
+    static final int SOGLIA_PARALLELA = 1 << 16;
+
+    private OrdinamentoStabile() {
+        // Classe di utilità
+    }
+
+    /**
+     * Copia la lista in un array e lo ordina in modo stabile.
+     *
+     * @param tasks la lista di task da ordinare
+     * @param comparatore l'ordine da applicare
+     * @return un nuovo array ordinato
+     */
+    static Task[] ordina(List<Task> tasks, Comparator<? super Task> comparatore) {
+        Task[] ordinati = tasks.toArray(new Task[0]);
+        if (ordinati.length >= SOGLIA_PARALLELA) {
+            Arrays.parallelSort(ordinati, comparatore);
+        } else {
+            Arrays.sort(ordinati, comparatore);
+        }
+        return ordinati;
+    }
+
+    /**
+     * Ordina la lista in modo stabile per conteggio, su una chiave intera compresa
+     * tra {@code 0} e {@code numeroChiavi - 1}.
+     * <p>La chiave di ogni task viene letta una sola volta; il secondo passaggio
+     * scrive ogni task direttamente nella sua posizione finale.</p>
+     *
+     * @param tasks la lista di task da ordinare
+     * @param numeroChiavi il numero di valori possibili della chiave
+     * @param chiave la funzione che restituisce la chiave del task, crescente nell'ordine desiderato
+     * @return un nuovo array ordinato
+     */
+    static Task[] perConteggio(List<Task> tasks, int numeroChiavi, ToIntFunction<Task> chiave) {
+        Task[] originali = tasks.toArray(new Task[0]);
+        byte[] chiavi = new byte[originali.length];
+        int[] inizio = new int[numeroChiavi + 1];
+        for (int i = 0; i < originali.length; i++) {
+            int k = chiave.applyAsInt(originali[i]);
+            chiavi[i] = (byte) k;
+            inizio[k + 1]++;
+        }
+        for (int k = 0; k < numeroChiavi; k++) {
+            inizio[k + 1] += inizio[k];
+        }
+        Task[] ordinati = new Task[originali.length];
+        for (int i = 0; i < originali.length; i++) {
+            ordinati[inizio[chiavi[i]]++] = originali[i];
+        }
+        return ordinati;
+    }
+}
@@ -0,0 +1,121 @@
+package strategy;
+
+import model.Task;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@code SelezionePrimi} seleziona i primi elementi di una lista secondo un comparatore
+ * tramite un max-heap limitato, senza ordinare l'intera lista.
+ * <p>A parità di comparatore vince la posizione originale, così il risultato
+ * coincide con il prefisso di un ordinamento stabile.</p>
+ *
+ * @see TaskSortStrategy#ordinaPrimi(List, int)
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+final class SelezionePrimi {
+
+    private SelezionePrimi() {
+        // Classe di utilità
+    }
+
+    /**
+     * Restituisce i primi {@code k} task della lista nell'ordine del comparatore.
+     *
+     * @param tasks la lista di task
+     * @param k il numero massimo di task da restituire
+     * @param comparatore l'ordine da applicare
+     * @return una nuova lista non modificabile con al più {@code k} task
+     * @throws IllegalArgumentException se {@code k} è negativo
+     */
+    static List<Task> seleziona(List<Task> tasks, int k, Comparator<? super Task> comparatore) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Il numero di task da selezionare non può essere negativo");
+        }
+        int capacita = Math.min(k, tasks.size());
+        // Max-heap: in radice il peggiore tra i task tenuti, con la sua posizione originale
+        Task[] heap = new Task[capacita];
+        int[] posizioni = new int[capacita];
+        int dimensione = 0;
+        int indice = 0;
+        for (Task t : tasks) {
+            if (dimensione < capacita) {
+                heap[dimensione] = t;
+                posizioni[dimensione] = indice;
+                risali(heap, posizioni, dimensione++, comparatore);
+            } else if (capacita > 0 && comparatore.compare(t, heap[0]) < 0) {
+                // A parità il nuovo task, che viene dopo, è il peggiore: non entra
+                heap[0] = t;
+                posizioni[0] = indice;
+                scendi(heap, posizioni, dimensione, comparatore);
+            }
+            indice++;
+        }
+        // Estrae ripetutamente il peggiore e lo colloca in fondo
+        Task[] risultato = new Task[dimensione];
+        for (int fine = dimensione - 1; fine >= 0; fine--) {
+            risultato[fine] = heap[0];
+            heap[0] = heap[fine];
+            posizioni[0] = posizioni[fine];
+            scendi(heap, posizioni, fine, comparatore);
+        }
+        return List.of(risultato);
+    }
+
+    /**
+     * Confronta due task, rompendo la parità con la posizione originale.
+     */
+    private static int confronta(Task a, int posizioneA, Task b, int posizioneB, Comparator<? super Task> comparatore) {
+        int confronto = comparatore.compare(a, b);
+        return confronto != 0 ? confronto : Integer.compare(posizioneA, posizioneB);
+    }
+
+    /**
+     * Riporta verso la radice l'elemento in posizione {@code i}.
+     */
+    private static void risali(Task[] heap, int[] posizioni, int i, Comparator<? super Task> comparatore) {
+        Task t = heap[i];
+        int posizione = posizioni[i];
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            if (confronta(t, posizione, heap[padre], posizioni[padre], comparatore) <= 0) {
+                break;
+            }
+            heap[i] = heap[padre];
+            posizioni[i] = posizioni[padre];
+            i = padre;
+        }
+        heap[i] = t;
+        posizioni[i] = posizione;
+    }
+
+    /**
+     * Riporta verso le foglie l'elemento in radice, in un heap di {@code dimensione} elementi.
+     */
+    private static void scendi(Task[] heap, int[] posizioni, int dimensione, Comparator<? super Task> comparatore) {
+        if (dimensione == 0) {
+            return;
+        }
+        Task t = heap[0];
+        int posizione = posizioni[0];
+        int i = 0;
+        int meta = dimensione >>> 1;
+        while (i < meta) {
+            int figlio = 2 * i + 1;
+            int destro = figlio + 1;
+            if (destro < dimensione
+                    && confronta(heap[destro], posizioni[destro], heap[figlio], posizioni[figlio], comparatore) > 0) {
+                figlio = destro;
+            }
+            if (confronta(t, posizione, heap[figlio], posizioni[figlio], comparatore) >= 0) {
+                break;
+            }
+            heap[i] = heap[figlio];
+            posizioni[i] = posizioni[figlio];
+            i = figlio;
+        }
+        heap[i] = t;
+        posizioni[i] = posizione;
+    }
+}
@@ -1,6 +1,7 @@
 package strategy;
 
 import model.Task;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -22,4 +23,44 @@ public interface TaskSortStrategy {
      * @return una nuova lista ordinata
      */
     List<Task> ordina(List<Task> tasks);
+
+    /**
+     * Restituisce il comparatore che definisce l'ordine della strategia.
+     * <p>È un'operazione facoltativa: le strategie del pacchetto la ridefiniscono, mentre
+     * quelle che definiscono l'ordine solo tramite {@link #ordina(List)}, comprese le
+     * espressioni lambda, ereditano questa implementazione.</p>
+     *
+     * @return il comparatore, condiviso tra tutte le invocazioni
+     * @throws UnsupportedOperationException se la strategia non definisce un comparatore
+     */
+    default Comparator<Task> comparatore() {
+        throw new UnsupportedOperationException("La strategia non definisce un comparatore");
+    }
+
+    /**
+     * Restituisce i primi {@code k} task nell'ordine della strategia, come i primi
+     * {@code k} elementi di {@link #ordina(List)}: a parità di chiave viene mantenuto
+     * l'ordine della lista originale.
+     * <p>Usa un heap limitato a {@code k} elementi, con un costo O(n log k)
+     * invece dell'O(n log n) dell'ordinamento completo. Se la strategia non definisce
+     * un {@link #comparatore()} ordina l'intera lista e ne restituisce i primi {@code k} task.</p>
+     *
+     * @param tasks la lista di task da ordinare
+     * @param k il numero massimo di task da restituire
+     * @return una nuova lista non modificabile con al più {@code k} task
+     * @throws IllegalArgumentException se {@code k} è negativo
+     */
+    default List<Task> ordinaPrimi(List<Task> tasks, int k) {
+        Comparator<Task> comparatore;
+        try {
+            comparatore = comparatore();
+        } catch (UnsupportedOperationException e) {
+            if (k < 0) {
+                throw new IllegalArgumentException("Il numero di task da selezionare non può essere negativo");
+            }
+            List<Task> ordinati = ordina(tasks);
+            return List.copyOf(ordinati.subList(0, Math.min(k, ordinati.size())));
+        }
+        return SelezionePrimi.seleziona(tasks, k, comparatore);
+    }
 }
@@ -1,22 +1,43 @@
 package util;
 
 import model.*;
+import service.TaskManager;
 
 import java.io.*;
-import java.time.LocalDate;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * {@code FileManager} fornisce metodi statici per salvare e caricare una lista di {@link Task}
  * da e verso un file di testo.
  * 
  * <p>Ogni task viene serializzato in una riga con campi separati da punto e virgola (;).</p>
+ *
+ * <p>È disponibile anche un formato binario compatto e versionato, descritto in
+ * {@link TaskBinaryCodec}, che conserva lo stato di completamento e le gerarchie
+ * di {@link CompositeTask}.</p>
+ *
+ * <p>Il caricamento avviene in streaming: le righe vengono interpretate una alla volta
+ * direttamente dai byte del file, quindi è possibile elaborare file molto grandi
+ * senza costruire l'intera lista in memoria.</p>
  * 
  * @author Gian Luca Baccani
  * @version 1.0
  */
 public class FileManager {
 
+    /** Dimensione indicativa dei blocchi in cui viene suddiviso un file da importare */
+    private static final int DIMENSIONE_BLOCCO = 16 * 1024 * 1024;
 
     /**
      * Costruttore di default di FileManager.
@@ -33,17 +54,28 @@ public class FileManager {
      */ 
     public static void salvaTask(List<Task> tasks, String filePath) {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (Task t : tasks) {
-                writer.write(t.getTitolo() + ";" + t.getDescrizione() + ";" +
-                             t.getScadenza() + ";" + t.getPriorita()); //+ ";" +
-                             //t.isCompletato());
-                writer.newLine();
-            }
+            scriviTesto(tasks, writer);
         } catch (IOException e) {
             LoggerUtil.getLogger().warning("Errore nel salvataggio: " + e.getMessage());
         }
     }
 
+    /**
+     * Scrive una lista di task nel formato testuale, una riga per task.
+     *
+     * @param tasks la lista di task da scrivere
+     * @param writer la destinazione
+     * @throws IOException in caso di errore di scrittura
+     */
+    static void scriviTesto(List<Task> tasks, BufferedWriter writer) throws IOException {
+        for (Task t : tasks) {
+            writer.write(t.getTitolo() + ";" + t.getDescrizione() + ";" +
+                         t.getScadenza() + ";" + t.getPriorita()); //+ ";" +
+                         //t.isCompletato());
+            writer.newLine();
+        }
+    }
+
     /**
      * Carica una lista di task da un file di testo.
      * 
@@ -52,19 +84,305 @@ public class FileManager {
      */
     public static List<Task> caricaTask(String filePath) {
         List<Task> tasks = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                String[] parti = linea.split(";");
-                String titolo = parti[0];
-                String descrizione = parti[1];
-                LocalDate scadenza = LocalDate.parse(parti[2]);
-                Priorita priorita = Priorita.valueOf(parti[3]);
-                tasks.add(new Task(titolo, descrizione, scadenza, priorita));
+        caricaTask(filePath, tasks::add);
+        return tasks;
+    }
+
+    /**
+     * Legge i task da un file di testo passandoli uno alla volta al consumer,
+     * senza mantenerli in memoria.
+     * <p>In caso di errore di lettura o di riga non valida la lettura si interrompe
+     * e l'errore viene registrato nel log.</p>
+     *
+     * @param filePath il percorso del file da cui leggere i dati
+     * @param consumer il consumer che riceve ogni task letto
+     * @return il numero di task letti
+     */
+    public static long caricaTask(String filePath, Consumer<? super Task> consumer) {
+        long letti = 0;
+        try (TaskLineReader reader = new TaskLineReader(new FileInputStream(filePath))) {
+            Task t;
+            while ((t = reader.prossimo()) != null) {
+                consumer.accept(t);
+                letti++;
             }
-        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+        } catch (IOException | IllegalArgumentException e) {
             LoggerUtil.getLogger().warning("Errore nel caricamento: " + e.getMessage());
         }
-        return tasks;
+        return letti;
+    }
+
+    /**
+     * Restituisce uno stream sequenziale e ordinato dei task contenuti nel file.
+     * <p>Il file viene letto in modo pigro man mano che lo stream viene consumato,
+     * quindi operazioni come {@code limit} o {@code findFirst} leggono solo le righe necessarie.
+     * Lo stream va chiuso al termine, ad esempio con un blocco try-with-resources.
+     * In caso di errore lo stream termina e l'errore viene registrato nel log.</p>
+     *
+     * @param filePath il percorso del file da cui leggere i dati
+     * @return lo stream dei task contenuti nel file
+     */
+    public static Stream<Task> streamTask(String filePath) {
+        TaskLineReader reader;
+        try {
+            reader = new TaskLineReader(new FileInputStream(filePath));
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nel caricamento: " + e.getMessage());
+            return Stream.empty();
+        }
+        Spliterator<Task> spliterator = new Spliterators.AbstractSpliterator<Task>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Task> azione) {
+                Task t = leggiProssimo(reader);
+                if (t == null) {
+                    return false;
+                }
+                azione.accept(t);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> chiudi(reader));
+    }
+
+    /**
+     * Legge il task successivo registrando nel log eventuali errori.
+     *
+     * @param reader il lettore da cui leggere
+     * @return il task letto, oppure {@code null} se il file è terminato o si è verificato un errore
+     */
+    private static Task leggiProssimo(TaskLineReader reader) {
+        try {
+            return reader.prossimo();
+        } catch (IOException | IllegalArgumentException e) {
+            LoggerUtil.getLogger().warning("Errore nel caricamento: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Chiude una risorsa registrando nel log eventuali errori.
+     *
+     * @param risorsa la risorsa da chiudere
+     */
+    private static void chiudi(Closeable risorsa) {
+        try {
+            risorsa.close();
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella chiusura del file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Salva una lista di task, compresi stato di completamento e sottotask,
+     * nel formato binario compatto.
+     *
+     * @param tasks la lista di task da salvare
+     * @param filePath il percorso del file dove salvare i dati
+     */
+    public static void salvaTaskBinario(List<Task> tasks, String filePath) {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            TaskBinaryCodec codec = new TaskBinaryCodec();
+            codec.scriviIntestazione(out);
+            codec.scriviForesta(out, tasks);
+        } catch (IOException | IllegalArgumentException e) {
+            LoggerUtil.getLogger().warning("Errore nel salvataggio: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carica una lista di task da un file nel formato binario compatto.
+     *
+     * @param filePath il percorso del file da cui leggere i dati
+     * @return i task di primo livello, con i rispettivi sottotask; lista vuota in caso di errore
+     */
+    public static List<Task> caricaTaskBinario(String filePath) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filePath)))) {
+            TaskBinaryCodec codec = new TaskBinaryCodec();
+            codec.leggiIntestazione(in);
+            return codec.leggiForesta(in);
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nel caricamento: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Importa nel manager i task di un file di testo, anche di diversi gigabyte,
+     * mappandolo in memoria ed elaborandolo in parallelo.
+     * <p>Il file viene suddiviso in blocchi allineati ai fine riga, ognuno mappato con
+     * {@link FileChannel#map} e interpretato sul {@link ForkJoinPool} comune. I task vengono
+     * aggiunti al manager nell'ordine del file man mano che i blocchi sono pronti.
+     * In caso di errore l'importazione si ferma all'ultimo task valido precedente
+     * e l'errore viene registrato nel log. I task importati formano un'unica transazione,
+     * che {@link TaskManager#annulla()} rimuove in blocco.</p>
+     *
+     * @param filePath il percorso del file da importare
+     * @param manager il manager in cui aggiungere i task
+     * @return il riepilogo dell'importazione con il throughput ottenuto
+     */
+    public static RisultatoImport importaMappato(String filePath, TaskManager manager) {
+        return importaMappato(filePath, manager, DIMENSIONE_BLOCCO);
+    }
+
+    /**
+     * Importa nel manager i task di un file di testo mappato in memoria,
+     * suddividendolo in blocchi della dimensione indicata.
+     *
+     * @param filePath il percorso del file da importare
+     * @param manager il manager in cui aggiungere i task
+     * @param dimensioneBlocco la dimensione indicativa di ogni blocco, in byte
+     * @return il riepilogo dell'importazione con il throughput ottenuto
+     * @throws IllegalArgumentException se la dimensione del blocco non è positiva
+     * @see #importaMappato(String, TaskManager)
+     */
+    public static RisultatoImport importaMappato(String filePath, TaskManager manager, int dimensioneBlocco) {
+        if (dimensioneBlocco <= 0) {
+            throw new IllegalArgumentException("La dimensione del blocco deve essere positiva");
+        }
+        long inizio = System.nanoTime();
+        long importati = 0;
+        long dimensione = 0;
+        int numeroBlocchi = 0;
+        try (FileChannel canale = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            dimensione = canale.size();
+            long[] confini = calcolaConfini(canale, dimensione, dimensioneBlocco);
+            numeroBlocchi = confini.length - 1;
+            List<ForkJoinTask<BloccoImportato>> blocchi = new ArrayList<>(numeroBlocchi);
+            for (int i = 0; i < numeroBlocchi; i++) {
+                long da = confini[i];
+                long a = confini[i + 1];
+                blocchi.add(ForkJoinPool.commonPool().submit(() -> leggiBlocco(canale, da, a)));
+            }
+            // L'importazione viene annullata in blocco come un'unica modifica
+            manager.iniziaTransazione();
+            try {
+                for (ForkJoinTask<BloccoImportato> blocco : blocchi) {
+                    BloccoImportato risultato = blocco.get();
+                    for (Task t : risultato.tasks) {
+                        manager.aggiungiTask(t);
+                        importati++;
+                    }
+                    if (risultato.errore != null) {
+                        throw risultato.errore;
+                    }
+                }
+            } finally {
+                manager.confermaTransazione();
+                blocchi.forEach(b -> b.cancel(false));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LoggerUtil.getLogger().warning("Errore nell'importazione: " + e.getMessage());
+        } catch (ExecutionException e) {
+            LoggerUtil.getLogger().warning("Errore nell'importazione: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LoggerUtil.getLogger().warning("Importazione interrotta");
+        }
+        return new RisultatoImport(importati, dimensione, System.nanoTime() - inizio, numeroBlocchi);
+    }
+
+    /**
+     * Calcola i confini dei blocchi da importare, spostando ogni confine
+     * subito dopo il primo fine riga successivo.
+     *
+     * @param canale il canale del file
+     * @param dimensione la dimensione del file
+     * @param dimensioneBlocco la dimensione indicativa di ogni blocco
+     * @return le posizioni di inizio dei blocchi, seguite dalla dimensione del file
+     * @throws IOException in caso di errore di lettura
+     */
+    private static long[] calcolaConfini(FileChannel canale, long dimensione, int dimensioneBlocco) throws IOException {
+        List<Long> confini = new ArrayList<>();
+        confini.add(0L);
+        ByteBuffer sonda = ByteBuffer.allocate(4096);
+        long posizione = dimensioneBlocco;
+        while (posizione < dimensione) {
+            long fineRiga = -1;
+            long cursore = posizione;
+            while (fineRiga < 0 && cursore < dimensione) {
+                sonda.clear();
+                int letti = canale.read(sonda, cursore);
+                if (letti <= 0) {
+                    break;
+                }
+                for (int i = 0; i < letti; i++) {
+                    if (sonda.get(i) == '\n') {
+                        fineRiga = cursore + i;
+                        break;
+                    }
+                }
+                cursore += letti;
+            }
+            if (fineRiga < 0 || fineRiga + 1 >= dimensione) {
+                break;
+            }
+            confini.add(fineRiga + 1);
+            posizione = fineRiga + 1 + dimensioneBlocco;
+        }
+        confini.add(dimensione);
+        return confini.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Mappa in memoria un blocco del file e ne interpreta tutte le righe.
+     *
+     * @param canale il canale del file
+     * @param da la posizione iniziale del blocco
+     * @param a la posizione finale (esclusa) del blocco
+     * @return i task letti ed eventualmente l'errore che ha interrotto la lettura
+     * @throws IOException se il blocco non può essere mappato
+     */
+    private static BloccoImportato leggiBlocco(FileChannel canale, long da, long a) throws IOException {
+        MappedByteBuffer mappa = canale.map(FileChannel.MapMode.READ_ONLY, da, a - da);
+        BloccoImportato risultato = new BloccoImportato();
+        TaskLineReader reader = new TaskLineReader(new ByteBufferInputStream(mappa));
+        try {
+            Task t;
+            while ((t = reader.prossimo()) != null) {
+                risultato.tasks.add(t);
+            }
+        } catch (IllegalArgumentException e) {
+            risultato.errore = e;
+        }
+        return risultato;
+    }
+
+    /**
+     * Task letti da un blocco del file durante un'importazione mappata.
+     */
+    private static final class BloccoImportato {
+        /** Task letti, nell'ordine del file */
+        private final List<Task> tasks = new ArrayList<>();
+        /** Errore che ha interrotto la lettura del blocco, se presente */
+        private IllegalArgumentException errore;
+    }
+
+    /**
+     * Adatta un {@link ByteBuffer} a {@link InputStream}, copiando i byte a blocchi.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] destinazione, int offset, int lunghezza) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int letti = Math.min(lunghezza, buffer.remaining());
+            buffer.get(destinazione, offset, letti);
+            return letti;
+        }
     }
 }
@@ -0,0 +1,97 @@
+package util;
+
+/**
+ * {@code RisultatoImport} riassume l'esito di un'importazione massiva eseguita da
+ * {@link FileManager#importaMappato(String, service.TaskManager)}: numero di task
+ * importati, byte elaborati, tempo impiegato e throughput ottenuto.
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public final class RisultatoImport {
+
+    /** Numero di task aggiunti al manager */
+    private final long numeroTask;
+
+    /** Numero di byte del file elaborati */
+    private final long byteLetti;
+
+    /** Durata dell'importazione in nanosecondi */
+    private final long durataNanos;
+
+    /** Numero di blocchi in cui il file è stato suddiviso */
+    private final int numeroBlocchi;
+
+    /**
+     * Costruisce il riepilogo di un'importazione.
+     *
+     * @param numeroTask il numero di task importati
+     * @param byteLetti il numero di byte elaborati
+     * @param durataNanos la durata in nanosecondi
+     * @param numeroBlocchi il numero di blocchi elaborati in parallelo
+     */
+    public RisultatoImport(long numeroTask, long byteLetti, long durataNanos, int numeroBlocchi) {
+        this.numeroTask = numeroTask;
+        this.byteLetti = byteLetti;
+        this.durataNanos = durataNanos;
+        this.numeroBlocchi = numeroBlocchi;
+    }
+
+    /**
+     * Restituisce il numero di task importati.
+     *
+     * @return il numero di task
+     */
+    public long getNumeroTask() { return numeroTask; }
+
+    /**
+     * Restituisce il numero di byte elaborati.
+     *
+     * @return il numero di byte
+     */
+    public long getByteLetti() { return byteLetti; }
+
+    /**
+     * Restituisce la durata dell'importazione.
+     *
+     * @return la durata in nanosecondi
+     */
+    public long getDurataNanos() { return durataNanos; }
+
+    /**
+     * Restituisce il numero di blocchi in cui è stato suddiviso il file.
+     *
+     * @return il numero di blocchi
+     */
+    public int getNumeroBlocchi() { return numeroBlocchi; }
+
+    /**
+     * Restituisce il throughput ottenuto in megabyte al secondo.
+     *
+     * @return i MB elaborati al secondo
+     */
+    public double getMegabyteAlSecondo() {
+        return durataNanos == 0 ? 0 : (byteLetti / (1024.0 * 1024.0)) / (durataNanos / 1e9);
+    }
+
+    /**
+     * Restituisce il throughput ottenuto in task al secondo.
+     *
+     * @return i task importati al secondo
+     */
+    public double getTaskAlSecondo() {
+        return durataNanos == 0 ? 0 : numeroTask / (durataNanos / 1e9);
+    }
+
+    /**
+     * Restituisce una descrizione leggibile del risultato.
+     *
+     * @return una stringa con task, byte, durata e throughput
+     */
+    @Override
+    public String toString() {
+        return String.format("%d task (%d byte, %d blocchi) in %.1f ms: %.1f MB/s, %.0f task/s",
+                numeroTask, byteLetti, numeroBlocchi, durataNanos / 1e6,
+                getMegabyteAlSecondo(), getTaskAlSecondo());
+    }
+}
@@ -0,0 +1,263 @@
+package util;
+
+import model.Task;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code SnapshotWriter} salva snapshot completi di una lista di task in modo sicuro
+ * rispetto a interruzioni improvvise e raggruppa le richieste ravvicinate.
+ *
+ * <p>Ogni snapshot viene scritto su un file temporaneo tramite {@link FileChannel},
+ * forzato su disco e infine rinominato atomicamente sul file di destinazione:
+ * un'interruzione lascia sempre intatto lo snapshot precedente.</p>
+ *
+ * <p>Le richieste di salvataggio che arrivano, anche da thread diversi, entro una finestra
+ * configurabile dalla prima vengono unite (group commit): viene scritto solo lo stato più
+ * recente con una sola scrittura e una sola sincronizzazione su disco, e tutte le richieste
+ * unite vengono completate insieme. Gli errori vengono registrati nel log e riportati
+ * tramite il {@link CompletableFuture} restituito.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public final class SnapshotWriter implements Closeable {
+
+    /**
+     * Formati in cui possono essere scritti gli snapshot.
+     */
+    public enum Formato {
+        /** Formato testuale di {@link FileManager#salvaTask(List, String)} */
+        TESTO,
+        /** Formato binario di {@link FileManager#salvaTaskBinario(List, String)} */
+        BINARIO
+    }
+
+    /** Finestra predefinita di raggruppamento delle richieste, in millisecondi */
+    public static final long FINESTRA_PREDEFINITA = 50;
+
+    /** File di destinazione */
+    private final Path destinazione;
+
+    /** Formato degli snapshot */
+    private final Formato formato;
+
+    /** Finestra di raggruppamento in millisecondi */
+    private final long finestraMillis;
+
+    /** Thread che esegue le scritture */
+    private final ScheduledExecutorService scrittore = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Stato più recente in attesa di essere scritto */
+    private List<Task> inAttesa;
+
+    /** Richieste in attesa della prossima scrittura */
+    private List<CompletableFuture<Void>> richieste = new ArrayList<>();
+
+    /** Indica che una scrittura è già stata programmata */
+    private boolean programmata;
+
+    /** Scrittura programmata al termine della finestra corrente */
+    private ScheduledFuture<?> prossimaScrittura;
+
+    /** Indica che il writer è stato chiuso */
+    private boolean chiuso;
+
+    /** Numero di snapshot scritti su disco */
+    private long scrittureEseguite;
+
+    /**
+     * Crea un writer con la finestra di raggruppamento predefinita.
+     *
+     * @param filePath il percorso del file di destinazione
+     * @param formato il formato degli snapshot
+     */
+    public SnapshotWriter(String filePath, Formato formato) {
+        this(filePath, formato, FINESTRA_PREDEFINITA);
+    }
+
+    /**
+     * Crea un writer per il file indicato.
+     *
+     * @param filePath il percorso del file di destinazione
+     * @param formato il formato degli snapshot
+     * @param finestraMillis la finestra di raggruppamento delle richieste, in millisecondi
+     * @throws IllegalArgumentException se il formato è null o la finestra è negativa
+     */
+    public SnapshotWriter(String filePath, Formato formato, long finestraMillis) {
+        if (formato == null || finestraMillis < 0) {
+            throw new IllegalArgumentException("Formato o finestra di raggruppamento non validi");
+        }
+        this.destinazione = Path.of(filePath);
+        this.formato = formato;
+        this.finestraMillis = finestraMillis;
+    }
+
+    /**
+     * Richiede il salvataggio di uno snapshot.
+     * <p>La lista non deve essere modificata dopo la chiamata: conviene passare una copia,
+     * ad esempio quella restituita da {@code TaskManager.getTutti()}.</p>
+     *
+     * @param tasks lo stato da salvare
+     * @return un future completato quando lo snapshot (o uno più recente) è stabilmente su disco
+     * @throws IllegalStateException se il writer è stato chiuso
+     */
+    public synchronized CompletableFuture<Void> salva(List<Task> tasks) {
+        if (chiuso) {
+            throw new IllegalStateException("SnapshotWriter chiuso");
+        }
+        CompletableFuture<Void> richiesta = new CompletableFuture<>();
+        inAttesa = tasks;
+        richieste.add(richiesta);
+        if (!programmata) {
+            programmata = true;
+            prossimaScrittura = scrittore.schedule(this::scriviInAttesa, finestraMillis, TimeUnit.MILLISECONDS);
+        }
+        return richiesta;
+    }
+
+    /**
+     * Restituisce il numero di snapshot scritti finora con successo, ciascuno con una sola
+     * sincronizzazione su disco e una sola rinomina; con richieste raggruppate è inferiore
+     * al numero di chiamate a {@link #salva(List)}.
+     *
+     * @return il numero di scritture eseguite
+     */
+    public synchronized long getScrittureEseguite() {
+        return scrittureEseguite;
+    }
+
+    /**
+     * Scrive subito lo stato in attesa, attende il termine delle scritture e arresta il writer.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (chiuso) {
+                return;
+            }
+            chiuso = true;
+            if (programmata) {
+                // Anticipa la scrittura senza attendere la fine della finestra
+                prossimaScrittura.cancel(false);
+                scrittore.execute(this::scriviInAttesa);
+            }
+        }
+        scrittore.shutdown();
+        try {
+            scrittore.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Scrive lo stato più recente e completa tutte le richieste raggruppate.
+     */
+    private void scriviInAttesa() {
+        List<Task> stato;
+        List<CompletableFuture<Void>> raggruppate;
+        synchronized (this) {
+            if (!programmata) {
+                return;
+            }
+            stato = inAttesa;
+            raggruppate = richieste;
+            inAttesa = null;
+            richieste = new ArrayList<>();
+            programmata = false;
+        }
+        try {
+            scriviAtomicamente(destinazione, out -> scrivi(stato, out));
+            synchronized (this) {
+                scrittureEseguite++;
+            }
+            raggruppate.forEach(r -> r.complete(null));
+        } catch (IOException | RuntimeException e) {
+            LoggerUtil.getLogger().warning("Errore nel salvataggio dello snapshot: " + e.getMessage());
+            raggruppate.forEach(r -> r.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Serializza lo stato nel formato configurato.
+     */
+    private void scrivi(List<Task> stato, OutputStream out) throws IOException {
+        if (formato == Formato.BINARIO) {
+            DataOutputStream dati = new DataOutputStream(new BufferedOutputStream(out));
+            TaskBinaryCodec codec = new TaskBinaryCodec();
+            codec.scriviIntestazione(dati);
+            codec.scriviForesta(dati, stato);
+            dati.flush();
+        } else {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            FileManager.scriviTesto(stato, writer);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Contenuto da scrivere in un file tramite {@link #scriviAtomicamente(Path, Contenuto)}.
+     */
+    @FunctionalInterface
+    interface Contenuto {
+        /**
+         * Scrive il contenuto sullo stream indicato, senza chiuderlo.
+         *
+         * @param out la destinazione
+         * @throws IOException in caso di errore di scrittura
+         */
+        void scriviSu(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Scrive un file in modo atomico: il contenuto viene scritto su un file temporaneo
+     * nella stessa directory, forzato su disco e rinominato sulla destinazione.
+     *
+     * @param destinazione il file da sostituire
+     * @param contenuto il contenuto da scrivere
+     * @throws IOException in caso di errore di scrittura o di rinomina
+     */
+    static void scriviAtomicamente(Path destinazione, Contenuto contenuto) throws IOException {
+        Path temporaneo = destinazione.resolveSibling(destinazione.getFileName() + ".tmp");
+        try (FileChannel canale = FileChannel.open(temporaneo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            contenuto.scriviSu(Channels.newOutputStream(canale));
+            canale.force(true);
+        }
+        Files.move(temporaneo, destinazione, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sincronizzaDirectory(destinazione.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forza su disco la rinomina sincronizzando la directory, dove il sistema lo consente.
+     */
+    private static void sincronizzaDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel canale = FileChannel.open(directory, StandardOpenOption.READ)) {
+            canale.force(true);
+        } catch (IOException e) {
+            // Alcuni sistemi (ad esempio Windows) non permettono di aprire le directory
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package util;
+
+import model.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * {@code TaskBinaryCodec} codifica e decodifica i task nel formato binario compatto
+ * utilizzato da {@link FileManager#salvaTaskBinario(List, String)}.
+ *
+ * <p>Ogni task è un record composto da:</p>
+ * <ul>
+ *   <li>un byte di flag: priorità nei due bit bassi (0 = assente), completamento,
+ *       task composita e presenza dei campi opzionali; per le task composite il bit di
+ *       completamento è lo stato proprio della task, non quello derivato dai sottotask</li>
+ *   <li>l'indice del task padre nella sequenza, più uno (0 = nessun padre), come varint</li>
+ *   <li>titolo e descrizione come stringhe UTF-8 precedute dalla lunghezza in varint</li>
+ *   <li>la scadenza come {@code int} di giorni dall'epoca</li>
+ * </ul>
+ *
+ * <p>Gli alberi di {@link CompositeTask} sono scritti in pre-ordine, così ogni padre
+ * precede i propri figli. La lettura non esegue alcun parsing testuale dei campi.</p>
+ *
+ * <p>Le dimensioni dichiarate nel file (numero di record e lunghezza delle stringhe) non
+ * vengono allocate in anticipo: i buffer crescono man mano che i dati vengono effettivamente
+ * letti, così un file troncato o corrotto termina con un'eccezione di lettura invece di
+ * esaurire la memoria.</p>
+ *
+ * <p>Non è thread-safe: ogni istanza mantiene buffer e cache riutilizzati tra i record.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public final class TaskBinaryCodec {
+
+    /** Numero magico all'inizio dei file binari ("TDLB") */
+    public static final int MAGIC = 0x54444C42;
+
+    /** Versione corrente del formato */
+    public static final int VERSIONE = 1;
+
+    /** Maschera dei bit di priorità */
+    private static final int FLAG_PRIORITA = 0x03;
+    /** Task completata */
+    private static final int FLAG_COMPLETATO = 0x04;
+    /** Task composita */
+    private static final int FLAG_COMPOSITO = 0x08;
+    /** Titolo presente */
+    private static final int FLAG_TITOLO = 0x10;
+    /** Descrizione presente */
+    private static final int FLAG_DESCRIZIONE = 0x20;
+    /** Scadenza presente */
+    private static final int FLAG_SCADENZA = 0x40;
+
+    /** Costanti di priorità, indicizzate per ordinale */
+    private static final Priorita[] PRIORITA = Priorita.values();
+
+    /** Capacità massima riservata in anticipo per i record di una foresta */
+    private static final int CAPACITA_INIZIALE = 1024;
+
+    /** Numero massimo di byte di una stringa letti prima di far crescere il buffer */
+    private static final int BLOCCO_STRINGA = 1 << 16;
+
+    /** Dimensione della cache delle date (potenza di due) */
+    private static final int DIMENSIONE_CACHE = 256;
+
+    /** Giorni dall'epoca delle date in cache */
+    private final int[] giorniCache = new int[DIMENSIONE_CACHE];
+
+    /** Date in cache, alla stessa posizione del rispettivo valore */
+    private final LocalDate[] dateCache = new LocalDate[DIMENSIONE_CACHE];
+
+    /** Buffer riutilizzato per la lettura delle stringhe */
+    private byte[] bufferStringhe = new byte[256];
+
+    /**
+     * Costruttore di default.
+     */
+    public TaskBinaryCodec() {
+        // Nessuna inizializzazione
+    }
+
+    /**
+     * Scrive l'intestazione del formato (numero magico e versione).
+     *
+     * @param out la destinazione
+     * @throws IOException in caso di errore di scrittura
+     */
+    public void scriviIntestazione(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSIONE);
+    }
+
+    /**
+     * Legge e verifica l'intestazione del formato.
+     *
+     * @param in la sorgente
+     * @throws IOException se l'intestazione manca o la versione non è supportata
+     */
+    public void leggiIntestazione(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Il file non è nel formato binario dei task");
+        }
+        int versione = in.readUnsignedByte();
+        if (versione != VERSIONE) {
+            throw new IOException("Versione del formato non supportata: " + versione);
+        }
+    }
+
+    /**
+     * Scrive una lista di task, compresi gli eventuali sottotask, preceduta dal numero di record.
+     *
+     * @param out la destinazione
+     * @param radici i task da scrivere
+     * @throws IOException in caso di errore di scrittura
+     * @throws IllegalArgumentException se una scadenza non è rappresentabile in giorni come {@code int}
+     */
+    public void scriviForesta(DataOutput out, List<Task> radici) throws IOException {
+        List<Task> ordine = new ArrayList<>(radici.size());
+        List<Integer> padri = new ArrayList<>(radici.size());
+        Deque<Task> pila = new ArrayDeque<>();
+        Deque<Integer> pilaPadri = new ArrayDeque<>();
+        for (int i = radici.size() - 1; i >= 0; i--) {
+            pila.push(radici.get(i));
+            pilaPadri.push(-1);
+        }
+        while (!pila.isEmpty()) {
+            Task t = pila.pop();
+            int indice = ordine.size();
+            ordine.add(t);
+            padri.add(pilaPadri.pop());
+            if (t instanceof CompositeTask) {
+                List<Task> figli = ((CompositeTask) t).getSubtasks();
+                for (int i = figli.size() - 1; i >= 0; i--) {
+                    pila.push(figli.get(i));
+                    pilaPadri.push(indice);
+                }
+            }
+        }
+        scriviVarint(out, ordine.size());
+        for (int i = 0; i < ordine.size(); i++) {
+            scriviRecord(out, ordine.get(i), padri.get(i));
+        }
+    }
+
+    /**
+     * Legge una lista di task scritta con {@link #scriviForesta(DataOutput, List)},
+     * ricostruendo le gerarchie e lo stato di completamento.
+     *
+     * @param in la sorgente
+     * @return i task di primo livello, nell'ordine in cui sono stati scritti
+     * @throws IOException in caso di errore di lettura o di dati non validi
+     */
+    public List<Task> leggiForesta(DataInput in) throws IOException {
+        int numero = leggiVarint(in);
+        List<Task> tasks = new ArrayList<>(Math.min(numero, CAPACITA_INIZIALE));
+        List<Task> radici = new ArrayList<>();
+        for (int i = 0; i < numero; i++) {
+            int flag = in.readUnsignedByte();
+            int padre = leggiVarint(in) - 1;
+            Task t = leggiCampi(in, flag);
+            // Il task viene completato prima di ricevere i sottotask, che seguono sempre il padre:
+            // per le composite si imposta così il solo stato proprio, senza toccare i figli
+            if ((flag & FLAG_COMPLETATO) != 0) {
+                t.completaTask();
+            }
+            if (padre < 0) {
+                radici.add(t);
+            } else if (padre < i && tasks.get(padre) instanceof CompositeTask) {
+                ((CompositeTask) tasks.get(padre)).addSubtask(t);
+            } else {
+                throw new IOException("Riferimento al task padre non valido nel record " + i);
+            }
+            tasks.add(t);
+        }
+        return radici;
+    }
+
+    /**
+     * Scrive un singolo task senza sottotask né riferimento al padre.
+     *
+     * @param out la destinazione
+     * @param t il task da scrivere
+     * @throws IOException in caso di errore di scrittura
+     */
+    public void scriviTask(DataOutput out, Task t) throws IOException {
+        out.writeByte(flag(t, t.isCompletato()) & ~FLAG_COMPOSITO);
+        scriviCampi(out, t);
+    }
+
+    /**
+     * Legge un singolo task scritto con {@link #scriviTask(DataOutput, Task)}.
+     *
+     * @param in la sorgente
+     * @return il task letto
+     * @throws IOException in caso di errore di lettura
+     */
+    public Task leggiTask(DataInput in) throws IOException {
+        int flag = in.readUnsignedByte();
+        Task t = leggiCampi(in, flag);
+        if ((flag & FLAG_COMPLETATO) != 0) {
+            t.completaTask();
+        }
+        return t;
+    }
+
+    /**
+     * Scrive il record di un task con l'indice del padre.
+     */
+    private void scriviRecord(DataOutput out, Task t, int padre) throws IOException {
+        boolean completato = t instanceof CompositeTask
+                ? ((CompositeTask) t).isCompletatoDirettamente()
+                : t.isCompletato();
+        out.writeByte(flag(t, completato));
+        scriviVarint(out, padre + 1);
+        scriviCampi(out, t);
+    }
+
+    /**
+     * Calcola il byte di flag di un task con lo stato di completamento indicato.
+     */
+    private static int flag(Task t, boolean completato) {
+        int flag = t.getPriorita() == null ? 0 : t.getPriorita().ordinal() + 1;
+        if (completato) {
+            flag |= FLAG_COMPLETATO;
+        }
+        if (t instanceof CompositeTask) {
+            flag |= FLAG_COMPOSITO;
+        }
+        if (t.getTitolo() != null) {
+            flag |= FLAG_TITOLO;
+        }
+        if (t.getDescrizione() != null) {
+            flag |= FLAG_DESCRIZIONE;
+        }
+        if (t.getScadenza() != null) {
+            flag |= FLAG_SCADENZA;
+        }
+        return flag;
+    }
+
+    /**
+     * Scrive i campi presenti di un task.
+     */
+    private void scriviCampi(DataOutput out, Task t) throws IOException {
+        if (t.getTitolo() != null) {
+            scriviStringa(out, t.getTitolo());
+        }
+        if (t.getDescrizione() != null) {
+            scriviStringa(out, t.getDescrizione());
+        }
+        if (t.getScadenza() != null) {
+            long giorni = t.getScadenza().toEpochDay();
+            if (giorni != (int) giorni) {
+                throw new IllegalArgumentException("Scadenza non rappresentabile: " + t.getScadenza());
+            }
+            out.writeInt((int) giorni);
+        }
+    }
+
+    /**
+     * Legge i campi di un task e lo costruisce in base ai flag.
+     */
+    private Task leggiCampi(DataInput in, int flag) throws IOException {
+        String titolo = (flag & FLAG_TITOLO) != 0 ? leggiStringa(in) : null;
+        String descrizione = (flag & FLAG_DESCRIZIONE) != 0 ? leggiStringa(in) : null;
+        LocalDate scadenza = (flag & FLAG_SCADENZA) != 0 ? data(in.readInt()) : null;
+        int codicePriorita = flag & FLAG_PRIORITA;
+        if (codicePriorita > PRIORITA.length) {
+            throw new IOException("Priorità non valida: " + codicePriorita);
+        }
+        Priorita priorita = codicePriorita == 0 ? null : PRIORITA[codicePriorita - 1];
+        if ((flag & FLAG_COMPOSITO) != 0) {
+            return new CompositeTask(titolo, descrizione, scadenza, priorita);
+        }
+        return new Task(titolo, descrizione, scadenza, priorita);
+    }
+
+    /**
+     * Converte i giorni dall'epoca in data riutilizzando le date già create.
+     */
+    private LocalDate data(int giorni) {
+        int slot = (giorni ^ (giorni >>> 8)) & (DIMENSIONE_CACHE - 1);
+        LocalDate data = dateCache[slot];
+        if (data == null || giorniCache[slot] != giorni) {
+            data = LocalDate.ofEpochDay(giorni);
+            giorniCache[slot] = giorni;
+            dateCache[slot] = data;
+        }
+        return data;
+    }
+
+    /**
+     * Scrive una stringa UTF-8 preceduta dalla lunghezza in byte.
+     *
+     * @param out la destinazione
+     * @param s la stringa da scrivere
+     * @throws IOException in caso di errore di scrittura
+     */
+    public static void scriviStringa(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        scriviVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Legge una stringa UTF-8 preceduta dalla lunghezza in byte.
+     *
+     * @param in la sorgente
+     * @return la stringa letta
+     * @throws IOException in caso di errore di lettura
+     */
+    public String leggiStringa(DataInput in) throws IOException {
+        int lunghezza = leggiVarint(in);
+        // Il buffer cresce a blocchi solo dopo aver letto i byte precedenti,
+        // quindi una lunghezza dichiarata non valida non viene allocata per intero
+        for (int letti = 0; letti < lunghezza; ) {
+            int blocco = Math.min(lunghezza - letti, BLOCCO_STRINGA);
+            if (letti + blocco > bufferStringhe.length) {
+                bufferStringhe = Arrays.copyOf(bufferStringhe,
+                        Math.max(letti + blocco, (int) Math.min(lunghezza, bufferStringhe.length * 2L)));
+            }
+            in.readFully(bufferStringhe, letti, blocco);
+            letti += blocco;
+        }
+        return new String(bufferStringhe, 0, lunghezza, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Scrive un intero non negativo in formato varint (7 bit per byte).
+     *
+     * @param out la destinazione
+     * @param valore il valore da scrivere
+     * @throws IOException in caso di errore di scrittura
+     */
+    public static void scriviVarint(DataOutput out, int valore) throws IOException {
+        while ((valore & ~0x7F) != 0) {
+            out.writeByte((valore & 0x7F) | 0x80);
+            valore >>>= 7;
+        }
+        out.writeByte(valore);
+    }
+
+    /**
+     * Legge un intero non negativo scritto con {@link #scriviVarint(DataOutput, int)}.
+     *
+     * @param in la sorgente
+     * @return il valore letto
+     * @throws IOException in caso di errore di lettura o di valore non valido
+     */
+    public static int leggiVarint(DataInput in) throws IOException {
+        int valore = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            valore |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (valore < 0) {
+                    throw new IOException("Varint non valido");
+                }
+                return valore;
+            }
+        }
+        throw new IOException("Varint non valido");
+    }
+}
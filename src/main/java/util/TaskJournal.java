@@ -0,0 +1,621 @@
+package util;
+
+import model.CompositeTask;
+import model.Task;
+import model.TaskObserver;
+import service.TaskManager;
+import service.TaskManagerListener;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * {@code TaskJournal} rende persistente un {@link TaskManager} registrando ogni modifica
+ * in un journal append-only, invece di riscrivere l'intero elenco a ogni salvataggio.
+ *
+ * <p>Aggiunte, rimozioni e completamenti vengono scritti come record binari
+ * compatti (codificati con {@link TaskBinaryCodec}), ciascuno preceduto dalla lunghezza
+ * e seguito da un CRC32: il costo di ogni salvataggio è quindi proporzionale alla modifica.
+ * Un record troncato da un'interruzione improvvisa viene riconosciuto e scartato al riavvio.</p>
+ *
+ * <p>Anche le modifiche interne alle gerarchie di {@link CompositeTask} già gestite
+ * (completamento di un sottotask, aggiunta o rimozione di sottotask a qualsiasi livello)
+ * generano un record: il journal osserva la radice di ogni task gestita e individua la task
+ * modificata con il titolo della radice e le posizioni dei sottotask lungo il percorso.
+ * Vengono registrati solo i completamenti diretti: gli stati derivati si ricalcolano
+ * alla riproduzione.</p>
+ *
+ * <p>Ogni record viene consegnato al sistema operativo appena scritto, quindi sopravvive alla
+ * terminazione improvvisa del processo; la scrittura sul disco fisico, che protegge anche da
+ * un'interruzione di corrente, è garantita solo per i record precedenti all'ultima chiamata
+ * di {@link #sincronizza()} o alla chiusura del journal.</p>
+ *
+ * <p>Quando il journal corrente supera una soglia di record (almeno pari al numero di task
+ * gestiti, così che il costo resti ammortizzato), lo stato viene serializzato in memoria,
+ * si passa a un nuovo file di journal e la scrittura dello snapshot avviene su un thread
+ * in background. Lo snapshot sostituisce quello precedente in modo atomico e solo dopo
+ * vengono eliminati i journal che ingloba. La compattazione avviene solo a modifica conclusa
+ * ({@link #modificaConclusa()}), quando il manager è coerente con i record già scritti.</p>
+ *
+ * <p>La riproduzione dei record di aggiunta e rimozione è idempotente: un'aggiunta di un
+ * titolo già presente o la rimozione di un titolo assente vengono ignorate, così un record
+ * già inglobato nello snapshot non impedisce il ripristino. I record sulle gerarchie vengono
+ * applicati solo se la posizione indicata è coerente con lo stato corrente.</p>
+ *
+ * <p>I file utilizzati sono {@code <base>.snapshot} e {@code <base>.journal.<generazione>}.</p>
+ *
+ * <p>Non è thread-safe: va utilizzato dallo stesso thread che modifica il manager.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public final class TaskJournal implements TaskManagerListener, Closeable {
+
+    /** Numero minimo di record dopo cui viene eseguita una compattazione */
+    public static final int SOGLIA_COMPATTAZIONE = 10_000;
+
+    /** Record di aggiunta di un task (con gli eventuali sottotask) */
+    private static final byte AGGIUNTA = 1;
+    /** Record di rimozione di un task */
+    private static final byte RIMOZIONE = 2;
+    /** Record di completamento di una task, radice o sottotask */
+    private static final byte COMPLETAMENTO = 3;
+    /** Record di aggiunta di un sottotask a una task composta gestita */
+    private static final byte SOTTOTASK_AGGIUNTO = 4;
+    /** Record di rimozione di un sottotask da una task composta gestita */
+    private static final byte SOTTOTASK_RIMOSSO = 5;
+
+    /** Il manager di cui vengono registrate le modifiche */
+    private final TaskManager manager;
+
+    /** Percorso base dei file */
+    private final String percorsoBase;
+
+    /** File dello snapshot */
+    private final Path snapshot;
+
+    /** Numero minimo di record per generazione prima di compattare */
+    private final int sogliaCompattazione;
+
+    /** Codec dei record */
+    private final TaskBinaryCodec codec = new TaskBinaryCodec();
+
+    /** Buffer riutilizzato per comporre il contenuto di ogni record */
+    private final BufferRecord bufferRecord = new BufferRecord();
+
+    /** Vista dati del buffer dei record */
+    private final DataOutputStream record = new DataOutputStream(bufferRecord);
+
+    /** Checksum dei record */
+    private final CRC32 crc = new CRC32();
+
+    /** Osservatore registrato sulle task gestite per le modifiche interne alle gerarchie */
+    private final TaskObserver osservatoreGerarchie = new TaskObserver() {
+        @Override
+        public void completamentoCambiato(Task task) {
+            // Gli stati derivati non vengono registrati
+        }
+
+        @Override
+        public void taskCompletato(Task radice, Task task) {
+            registraCompletamento(radice, task);
+        }
+
+        @Override
+        public void sottotaskAggiunto(Task radice, CompositeTask padre, Task sottotask) {
+            registraSottotaskAggiunto(radice, padre, sottotask);
+        }
+
+        @Override
+        public void sottotaskRimosso(Task radice, CompositeTask padre, Task sottotask, int posizione) {
+            registraSottotaskRimosso(radice, padre, sottotask, posizione);
+        }
+    };
+
+    /** Thread che scrive gli snapshot in background */
+    private final ExecutorService compattatore = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "task-journal-compattazione");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Ultima compattazione avviata */
+    private Future<?> compattazione;
+
+    /** File del journal corrente */
+    private FileOutputStream file;
+
+    /** Stream bufferizzato sul journal corrente */
+    private DataOutputStream journal;
+
+    /** Generazione del journal corrente */
+    private long generazione;
+
+    /** Record scritti nella generazione corrente */
+    private long recordScritti;
+
+    /** Indica che la soglia è stata superata e va eseguita una compattazione */
+    private boolean compattazioneRichiesta;
+
+    /**
+     * Crea il journal senza aprire alcun file.
+     */
+    private TaskJournal(TaskManager manager, String percorsoBase, int sogliaCompattazione) {
+        this.manager = manager;
+        this.percorsoBase = percorsoBase;
+        this.snapshot = Path.of(percorsoBase + ".snapshot");
+        this.sogliaCompattazione = sogliaCompattazione;
+    }
+
+    /**
+     * Apre il journal con la soglia di compattazione predefinita.
+     *
+     * @param manager il manager, inizialmente vuoto, da ripristinare e registrare
+     * @param percorsoBase il percorso base dei file di snapshot e journal
+     * @return il journal collegato al manager
+     * @throws IOException se i file esistenti non possono essere letti
+     * @see #apri(TaskManager, String, int)
+     */
+    public static TaskJournal apri(TaskManager manager, String percorsoBase) throws IOException {
+        return apri(manager, percorsoBase, SOGLIA_COMPATTAZIONE);
+    }
+
+    /**
+     * Apre il journal: ripristina nel manager lo stato salvato (snapshot più record successivi)
+     * e da quel momento registra ogni sua modifica.
+     *
+     * @param manager il manager, inizialmente vuoto, da ripristinare e registrare
+     * @param percorsoBase il percorso base dei file di snapshot e journal
+     * @param sogliaCompattazione il numero minimo di record dopo cui compattare
+     * @return il journal collegato al manager
+     * @throws IOException se i file esistenti non possono essere letti
+     * @throws IllegalArgumentException se il manager non è vuoto o la soglia non è positiva
+     */
+    public static TaskJournal apri(TaskManager manager, String percorsoBase, int sogliaCompattazione)
+            throws IOException {
+        if (manager.getNumeroTasks() != 0) {
+            throw new IllegalArgumentException("Il manager da ripristinare deve essere vuoto");
+        }
+        if (sogliaCompattazione <= 0) {
+            throw new IllegalArgumentException("La soglia di compattazione deve essere positiva");
+        }
+        TaskJournal journal = new TaskJournal(manager, percorsoBase, sogliaCompattazione);
+        journal.ripristina();
+        // Il ripristino non è una modifica dell'utente e non deve poter essere annullato
+        manager.svuotaCronologia();
+        manager.aggiungiListener(journal);
+        for (Task t : manager.getTutti()) {
+            t.aggiungiObserver(journal.osservatoreGerarchie);
+        }
+        return journal;
+    }
+
+    /**
+     * Registra l'aggiunta di un task.
+     *
+     * @param task il task aggiunto
+     */
+    @Override
+    public void taskAggiunto(Task task) {
+        task.aggiungiObserver(osservatoreGerarchie);
+        try {
+            inizioRecord(AGGIUNTA);
+            codec.scriviForesta(record, List.of(task));
+            scriviRecord();
+        } catch (IOException | IllegalArgumentException e) {
+            LoggerUtil.getLogger().warning("Errore nella scrittura del journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra la rimozione di un task.
+     *
+     * @param task il task rimosso
+     */
+    @Override
+    public void taskRimosso(Task task) {
+        task.rimuoviObserver(osservatoreGerarchie);
+        try {
+            inizioRecord(RIMOZIONE);
+            scriviTitolo(task.getTitolo());
+            scriviRecord();
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella scrittura del journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra il completamento diretto di una task gestita o di un suo sottotask.
+     */
+    private void registraCompletamento(Task radice, Task task) {
+        try {
+            inizioRecord(COMPLETAMENTO);
+            scriviPercorso(radice, task);
+            scriviRecord();
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella scrittura del journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra l'aggiunta di un sottotask, con l'intero sottoalbero, a una task composta gestita.
+     */
+    private void registraSottotaskAggiunto(Task radice, CompositeTask padre, Task sottotask) {
+        try {
+            inizioRecord(SOTTOTASK_AGGIUNTO);
+            scriviPercorso(radice, padre);
+            TaskBinaryCodec.scriviVarint(record, sottotask.getPosizione());
+            codec.scriviForesta(record, List.of(sottotask));
+            scriviRecord();
+        } catch (IOException | IllegalArgumentException e) {
+            LoggerUtil.getLogger().warning("Errore nella scrittura del journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra la rimozione di un sottotask da una task composta gestita.
+     */
+    private void registraSottotaskRimosso(Task radice, CompositeTask padre, Task sottotask, int posizione) {
+        try {
+            inizioRecord(SOTTOTASK_RIMOSSO);
+            scriviPercorso(radice, padre);
+            TaskBinaryCodec.scriviVarint(record, posizione);
+            scriviTitolo(sottotask.getTitolo());
+            scriviRecord();
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella scrittura del journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Esegue la compattazione richiesta durante la modifica appena conclusa, se presente.
+     * <p>Non viene eseguita durante la notifica degli eventi, quando altri listener
+     * e il manager stesso potrebbero non aver ancora applicato la modifica.</p>
+     */
+    @Override
+    public void modificaConclusa() {
+        if (!compattazioneRichiesta) {
+            return;
+        }
+        try {
+            compatta();
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella compattazione del journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forza la scrittura sul disco fisico dei record registrati finora.
+     * <p>Senza questa chiamata i record sono già al sicuro dalla terminazione del processo,
+     * ma un'interruzione di corrente può far perdere quelli non ancora scritti dal sistema
+     * operativo.</p>
+     *
+     * @throws IOException in caso di errore di scrittura
+     */
+    public void sincronizza() throws IOException {
+        journal.flush();
+        file.getChannel().force(false);
+    }
+
+    /**
+     * Scrive subito uno snapshot dello stato corrente e avvia un nuovo journal.
+     * <p>La serializzazione avviene sul thread chiamante, la scrittura su disco in background.</p>
+     *
+     * @throws IOException se il nuovo journal non può essere creato
+     */
+    public void compatta() throws IOException {
+        attendiCompattazione();
+        compattazioneRichiesta = false;
+        long nuovaGenerazione = generazione + 1;
+        ByteArrayOutputStream stato = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(stato);
+        codec.scriviIntestazione(out);
+        out.writeLong(nuovaGenerazione);
+        codec.scriviForesta(out, manager.getTutti());
+        apriGenerazione(nuovaGenerazione);
+        byte[] dati = stato.toByteArray();
+        compattazione = compattatore.submit(() -> scriviSnapshot(dati, nuovaGenerazione));
+    }
+
+    /**
+     * Smette di registrare le modifiche, attende l'eventuale compattazione in corso,
+     * forza su disco i record registrati e chiude i file.
+     *
+     * @throws IOException in caso di errore di scrittura o di chiusura
+     */
+    @Override
+    public void close() throws IOException {
+        manager.rimuoviListener(this);
+        for (Task t : manager.getTutti()) {
+            t.rimuoviObserver(osservatoreGerarchie);
+        }
+        try {
+            attendiCompattazione();
+            sincronizza();
+        } finally {
+            compattatore.shutdown();
+            journal.close();
+        }
+    }
+
+    /**
+     * Carica lo snapshot, riproduce i journal successivi e apre quello corrente in scrittura.
+     */
+    private void ripristina() throws IOException {
+        long generazioneSnapshot = 0;
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                codec.leggiIntestazione(in);
+                generazioneSnapshot = in.readLong();
+                for (Task t : codec.leggiForesta(in)) {
+                    manager.aggiungiTask(t);
+                }
+            }
+        }
+        // Journal già inglobati nello snapshot ma non ancora eliminati
+        eliminaJournalPrecedenti(generazioneSnapshot);
+        long corrente = generazioneSnapshot;
+        while (Files.exists(percorsoJournal(corrente))) {
+            riproduci(percorsoJournal(corrente));
+            if (!Files.exists(percorsoJournal(corrente + 1))) {
+                break;
+            }
+            corrente++;
+        }
+        apriGenerazione(corrente);
+    }
+
+    /**
+     * Riproduce i record validi di un file di journal, troncando un eventuale record incompleto finale.
+     */
+    private void riproduci(Path percorso) throws IOException {
+        long dimensione = Files.size(percorso);
+        long valido = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(percorso)))) {
+            byte[] dati = new byte[256];
+            while (valido + 8 <= dimensione) {
+                int lunghezza = in.readInt();
+                if (lunghezza < 0 || valido + 8 + lunghezza > dimensione) {
+                    break;
+                }
+                if (lunghezza > dati.length) {
+                    dati = new byte[Math.max(lunghezza, dati.length * 2)];
+                }
+                in.readFully(dati, 0, lunghezza);
+                int checksum = in.readInt();
+                crc.reset();
+                crc.update(dati, 0, lunghezza);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                applica(new DataInputStream(new ByteArrayInputStream(dati, 0, lunghezza)));
+                valido += 8 + lunghezza;
+            }
+        }
+        if (valido < dimensione) {
+            LoggerUtil.getLogger().warning("Journal " + percorso + " troncato: scartati "
+                    + (dimensione - valido) + " byte incompleti");
+            try (FileChannel canale = FileChannel.open(percorso, StandardOpenOption.WRITE)) {
+                canale.truncate(valido);
+            }
+        }
+    }
+
+    /**
+     * Applica al manager un singolo record del journal, ignorando le aggiunte
+     * di titoli già presenti, le rimozioni di titoli assenti e le modifiche ai sottotask
+     * non coerenti con lo stato corrente.
+     */
+    private void applica(DataInputStream in) throws IOException {
+        byte tipo = in.readByte();
+        switch (tipo) {
+            case AGGIUNTA -> {
+                for (Task t : codec.leggiForesta(in)) {
+                    if (manager.trovaPerTitolo(t.getTitolo()) == null) {
+                        manager.aggiungiTask(t);
+                    }
+                }
+            }
+            case RIMOZIONE -> {
+                Task t = manager.trovaPerTitolo(leggiTitolo(in));
+                if (t != null) {
+                    manager.rimuoviTask(t);
+                }
+            }
+            case COMPLETAMENTO -> {
+                Task t = leggiPercorso(in);
+                if (t != null) {
+                    t.completaTask();
+                }
+            }
+            case SOTTOTASK_AGGIUNTO -> {
+                Task padre = leggiPercorso(in);
+                if (padre instanceof CompositeTask) {
+                    CompositeTask composta = (CompositeTask) padre;
+                    int posizione = TaskBinaryCodec.leggiVarint(in);
+                    List<Task> sottotask = codec.leggiForesta(in);
+                    if (posizione == composta.getNumeroSubtasks() && sottotask.size() == 1) {
+                        composta.addSubtask(sottotask.get(0));
+                    }
+                }
+            }
+            case SOTTOTASK_RIMOSSO -> {
+                Task padre = leggiPercorso(in);
+                if (padre instanceof CompositeTask) {
+                    CompositeTask composta = (CompositeTask) padre;
+                    int posizione = TaskBinaryCodec.leggiVarint(in);
+                    String titolo = leggiTitolo(in);
+                    if (posizione < composta.getNumeroSubtasks()
+                            && Objects.equals(composta.getSubtask(posizione).getTitolo(), titolo)) {
+                        composta.removeSubtask(composta.getSubtask(posizione));
+                    }
+                }
+            }
+            default -> throw new IOException("Tipo di record sconosciuto: " + tipo);
+        }
+    }
+
+    /**
+     * Chiude il journal corrente (se presente) e apre in append quello della generazione indicata.
+     */
+    private void apriGenerazione(long nuovaGenerazione) throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        file = new FileOutputStream(percorsoJournal(nuovaGenerazione).toFile(), true);
+        journal = new DataOutputStream(new BufferedOutputStream(file));
+        generazione = nuovaGenerazione;
+        recordScritti = 0;
+    }
+
+    /**
+     * Scrive lo snapshot su un file temporaneo, lo sostituisce atomicamente a quello
+     * precedente ed elimina i journal ormai inglobati. Eseguito in background.
+     */
+    private void scriviSnapshot(byte[] dati, long nuovaGenerazione) {
+        try {
+            SnapshotWriter.scriviAtomicamente(snapshot, out -> out.write(dati));
+            eliminaJournalPrecedenti(nuovaGenerazione);
+        } catch (IOException e) {
+            LoggerUtil.getLogger().warning("Errore nella compattazione del journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Attende il termine della compattazione in background, se in corso.
+     */
+    private void attendiCompattazione() {
+        if (compattazione == null) {
+            return;
+        }
+        try {
+            compattazione.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LoggerUtil.getLogger().warning("Errore nella compattazione del journal: " + e.getCause().getMessage());
+        }
+        compattazione = null;
+    }
+
+    /**
+     * Prepara il buffer per un nuovo record del tipo indicato.
+     */
+    private void inizioRecord(byte tipo) throws IOException {
+        bufferRecord.reset();
+        record.writeByte(tipo);
+    }
+
+    /**
+     * Accoda al journal il record composto nel buffer, con lunghezza e checksum,
+     * e richiede una compattazione se la generazione corrente ha superato la soglia.
+     */
+    private void scriviRecord() throws IOException {
+        crc.reset();
+        crc.update(bufferRecord.dati(), 0, bufferRecord.size());
+        journal.writeInt(bufferRecord.size());
+        journal.write(bufferRecord.dati(), 0, bufferRecord.size());
+        journal.writeInt((int) crc.getValue());
+        journal.flush();
+        recordScritti++;
+        if (recordScritti >= Math.max(sogliaCompattazione, manager.getNumeroTasks())) {
+            compattazioneRichiesta = true;
+        }
+    }
+
+    /**
+     * Scrive un titolo, che può essere null.
+     */
+    private void scriviTitolo(String titolo) throws IOException {
+        record.writeBoolean(titolo != null);
+        if (titolo != null) {
+            TaskBinaryCodec.scriviStringa(record, titolo);
+        }
+    }
+
+    /**
+     * Legge un titolo scritto con {@link #scriviTitolo(String)}.
+     */
+    private String leggiTitolo(DataInput in) throws IOException {
+        return in.readBoolean() ? codec.leggiStringa(in) : null;
+    }
+
+    /**
+     * Scrive il percorso di una task della gerarchia: il titolo della radice seguito dal numero
+     * di livelli e dalla posizione di ogni sottotask, dalla radice verso la task.
+     */
+    private void scriviPercorso(Task radice, Task task) throws IOException {
+        scriviTitolo(radice.getTitolo());
+        int[] posizioni = new int[task.getProfondita()];
+        Task nodo = task;
+        for (int i = posizioni.length - 1; i >= 0; i--) {
+            posizioni[i] = nodo.getPosizione();
+            nodo = nodo.getPadre();
+        }
+        TaskBinaryCodec.scriviVarint(record, posizioni.length);
+        for (int posizione : posizioni) {
+            TaskBinaryCodec.scriviVarint(record, posizione);
+        }
+    }
+
+    /**
+     * Legge un percorso scritto con {@link #scriviPercorso(Task, Task)} e restituisce la task
+     * corrispondente nel manager, oppure {@code null} se non esiste più.
+     */
+    private Task leggiPercorso(DataInput in) throws IOException {
+        Task nodo = manager.trovaPerTitolo(leggiTitolo(in));
+        int livelli = TaskBinaryCodec.leggiVarint(in);
+        for (int i = 0; i < livelli && nodo != null; i++) {
+            int posizione = TaskBinaryCodec.leggiVarint(in);
+            if (nodo instanceof CompositeTask && posizione < ((CompositeTask) nodo).getNumeroSubtasks()) {
+                nodo = ((CompositeTask) nodo).getSubtask(posizione);
+            } else {
+                nodo = null;
+            }
+        }
+        return nodo;
+    }
+
+    /**
+     * Elimina i journal delle generazioni precedenti a quella indicata, già inglobati in uno snapshot.
+     */
+    private void eliminaJournalPrecedenti(long primaGenerazioneValida) throws IOException {
+        for (long g = primaGenerazioneValida - 1; g >= 0; g--) {
+            if (!Files.deleteIfExists(percorsoJournal(g))) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Restituisce il percorso del journal della generazione indicata.
+     */
+    private Path percorsoJournal(long g) {
+        return Path.of(percorsoBase + ".journal." + g);
+    }
+
+    /**
+     * {@link ByteArrayOutputStream} che espone il proprio array interno senza copiarlo.
+     */
+    private static final class BufferRecord extends ByteArrayOutputStream {
+        private BufferRecord() {
+            super(256);
+        }
+
+        private byte[] dati() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package util;
+
+import model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * {@code TaskLineParser} interpreta una riga del formato testuale di {@link FileManager}
+ * ({@code titolo;descrizione;scadenza;priorita}) direttamente dai byte UTF-8 del file.
+ *
+ * <p>La riga viene scandita una sola volta senza espressioni regolari: i campi testuali
+ * sono decodificati direttamente dal buffer, le date nel formato {@code yyyy-MM-dd}
+ * sono riconosciute a mano e memorizzate in una piccola cache, le priorità
+ * sono confrontate byte per byte con le costanti dell'enumerazione.</p>
+ *
+ * <p>Non è thread-safe: ogni thread deve utilizzare una propria istanza.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+final class TaskLineParser {
+
+    /** Separatore dei campi */
+    private static final byte SEPARATORE = ';';
+
+    /** Valore scritto su file per i campi assenti */
+    private static final byte[] NULLO = "null".getBytes(StandardCharsets.US_ASCII);
+
+    /** Costanti di priorità, nello stesso ordine di {@link #NOMI_PRIORITA} */
+    private static final Priorita[] PRIORITA = Priorita.values();
+
+    /** Nomi delle priorità codificati in ASCII */
+    private static final byte[][] NOMI_PRIORITA = new byte[PRIORITA.length][];
+
+    static {
+        for (int i = 0; i < PRIORITA.length; i++) {
+            NOMI_PRIORITA[i] = PRIORITA[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /** Dimensione della cache delle date (potenza di due) */
+    private static final int DIMENSIONE_CACHE = 1024;
+
+    /** Chiavi {@code aaaammgg} delle date in cache */
+    private final int[] chiaviDate = new int[DIMENSIONE_CACHE];
+
+    /** Date in cache, alla stessa posizione della rispettiva chiave */
+    private final LocalDate[] date = new LocalDate[DIMENSIONE_CACHE];
+
+    /**
+     * Costruttore di default.
+     */
+    TaskLineParser() {
+        // Nessuna inizializzazione
+    }
+
+    /**
+     * Costruisce un task a partire dai byte di una riga, senza il terminatore di riga.
+     *
+     * @param riga il buffer che contiene la riga
+     * @param inizio l'indice del primo byte della riga
+     * @param fine l'indice successivo all'ultimo byte della riga
+     * @return il task letto
+     * @throws IllegalArgumentException se la riga non rispetta il formato
+     */
+    Task analizza(byte[] riga, int inizio, int fine) {
+        int fineTitolo = cercaSeparatore(riga, inizio, fine);
+        int fineDescrizione = cercaSeparatore(riga, fineTitolo + 1, fine);
+        int fineScadenza = cercaSeparatore(riga, fineDescrizione + 1, fine);
+        if (fineScadenza >= fine) {
+            throw new IllegalArgumentException("numero di campi insufficiente");
+        }
+        // Eventuali campi successivi alla priorità vengono ignorati
+        int finePriorita = cercaSeparatore(riga, fineScadenza + 1, fine);
+
+        String titolo = decodifica(riga, inizio, fineTitolo);
+        String descrizione = decodifica(riga, fineTitolo + 1, fineDescrizione);
+        LocalDate scadenza = analizzaData(riga, fineDescrizione + 1, fineScadenza);
+        Priorita priorita = analizzaPriorita(riga, fineScadenza + 1, finePriorita);
+        return new Task(titolo, descrizione, scadenza, priorita);
+    }
+
+    /**
+     * Restituisce la posizione del prossimo separatore, oppure {@code fine} se assente.
+     */
+    private static int cercaSeparatore(byte[] riga, int da, int fine) {
+        for (int i = da; i < fine; i++) {
+            if (riga[i] == SEPARATORE) {
+                return i;
+            }
+        }
+        return fine;
+    }
+
+    /**
+     * Decodifica un campo testuale UTF-8.
+     */
+    private static String decodifica(byte[] riga, int inizio, int fine) {
+        return new String(riga, inizio, fine - inizio, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indica se il campo contiene il valore {@code null} scritto per i campi assenti.
+     */
+    private static boolean isNullo(byte[] riga, int inizio, int fine) {
+        return uguale(riga, inizio, fine, NULLO);
+    }
+
+    /**
+     * Confronta un campo con una sequenza di byte attesa.
+     */
+    private static boolean uguale(byte[] riga, int inizio, int fine, byte[] atteso) {
+        if (fine - inizio != atteso.length) {
+            return false;
+        }
+        for (int i = 0; i < atteso.length; i++) {
+            if (riga[inizio + i] != atteso[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Riconosce la priorità confrontando il campo con i nomi delle costanti.
+     */
+    private static Priorita analizzaPriorita(byte[] riga, int inizio, int fine) {
+        for (int i = 0; i < NOMI_PRIORITA.length; i++) {
+            if (uguale(riga, inizio, fine, NOMI_PRIORITA[i])) {
+                return PRIORITA[i];
+            }
+        }
+        if (isNullo(riga, inizio, fine)) {
+            return null;
+        }
+        throw new IllegalArgumentException("priorità non valida: " + decodifica(riga, inizio, fine));
+    }
+
+    /**
+     * Riconosce una data nel formato {@code yyyy-MM-dd} senza passare da una stringa,
+     * riutilizzando le date già incontrate.
+     */
+    private LocalDate analizzaData(byte[] riga, int inizio, int fine) {
+        if (fine - inizio == 10 && riga[inizio + 4] == '-' && riga[inizio + 7] == '-') {
+            int anno = cifre(riga, inizio, 4);
+            int mese = cifre(riga, inizio + 5, 2);
+            int giorno = cifre(riga, inizio + 8, 2);
+            if (anno >= 0 && mese >= 0 && giorno >= 0) {
+                int chiave = anno * 10000 + mese * 100 + giorno;
+                int slot = (chiave ^ (chiave >>> 10)) & (DIMENSIONE_CACHE - 1);
+                LocalDate data = date[slot];
+                if (data != null && chiaviDate[slot] == chiave) {
+                    return data;
+                }
+                try {
+                    data = LocalDate.of(anno, mese, giorno);
+                } catch (DateTimeException e) {
+                    throw new IllegalArgumentException("data non valida: " + decodifica(riga, inizio, fine));
+                }
+                chiaviDate[slot] = chiave;
+                date[slot] = data;
+                return data;
+            }
+        }
+        if (isNullo(riga, inizio, fine)) {
+            return null;
+        }
+        // Formati meno comuni (ad esempio anni con segno) passano dal parser standard
+        try {
+            return LocalDate.parse(decodifica(riga, inizio, fine));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("data non valida: " + decodifica(riga, inizio, fine));
+        }
+    }
+
+    /**
+     * Converte una sequenza di cifre decimali ASCII in intero.
+     *
+     * @return il valore, oppure -1 se è presente un carattere diverso da una cifra
+     */
+    private static int cifre(byte[] riga, int inizio, int lunghezza) {
+        int valore = 0;
+        for (int i = inizio; i < inizio + lunghezza; i++) {
+            int cifra = riga[i] - '0';
+            if (cifra < 0 || cifra > 9) {
+                return -1;
+            }
+            valore = valore * 10 + cifra;
+        }
+        return valore;
+    }
+}
@@ -0,0 +1,149 @@
+package util;
+
+import model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * {@code TaskLineReader} legge uno alla volta i task di un file in formato testuale,
+ * suddividendo in righe i byte letti da un {@link InputStream} e delegandone
+ * l'interpretazione a {@link TaskLineParser}.
+ *
+ * <p>I byte vengono letti a blocchi in un unico buffer riutilizzato: non vengono create
+ * stringhe per le righe né liste intermedie, quindi la memoria occupata non dipende
+ * dalla dimensione del file. Le righe vuote vengono ignorate e il terminatore
+ * {@code \r\n} è accettato.</p>
+ *
+ * <p>Non è thread-safe.</p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+final class TaskLineReader implements Closeable {
+
+    /** Dimensione iniziale del buffer di lettura */
+    private static final int DIMENSIONE_BUFFER = 64 * 1024;
+
+    /** Sorgente dei byte */
+    private final InputStream input;
+
+    /** Parser delle singole righe */
+    private final TaskLineParser parser = new TaskLineParser();
+
+    /** Buffer di lettura, ingrandito solo per righe più lunghe della sua capacità */
+    private byte[] buffer = new byte[DIMENSIONE_BUFFER];
+
+    /** Inizio della prossima riga da restituire */
+    private int posizione;
+
+    /** Posizione da cui riprendere la ricerca del fine riga */
+    private int scansione;
+
+    /** Numero di byte validi nel buffer */
+    private int limite;
+
+    /** Indica che la sorgente è esaurita */
+    private boolean finito;
+
+    /** Numero dell'ultima riga letta, per i messaggi di errore */
+    private long numeroRiga;
+
+    /**
+     * Crea un lettore sui byte forniti dallo stream.
+     *
+     * @param input lo stream da leggere
+     */
+    TaskLineReader(InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Legge il task successivo.
+     *
+     * @return il task letto, oppure {@code null} se lo stream è terminato
+     * @throws IOException in caso di errore di lettura
+     * @throws IllegalArgumentException se una riga non rispetta il formato
+     */
+    Task prossimo() throws IOException {
+        while (true) {
+            int fineRiga = cercaFineRiga();
+            if (fineRiga < 0) {
+                if (!finito) {
+                    riempi();
+                    continue;
+                }
+                if (posizione == limite) {
+                    return null;
+                }
+                // Ultima riga priva di terminatore
+                fineRiga = limite;
+            }
+            int inizio = posizione;
+            posizione = Math.min(fineRiga + 1, limite);
+            scansione = posizione;
+            numeroRiga++;
+            int fine = fineRiga;
+            if (fine > inizio && buffer[fine - 1] == '\r') {
+                fine--;
+            }
+            if (fine == inizio) {
+                continue;
+            }
+            try {
+                return parser.analizza(buffer, inizio, fine);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Riga " + numeroRiga + " non valida: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Cerca il prossimo {@code \n} tra i byte già letti.
+     *
+     * @return la posizione del terminatore, oppure -1 se la riga non è completa
+     */
+    private int cercaFineRiga() {
+        for (int i = scansione; i < limite; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        scansione = limite;
+        return -1;
+    }
+
+    /**
+     * Sposta la riga incompleta all'inizio del buffer e legge altri byte.
+     */
+    private void riempi() throws IOException {
+        int residui = limite - posizione;
+        if (posizione > 0) {
+            System.arraycopy(buffer, posizione, buffer, 0, residui);
+            scansione -= posizione;
+            posizione = 0;
+            limite = residui;
+        }
+        if (limite == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int letti = input.read(buffer, limite, buffer.length - limite);
+        if (letti < 0) {
+            finito = true;
+        } else {
+            limite += letti;
+        }
+    }
+
+    /**
+     * Chiude lo stream sottostante.
+     *
+     * @throws IOException in caso di errore di chiusura
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
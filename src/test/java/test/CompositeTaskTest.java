@@ -2,7 +2,11 @@ package test;
 
 import model.*;
 import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -118,4 +122,112 @@ public class CompositeTaskTest {
             composite.addSubtask(composite);
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifica che la percentuale di completamento conti le foglie dell'intero sottoalbero
+     * e resti coerente dopo completamenti e rimozioni.
+     */
+    @Test
+    public void testPercentualeCompletamento() {
+        CompositeTask root = new CompositeTask("Root", "Desc", LocalDate.now(), Priorita.ALTA);
+        CompositeTask child = new CompositeTask("Child", "Desc", LocalDate.now(), Priorita.MEDIA);
+        Task leaf1 = new Task("Leaf1", "Desc", LocalDate.now(), Priorita.BASSA);
+        Task leaf2 = new Task("Leaf2", "Desc", LocalDate.now(), Priorita.BASSA);
+        Task leaf3 = new Task("Leaf3", "Desc", LocalDate.now(), Priorita.BASSA);
+        Task leaf4 = new Task("Leaf4", "Desc", LocalDate.now(), Priorita.BASSA);
+        root.addSubtask(child);
+        child.addSubtask(leaf1);
+        child.addSubtask(leaf2);
+        child.addSubtask(leaf3);
+        root.addSubtask(leaf4);
+
+        assertEquals(0.0, root.percentualeCompletamento());
+        leaf1.completaTask();
+        assertEquals(25.0, root.percentualeCompletamento());
+        child.completaTask();
+        assertTrue(child.isCompletato());
+        assertEquals(75.0, root.percentualeCompletamento());
+        assertFalse(root.isCompletato());
+
+        root.removeSubtask(leaf4);
+        assertTrue(root.isCompletato());
+        assertEquals(100.0, root.percentualeCompletamento());
+    }
+
+    /**
+     * Verifica che un task non possa appartenere a due task composte
+     * né contenere un proprio antenato.
+     */
+    @Test
+    public void testGerarchiaNonValida() {
+        CompositeTask root = new CompositeTask("Root", "Desc", LocalDate.now(), Priorita.ALTA);
+        CompositeTask child = new CompositeTask("Child", "Desc", LocalDate.now(), Priorita.MEDIA);
+        CompositeTask altro = new CompositeTask("Altro", "Desc", LocalDate.now(), Priorita.MEDIA);
+        root.addSubtask(child);
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            altro.addSubtask(child);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            child.addSubtask(root);
+        });
+
+        root.removeSubtask(child);
+        altro.addSubtask(child);
+        assertEquals(1, altro.getNumeroSubtasks());
+    }
+
+    /**
+     * Verifica padre e profondità dei sottotask e che la visita della gerarchia
+     * restituisca ogni task con la sua profondità.
+     */
+    @Test
+    public void testPadreEProfondita() {
+        CompositeTask root = new CompositeTask("Root", "Desc", LocalDate.now(), Priorita.ALTA);
+        CompositeTask child = new CompositeTask("Child", "Desc", LocalDate.now(), Priorita.MEDIA);
+        Task leaf = new Task("Leaf", "Desc", LocalDate.now(), Priorita.BASSA);
+        Task sibling = new Task("Sibling", "Desc", LocalDate.now(), Priorita.BASSA);
+        child.addSubtask(leaf);
+        root.addSubtask(child);
+        root.addSubtask(sibling);
+
+        assertNull(root.getPadre());
+        assertSame(child, leaf.getPadre());
+        assertEquals(2, leaf.getProfondita());
+        assertEquals(1, sibling.getProfondita());
+
+        List<String> visitati = new ArrayList<>();
+        CompositeTraversal.visita(List.of(root), (t, profondita) -> visitati.add(t.getTitolo() + ":" + profondita));
+        assertEquals(List.of("Root:0", "Child:1", "Leaf:2", "Sibling:1"), visitati);
+
+        root.removeSubtask(child);
+        assertNull(child.getPadre());
+        assertEquals(1, leaf.getProfondita());
+    }
+
+    /**
+     * Verifica che la rappresentazione gerarchica indenti ogni livello di due spazi
+     * e che {@link CompositeTask#scriviGerarchia(Appendable)} scriva lo stesso testo.
+     *
+     * @throws IOException in caso di errore di scrittura
+     */
+    @Test
+    public void testRappresentazioneGerarchica() throws IOException {
+        LocalDate data = LocalDate.of(2025, 7, 1);
+        CompositeTask root = new CompositeTask("Root", "Desc", data, Priorita.ALTA);
+        CompositeTask child = new CompositeTask("Child", "Desc", data, Priorita.MEDIA);
+        child.addSubtask(new Task("Leaf", "Desc", data, Priorita.BASSA));
+        root.addSubtask(child);
+        root.addSubtask(new Task("Sibling", "Desc", data, Priorita.BASSA));
+
+        String atteso = "[ALTA] Root - Scade il: 2025-07-01 [2 subtasks]\n"
+                + "  [MEDIA] Child - Scade il: 2025-07-01 [1 subtasks]\n"
+                + "    [BASSA] Leaf - Scade il: 2025-07-01\n"
+                + "  [BASSA] Sibling - Scade il: 2025-07-01\n";
+        assertEquals(atteso, root.toStringGerarchico());
+
+        StringWriter writer = new StringWriter();
+        root.scriviGerarchia(writer);
+        assertEquals(atteso, writer.toString());
+    }
+}
@@ -0,0 +1,149 @@
+package test;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link CompositeTraversal}, il motore di visita delle gerarchie
+ * di {@link CompositeTask}.
+ * <p>
+ * I test usano gerarchie più grandi di {@link CompositeTraversal#SOGLIA_PARALLELA},
+ * così da verificare che la visita parallela produca lo stesso preordine
+ * e gli stessi contatori della visita sequenziale.
+ * </p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class CompositeTraversalTest {
+
+    /**
+     * Costruisce una gerarchia con un ramo grande, un ramo profondo e molte foglie,
+     * registrando in {@code preordine} l'ordine atteso delle task.
+     */
+    private CompositeTask costruisci(List<Task> preordine) {
+        CompositeTask root = new CompositeTask("Root", "Desc", LocalDate.now(), Priorita.ALTA);
+        preordine.add(root);
+        CompositeTask grande = new CompositeTask("Grande", "Desc", LocalDate.now(), Priorita.MEDIA);
+        root.addSubtask(grande);
+        preordine.add(grande);
+        for (int i = 0; i < CompositeTraversal.SOGLIA_PARALLELA * 2; i++) {
+            Task foglia = new Task("G" + i, "Desc", LocalDate.now(), Priorita.BASSA);
+            grande.addSubtask(foglia);
+            preordine.add(foglia);
+        }
+        CompositeTask livello = root;
+        for (int d = 0; d < 5_000; d++) {
+            CompositeTask figlio = new CompositeTask("P" + d, "Desc", LocalDate.now(), Priorita.BASSA);
+            livello.addSubtask(figlio);
+            preordine.add(figlio);
+            livello = figlio;
+        }
+        for (int i = 0; i < CompositeTraversal.SOGLIA_PARALLELA; i++) {
+            Task foglia = new Task("F" + i, "Desc", LocalDate.now(), Priorita.BASSA);
+            root.addSubtask(foglia);
+            preordine.add(foglia);
+        }
+        return root;
+    }
+
+    /**
+     * Verifica che l'appiattimento restituisca tutte le task in preordine
+     * e che il conteggio con criterio sia coerente.
+     */
+    @Test
+    public void testAppiattimentoEConteggio() {
+        List<Task> atteso = new ArrayList<>();
+        CompositeTask root = costruisci(atteso);
+
+        List<Task> tutte = CompositeTraversal.appiattisci(List.of(root));
+        assertEquals(atteso.size(), tutte.size());
+        for (int i = 0; i < atteso.size(); i++) {
+            assertSame(atteso.get(i), tutte.get(i));
+        }
+        assertEquals(atteso.size(), CompositeTraversal.conta(List.of(root), t -> true));
+        assertEquals(CompositeTraversal.SOGLIA_PARALLELA * 3,
+                CompositeTraversal.conta(List.of(root), t -> !(t instanceof CompositeTask)));
+    }
+
+    /**
+     * Verifica che il completamento in blocco di una gerarchia grande completi ogni task,
+     * notifichi gli osservatori e aggiorni i contatori della radice.
+     */
+    @Test
+    public void testCompletamentoParallelo() {
+        CompositeTask root = costruisci(new ArrayList<>());
+        Task foglia = root.getSubtask(root.getNumeroSubtasks() - 1);
+        List<Task> notificati = new ArrayList<>();
+        foglia.aggiungiObserver(notificati::add);
+        root.aggiungiObserver(notificati::add);
+
+        root.completaTask();
+
+        assertTrue(root.isCompletato());
+        assertEquals(100.0, root.percentualeCompletamento());
+        assertEquals(0, CompositeTraversal.conta(List.of(root), t -> !t.isCompletato()));
+        assertEquals(List.of(root, foglia), notificati);
+    }
+
+    /**
+     * Verifica che il completamento di una gerarchia piccola, visitata sul thread chiamante,
+     * notifichi ogni task che cambia stato una sola volta e quando il suo stato è già definitivo:
+     * le task composte dopo i propri sottotask, la radice per ultima.
+     */
+    @Test
+    public void testCompletamentoSequenziale() {
+        CompositeTask root = new CompositeTask("Root", "Desc", LocalDate.now(), Priorita.ALTA);
+        CompositeTask fase = new CompositeTask("Fase", "Desc", LocalDate.now(), Priorita.MEDIA);
+        Task a = new Task("A", "Desc", LocalDate.now(), Priorita.BASSA);
+        Task b = new Task("B", "Desc", LocalDate.now(), Priorita.BASSA);
+        Task c = new Task("C", "Desc", LocalDate.now(), Priorita.BASSA);
+        fase.addSubtask(a);
+        fase.addSubtask(b);
+        root.addSubtask(fase);
+        root.addSubtask(c);
+        b.completaTask();
+        List<Task> notificati = new ArrayList<>();
+        TaskObserver observer = t -> {
+            assertTrue(t.isCompletato());
+            notificati.add(t);
+        };
+        for (Task t : List.of(root, fase, a, b, c)) {
+            t.aggiungiObserver(observer);
+        }
+
+        root.completaTask();
+
+        assertEquals(List.of(a, fase, c, root), notificati);
+    }
+
+    /**
+     * Verifica che iteratore e spliterator producano il preordine atteso,
+     * anche quando lo stream viene eseguito in parallelo.
+     */
+    @Test
+    public void testVisitaPigra() {
+        List<Task> atteso = new ArrayList<>();
+        CompositeTask root = costruisci(atteso);
+        Task singolo = new Task("Singolo", "Desc", LocalDate.now(), Priorita.MEDIA);
+        atteso.add(singolo);
+        List<Task> radici = List.of(root, singolo);
+
+        Iterator<Task> iteratore = CompositeTraversal.iteratore(radici);
+        for (Task t : atteso) {
+            assertSame(t, iteratore.next());
+        }
+        assertFalse(iteratore.hasNext());
+
+        List<Task> parallelo = StreamSupport.stream(CompositeTraversal.spliterator(radici), true)
+                .collect(Collectors.toList());
+        assertEquals(atteso, parallelo);
+    }
+}
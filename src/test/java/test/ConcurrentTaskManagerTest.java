@@ -0,0 +1,168 @@
+package test;
+
+import model.*;
+import service.ConcurrentTaskManager;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link ConcurrentTaskManager}, la variante thread-safe del gestore dei task.
+ * <p>
+ * I test verificano che il comportamento coincida con quello di {@code TaskManager}
+ * (ordine di inserimento, filtri, titoli univoci, iteratore) e che aggiunte, rimozioni
+ * e iterazioni concorrenti lascino il manager in uno stato coerente.
+ * </p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class ConcurrentTaskManagerTest {
+
+    /**
+     * Verifica aggiunta, ricerca, filtri e rimozione su un solo thread,
+     * con le stesse regole di {@code TaskManager}.
+     */
+    @Test
+    public void testOperazioniBase() {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        LocalDate oggi = LocalDate.of(2025, 7, 1);
+        Task dopo = new Task("Dopo", "Desc", oggi.plusDays(10), Priorita.BASSA);
+        Task domani = new Task("Domani", "Desc", oggi.plusDays(1), Priorita.ALTA);
+        Task stessoGiorno = new Task("Stesso giorno", "Desc", oggi.plusDays(1), Priorita.ALTA);
+        manager.aggiungiTask(dopo);
+        manager.aggiungiTask(domani);
+        manager.aggiungiTask(stessoGiorno);
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.aggiungiTask(new Task("Dopo", "Duplicato", oggi, Priorita.MEDIA));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.aggiungiTask(new Task(null, "Senza titolo", oggi, Priorita.MEDIA));
+        });
+        assertEquals(List.of(dopo, domani, stessoGiorno), manager.getTutti());
+        assertEquals(List.of(domani, stessoGiorno), manager.filtraPerPriorita(Priorita.ALTA));
+        assertEquals(List.of(domani, stessoGiorno), manager.filtraPerScadenza(oggi, oggi.plusDays(1)));
+
+        assertTrue(manager.completaTask(new Task("Domani", null, null, null)));
+        assertEquals(List.of(domani), manager.getCompletati());
+        assertEquals(List.of(dopo, stessoGiorno), manager.getDaCompletare());
+
+        manager.rimuoviTask(domani);
+        assertNull(manager.trovaPerTitolo("Domani"));
+        assertEquals(2, manager.getNumeroTasks());
+        assertEquals(List.of(stessoGiorno), manager.filtraPerScadenza(oggi, oggi.plusDays(1)));
+    }
+
+    /**
+     * Verifica che l'iteratore restituisca i task in ordine di inserimento,
+     * non supporti la rimozione e lanci {@link NoSuchElementException} a fine elenco.
+     */
+    @Test
+    public void testIterator() {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        Task t1 = new Task("Task1", "Desc", LocalDate.now(), Priorita.ALTA);
+        Task t2 = new Task("Task2", "Desc", LocalDate.now(), Priorita.MEDIA);
+        manager.aggiungiTask(t1);
+        manager.aggiungiTask(t2);
+
+        Iterator<Task> iterator = manager.iterator();
+        assertEquals(t1, iterator.next());
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertEquals(t2, iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    /**
+     * Verifica che aggiunte e rimozioni eseguite da più thread, mentre altri thread
+     * iterano l'elenco, producano lo stato atteso senza eccezioni.
+     *
+     * @throws Exception se uno dei thread fallisce
+     */
+    @Test
+    public void testAccessoConcorrente() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        int thread = 4;
+        int perThread = 2_000;
+        ExecutorService esecutore = Executors.newFixedThreadPool(thread * 2);
+        try {
+            List<Future<?>> risultati = new ArrayList<>();
+            for (int n = 0; n < thread; n++) {
+                int id = n;
+                risultati.add(esecutore.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        manager.aggiungiTask(new Task("T" + id + "-" + i, "Desc", LocalDate.now(), Priorita.MEDIA));
+                        if (i % 2 == 1) {
+                            manager.rimuoviTask(new Task("T" + id + "-" + (i - 1), null, null, null));
+                        }
+                    }
+                }));
+                risultati.add(esecutore.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        for (Task t : manager) {
+                            assertNotNull(t.getTitolo());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> risultato : risultati) {
+                risultato.get();
+            }
+        } finally {
+            esecutore.shutdown();
+        }
+
+        assertEquals(thread * perThread / 2, manager.getNumeroTasks());
+        assertEquals(manager.getNumeroTasks(), manager.getTutti().size());
+        assertEquals(manager.getNumeroTasks(), manager.filtraPerPriorita(Priorita.MEDIA).size());
+        assertNull(manager.trovaPerTitolo("T0-0"));
+        assertNotNull(manager.trovaPerTitolo("T0-1"));
+    }
+
+    /**
+     * Verifica che una task condivisa, aggiunta e rimossa ripetutamente in più manager
+     * da thread diversi, notifichi il completamento di un sottotask a tutti i manager
+     * che la contengono, aggiornandone l'indice dei task completati.
+     *
+     * @throws Exception se uno dei thread fallisce
+     */
+    @Test
+    public void testRegistrazioneConcorrente() throws Exception {
+        CompositeTask condivisa = new CompositeTask("Condivisa", "Desc", LocalDate.now(), Priorita.ALTA);
+        Task sottotask = new Task("Sottotask", "Desc", LocalDate.now(), Priorita.MEDIA);
+        condivisa.addSubtask(sottotask);
+        List<ConcurrentTaskManager> managers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            managers.add(new ConcurrentTaskManager());
+        }
+        ExecutorService esecutore = Executors.newFixedThreadPool(managers.size());
+        try {
+            List<Future<?>> risultati = new ArrayList<>();
+            for (ConcurrentTaskManager manager : managers) {
+                risultati.add(esecutore.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        manager.aggiungiTask(condivisa);
+                        manager.rimuoviTask(condivisa);
+                    }
+                    manager.aggiungiTask(condivisa);
+                }));
+            }
+            for (Future<?> risultato : risultati) {
+                risultato.get();
+            }
+        } finally {
+            esecutore.shutdown();
+        }
+
+        sottotask.completaTask();
+        for (ConcurrentTaskManager manager : managers) {
+            assertEquals(List.of(condivisa), manager.getCompletati());
+            assertTrue(manager.getDaCompletare().isEmpty());
+        }
+    }
+}
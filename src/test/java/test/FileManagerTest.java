@@ -1,12 +1,26 @@
 package test;
 
 import model.*;
+import service.TaskManager;
 import util.FileManager;
+import util.TaskBinaryCodec;
+import util.RisultatoImport;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,4 +61,172 @@ public class FileManagerTest {
 
         file.delete(); // pulizia file
     }
+
+    /**
+     * Verifica che {@link FileManager#streamTask(String)} legga i task in modo pigro
+     * e nell'ordine del file, accettando terminatori {@code \r\n} e righe vuote
+     * e interrompendosi alla prima riga non valida.
+     *
+     * @throws IOException se il file temporaneo non può essere creato
+     */
+    @Test
+    public void testStreamTask() throws IOException {
+        Path path = Files.createTempFile("stream_test", ".txt");
+        Files.writeString(path,
+                "Uno;Prima riga;2025-07-01;ALTA\r\n"
+                + "\n"
+                + "Due;Città;2025-07-02;BASSA;true\n"
+                + "Tre;null;2025-07-02;MEDIA\n"
+                + "Rotta;manca la priorità\n"
+                + "Quattro;Mai letta;2025-07-04;ALTA\n",
+                StandardCharsets.UTF_8);
+        try {
+            try (Stream<Task> stream = FileManager.streamTask(path.toString())) {
+                List<Task> primi = stream.limit(2).toList();
+                assertEquals("Uno", primi.get(0).getTitolo());
+                assertEquals("Città", primi.get(1).getDescrizione());
+                assertEquals(Priorita.BASSA, primi.get(1).getPriorita());
+            }
+
+            List<Task> letti = new ArrayList<>();
+            long numero = FileManager.caricaTask(path.toString(), letti::add);
+            assertEquals(3, numero);
+            assertEquals(LocalDate.of(2025, 7, 2), letti.get(2).getScadenza());
+            assertSame(letti.get(1).getScadenza(), letti.get(2).getScadenza());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Verifica che {@link FileManager#importaMappato(String, TaskManager, int)}
+     * importi tutti i task nell'ordine del file anche quando questo viene suddiviso
+     * in molti blocchi elaborati in parallelo.
+     *
+     * @throws IOException se il file temporaneo non può essere creato
+     */
+    @Test
+    public void testImportaMappato() throws IOException {
+        Path path = Files.createTempFile("import_test", ".txt");
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(new Task("Task " + i, "Descrizione " + i,
+                    LocalDate.of(2025, 1, 1).plusDays(i), Priorita.values()[i % 3]));
+        }
+        FileManager.salvaTask(tasks, path.toString());
+        try {
+            TaskManager manager = new TaskManager();
+            RisultatoImport risultato = FileManager.importaMappato(path.toString(), manager, 512);
+
+            assertEquals(1000, risultato.getNumeroTask());
+            assertEquals(Files.size(path), risultato.getByteLetti());
+            assertTrue(risultato.getNumeroBlocchi() > 1);
+            List<Task> importati = manager.getTutti();
+            for (int i = 0; i < tasks.size(); i++) {
+                assertEquals(tasks.get(i).getTitolo(), importati.get(i).getTitolo());
+                assertEquals(tasks.get(i).getScadenza(), importati.get(i).getScadenza());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Verifica che il formato binario conservi campi, stato di completamento
+     * e gerarchie di {@link CompositeTask} e occupi meno spazio del formato testuale.
+     *
+     * @throws IOException se i file temporanei non possono essere gestiti
+     */
+    @Test
+    public void testSalvaECaricaBinario() throws IOException {
+        Path binario = Files.createTempFile("binario_test", ".bin");
+        Path testo = Files.createTempFile("testo_test", ".txt");
+        CompositeTask progetto = new CompositeTask("Progetto", "Radice", LocalDate.of(2025, 6, 28), Priorita.ALTA);
+        CompositeTask fase = new CompositeTask("Fase", null, LocalDate.of(2025, 6, 20), Priorita.MEDIA);
+        Task foglia = new Task("Foglia", "Città", LocalDate.of(2025, 6, 10), null);
+        Task aperta = new Task("Aperta", "Da fare", LocalDate.of(2025, 6, 12), Priorita.BASSA);
+        fase.addSubtask(foglia);
+        progetto.addSubtask(fase);
+        progetto.addSubtask(aperta);
+        foglia.completaTask();
+        Task singolo = new Task("Singolo", "Completato", LocalDate.of(2025, 7, 1), Priorita.BASSA);
+        singolo.completaTask();
+        try {
+            FileManager.salvaTaskBinario(List.of(progetto, singolo), binario.toString());
+            FileManager.salvaTask(List.of(progetto, fase, foglia, aperta, singolo), testo.toString());
+            assertTrue(Files.size(binario) < Files.size(testo));
+
+            List<Task> caricati = FileManager.caricaTaskBinario(binario.toString());
+            assertEquals(2, caricati.size());
+            CompositeTask radice = (CompositeTask) caricati.get(0);
+            assertEquals(2, radice.getNumeroSubtasks());
+            CompositeTask figlio = (CompositeTask) radice.getSubtasks().get(0);
+            assertNull(figlio.getDescrizione());
+            Task nipote = figlio.getSubtasks().get(0);
+            assertEquals("Città", nipote.getDescrizione());
+            assertNull(nipote.getPriorita());
+            assertTrue(nipote.isCompletato());
+            assertTrue(figlio.isCompletato());
+            assertFalse(radice.isCompletato());
+            assertTrue(caricati.get(1).isCompletato());
+            assertEquals(LocalDate.of(2025, 7, 1), caricati.get(1).getScadenza());
+        } finally {
+            Files.delete(binario);
+            Files.delete(testo);
+        }
+    }
+
+    /**
+     * Verifica che il formato binario conservi lo stato proprio delle task composite,
+     * distinto da quello derivato dai sottotask.
+     *
+     * @throws IOException in caso di errore di codifica
+     */
+    @Test
+    public void testStatoProprioDelleComposite() throws IOException {
+        CompositeTask completata = new CompositeTask("Completata", "Desc", LocalDate.of(2025, 6, 1), Priorita.ALTA);
+        completata.completaTask();
+        completata.addSubtask(new Task("Nuovo", "Desc", LocalDate.of(2025, 6, 2), Priorita.BASSA));
+        CompositeTask derivata = new CompositeTask("Derivata", "Desc", LocalDate.of(2025, 6, 1), Priorita.ALTA);
+        Task figlio = new Task("Figlio", "Desc", LocalDate.of(2025, 6, 2), Priorita.BASSA);
+        derivata.addSubtask(figlio);
+        figlio.completaTask();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        new TaskBinaryCodec().scriviForesta(new DataOutputStream(buffer), List.of(completata, derivata));
+        List<Task> letti = new TaskBinaryCodec().leggiForesta(
+                new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+
+        CompositeTask primo = (CompositeTask) letti.get(0);
+        assertFalse(primo.isCompletato());
+        assertTrue(primo.isCompletatoDirettamente());
+        assertFalse(primo.getSubtask(0).isCompletato());
+        CompositeTask secondo = (CompositeTask) letti.get(1);
+        assertTrue(secondo.isCompletato());
+        assertFalse(secondo.isCompletatoDirettamente());
+        secondo.removeSubtask(secondo.getSubtask(0));
+        assertFalse(secondo.isCompletato());
+    }
+
+    /**
+     * Verifica che un file binario troncato che dichiara un numero enorme di record
+     * o una stringa enorme termini con un errore di lettura invece di esaurire la memoria.
+     *
+     * @throws IOException in caso di errore di codifica
+     */
+    @Test
+    public void testDimensioniDichiarateNonValide() throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        TaskBinaryCodec.scriviVarint(out, Integer.MAX_VALUE);
+        assertThrows(EOFException.class, () -> new TaskBinaryCodec().leggiForesta(
+                new DataInputStream(new ByteArrayInputStream(record.toByteArray()))));
+
+        ByteArrayOutputStream stringa = new ByteArrayOutputStream();
+        out = new DataOutputStream(stringa);
+        TaskBinaryCodec.scriviVarint(out, Integer.MAX_VALUE);
+        out.write(new byte[100]);
+        assertThrows(EOFException.class, () -> new TaskBinaryCodec().leggiStringa(
+                new DataInputStream(new ByteArrayInputStream(stringa.toByteArray()))));
+    }
 }
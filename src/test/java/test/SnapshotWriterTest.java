@@ -0,0 +1,83 @@
+package test;
+
+import model.*;
+import util.FileManager;
+import util.SnapshotWriter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link SnapshotWriter}, che salva snapshot in modo atomico
+ * raggruppando le richieste ravvicinate.
+ * <p>
+ * I test verificano che richieste multiple vengano unite salvando lo stato più recente
+ * e che il file temporaneo non sopravviva alla sostituzione.
+ * </p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class SnapshotWriterTest {
+
+    /** Directory temporanea per gli snapshot */
+    @TempDir
+    Path cartella;
+
+    /**
+     * Verifica che più richieste nella stessa finestra vengano unite in meno scritture
+     * su disco, salvando lo stato più recente in formato testuale.
+     *
+     * @throws Exception in caso di errore nel salvataggio o nella lettura
+     */
+    @Test
+    public void testRaggruppamentoRichieste() throws Exception {
+        Path file = cartella.resolve("snapshot.txt");
+        List<Task> stato = new ArrayList<>();
+        List<CompletableFuture<Void>> richieste = new ArrayList<>();
+        try (SnapshotWriter writer = new SnapshotWriter(file.toString(), SnapshotWriter.Formato.TESTO, 200)) {
+            for (int i = 0; i < 5; i++) {
+                stato.add(new Task("Task " + i, "Desc", LocalDate.of(2025, 8, i + 1), Priorita.MEDIA));
+                richieste.add(writer.salva(List.copyOf(stato)));
+            }
+            CompletableFuture.allOf(richieste.toArray(new CompletableFuture<?>[0])).get();
+            assertTrue(writer.getScrittureEseguite() >= 1);
+            assertTrue(writer.getScrittureEseguite() < richieste.size());
+        }
+
+        List<Task> caricati = FileManager.caricaTask(file.toString());
+        assertEquals(5, caricati.size());
+        assertEquals("Task 4", caricati.get(4).getTitolo());
+        assertFalse(Files.exists(cartella.resolve("snapshot.txt.tmp")));
+    }
+
+    /**
+     * Verifica che alla chiusura venga scritto subito lo snapshot binario in attesa.
+     *
+     * @throws Exception in caso di errore nel salvataggio o nella lettura
+     */
+    @Test
+    public void testChiusuraScriveInAttesa() throws Exception {
+        Path file = cartella.resolve("snapshot.bin");
+        CompositeTask progetto = new CompositeTask("Progetto", "Desc", LocalDate.of(2025, 9, 1), Priorita.ALTA);
+        progetto.addSubtask(new Task("Fase", "Desc", LocalDate.of(2025, 9, 2), Priorita.BASSA));
+        CompletableFuture<Void> richiesta;
+        try (SnapshotWriter writer = new SnapshotWriter(file.toString(), SnapshotWriter.Formato.BINARIO, 60_000)) {
+            richiesta = writer.salva(List.of(progetto));
+        }
+
+        assertTrue(richiesta.isDone());
+        List<Task> caricati = FileManager.caricaTaskBinario(file.toString());
+        assertEquals(1, caricati.size());
+        assertEquals(1, ((CompositeTask) caricati.get(0)).getSubtasks().size());
+    }
+}
@@ -6,7 +6,10 @@ import strategy.*;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,7 +18,9 @@ import static org.junit.jupiter.api.Assertions.*;
  * che forniscono strategie di ordinamento per i task in base a diversi criteri.
  * <p>
  * I test inclusi verificano il corretto funzionamento delle strategie:
- * {@link OrdinaPerScadenza} e {@link OrdinaPerPriorita}.
+ * {@link OrdinaPerScadenza} e {@link OrdinaPerPriorita}, oltre alla selezione
+ * dei primi task tramite {@link TaskSortStrategy#ordinaPrimi(List, int)}
+ * e l'ordinamento su più chiavi di {@link OrdinaMultiChiave}.
  * </p>
  * 
  * @author Gian Luca Baccani
@@ -57,4 +62,135 @@ public class StrategyTest {
 
         assertEquals("B", ordinati.get(0).getTitolo());
     }
+
+    /**
+     * Verifica che {@link TaskSortStrategy#ordinaPrimi(List, int)} restituisca, per ogni
+     * strategia, esattamente il prefisso dell'ordinamento completo, compreso l'ordine
+     * dei task con la stessa chiave, anche per una strategia lambda priva di comparatore.
+     */
+    @Test
+    public void testOrdinaPrimi() {
+        Random random = new Random(7);
+        Priorita[] priorita = Priorita.values();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Task t = new Task("T" + i, "Test", LocalDate.of(2025, 7, 1 + random.nextInt(10)),
+                    priorita[random.nextInt(priorita.length)]);
+            if (random.nextBoolean()) {
+                t.completaTask();
+            }
+            tasks.add(t);
+        }
+
+        for (TaskSortStrategy strategy : List.of(new OrdinaPerScadenza(), new OrdinaPerPriorita(),
+                new OrdinaPerCompletamento())) {
+            List<Task> completo = strategy.ordina(tasks);
+            for (int k : new int[] {0, 1, 50, 499, 500, 1000}) {
+                assertEquals(completo.subList(0, Math.min(k, completo.size())), strategy.ordinaPrimi(tasks, k));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new OrdinaPerPriorita().ordinaPrimi(tasks, -1));
+
+        // Una strategia esterna senza comparatore ripiega sull'ordinamento completo
+        TaskSortStrategy perTitolo = lista -> {
+            List<Task> copia = new ArrayList<>(lista);
+            copia.sort(Comparator.comparing(Task::getTitolo));
+            return copia;
+        };
+        assertThrows(UnsupportedOperationException.class, perTitolo::comparatore);
+        assertEquals(perTitolo.ordina(tasks).subList(0, 50), perTitolo.ordinaPrimi(tasks, 50));
+        assertThrows(IllegalArgumentException.class, () -> perTitolo.ordinaPrimi(tasks, -1));
+    }
+
+    /**
+     * Verifica che {@link OrdinaMultiChiave} ordini come la catena di comparatori
+     * equivalente, compresi i task senza priorità o scadenza, e che rifiuti
+     * il titolo in una posizione diversa dall'ultima.
+     */
+    @Test
+    public void testOrdinaMultiChiave() {
+        Random random = new Random(11);
+        Priorita[] priorita = Priorita.values();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDate scadenza = random.nextInt(10) == 0 ? null : LocalDate.of(2025, 7, 1 + random.nextInt(5));
+            Priorita p = random.nextInt(10) == 0 ? null : priorita[random.nextInt(priorita.length)];
+            Task t = new Task("T" + random.nextInt(100) + "-" + i, "Test", scadenza, p);
+            if (random.nextBoolean()) {
+                t.completaTask();
+            }
+            tasks.add(t);
+        }
+
+        Comparator<Task> atteso = Comparator.comparing(Task::isCompletato)
+                .thenComparing(Task::getPriorita, Comparator.nullsLast(Comparator.<Priorita>reverseOrder()))
+                .thenComparing(Task::getScadenza, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+                .thenComparing(Task::getTitolo);
+        List<Task> riferimento = new ArrayList<>(tasks);
+        riferimento.sort(atteso);
+
+        TaskSortStrategy strategy = new OrdinaMultiChiave(OrdinaMultiChiave.Chiave.COMPLETAMENTO,
+                OrdinaMultiChiave.Chiave.PRIORITA, OrdinaMultiChiave.Chiave.SCADENZA, OrdinaMultiChiave.Chiave.TITOLO);
+        assertEquals(riferimento, strategy.ordina(tasks));
+        assertEquals(riferimento.subList(0, 50), strategy.ordinaPrimi(tasks, 50));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new OrdinaMultiChiave(OrdinaMultiChiave.Chiave.TITOLO, OrdinaMultiChiave.Chiave.PRIORITA);
+        });
+    }
+
+    /**
+     * Verifica che sulle liste grandi, ordinate in parallelo, le strategie mantengano
+     * l'ordine stabile dell'ordinamento sequenziale a parità di chiave.
+     */
+    @Test
+    public void testOrdinamentoParalleloStabile() {
+        Random random = new Random(5);
+        Priorita[] priorita = Priorita.values();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            Task t = new Task("T" + i, "Test", LocalDate.of(2025, 7, 1 + random.nextInt(3)),
+                    priorita[random.nextInt(priorita.length)]);
+            if (random.nextBoolean()) {
+                t.completaTask();
+            }
+            tasks.add(t);
+        }
+
+        List<TaskSortStrategy> strategie = List.of(new OrdinaPerPriorita(), new OrdinaPerScadenza(), new OrdinaPerCompletamento());
+        for (TaskSortStrategy strategy : strategie) {
+            List<Task> riferimento = new ArrayList<>(tasks);
+            riferimento.sort(strategy.comparatore());
+            assertEquals(riferimento, strategy.ordina(tasks));
+        }
+    }
+
+    /**
+     * Verifica che l'ordinamento per conteggio di priorità e completamento mantenga
+     * l'ordine di partenza tra le task con la stessa chiave. L'ordinamento per completamento
+     * restituisce una lista modificabile, come prima dell'ordinamento per conteggio.
+     */
+    @Test
+    public void testOrdinamentoPerConteggioStabile() {
+        Task a = new Task("A", "Test", LocalDate.of(2025, 7, 1), Priorita.BASSA);
+        Task b = new Task("B", "Test", LocalDate.of(2025, 7, 1), Priorita.ALTA);
+        Task c = new Task("C", "Test", LocalDate.of(2025, 7, 1), Priorita.BASSA);
+        Task d = new Task("D", "Test", LocalDate.of(2025, 7, 1), Priorita.ALTA);
+        Task e = new Task("E", "Test", LocalDate.of(2025, 7, 1), Priorita.MEDIA);
+        b.completaTask();
+        c.completaTask();
+        List<Task> tasks = List.of(a, b, c, d, e);
+
+        List<Task> perPriorita = new OrdinaPerPriorita().ordina(tasks);
+        List<Task> perCompletamento = new OrdinaPerCompletamento().ordina(tasks);
+        List<Task> attesiPerPriorita = List.of(b, d, e, a, c);
+        List<Task> attesiPerCompletamento = List.of(a, d, e, b, c);
+        for (int i = 0; i < tasks.size(); i++) {
+            assertSame(attesiPerPriorita.get(i), perPriorita.get(i));
+            assertSame(attesiPerCompletamento.get(i), perCompletamento.get(i));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> perPriorita.set(0, a));
+        perCompletamento.add(a);
+        assertEquals(tasks.size() + 1, perCompletamento.size());
+    }
 }
@@ -0,0 +1,215 @@
+package test;
+
+import model.*;
+import service.TaskManager;
+import util.TaskJournal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link TaskJournal}, che rende persistente un {@link TaskManager}
+ * registrando le singole modifiche in un journal append-only.
+ * <p>
+ * I test verificano il ripristino dello stato dopo la riapertura, anche per le modifiche
+ * interne alle gerarchie di {@link CompositeTask}, la compattazione
+ * in uno snapshot, anche durante la ripetizione di una transazione, e la tolleranza
+ * a un record finale incompleto.
+ * </p>
+ * 
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class TaskJournalTest {
+
+    /** Directory temporanea per i file del journal */
+    @TempDir
+    Path cartella;
+
+    /**
+     * Verifica che aggiunte, rimozioni e completamenti registrati nel journal
+     * vengano riprodotti in un nuovo manager alla riapertura.
+     *
+     * @throws IOException in caso di errore sui file del journal
+     */
+    @Test
+    public void testRipristinoDopoRiapertura() throws IOException {
+        String base = cartella.resolve("tasks").toString();
+        TaskManager manager = new TaskManager();
+        try (TaskJournal journal = TaskJournal.apri(manager, base)) {
+            manager.aggiungiTask(new Task("Uno", "Desc", LocalDate.of(2025, 7, 1), Priorita.ALTA));
+            manager.aggiungiTask(new Task("Due", "Desc", LocalDate.of(2025, 7, 2), Priorita.BASSA));
+            manager.aggiungiTask(new Task("Tre", "Desc", LocalDate.of(2025, 7, 3), Priorita.MEDIA));
+            manager.rimuoviTask(manager.trovaPerTitolo("Due"));
+            manager.trovaPerTitolo("Tre").completaTask();
+            journal.sincronizza();
+        }
+
+        TaskManager ripristinato = ripristina(base);
+        assertEquals(2, ripristinato.getNumeroTasks());
+        assertEquals("Uno", ripristinato.getTutti().get(0).getTitolo());
+        assertNull(ripristinato.trovaPerTitolo("Due"));
+        assertTrue(ripristinato.trovaPerTitolo("Tre").isCompletato());
+    }
+
+    /**
+     * Verifica che superata la soglia venga scritto uno snapshot, che i journal
+     * inglobati vengano eliminati e che lo stato venga comunque ripristinato.
+     *
+     * @throws IOException in caso di errore sui file del journal
+     */
+    @Test
+    public void testCompattazione() throws IOException {
+        String base = cartella.resolve("tasks").toString();
+        TaskManager manager = new TaskManager();
+        try (TaskJournal journal = TaskJournal.apri(manager, base, 10)) {
+            for (int i = 0; i < 35; i++) {
+                manager.aggiungiTask(new Task("T" + i, "Desc", LocalDate.of(2025, 7, 1), Priorita.MEDIA));
+            }
+            manager.rimuoviTask(manager.trovaPerTitolo("T0"));
+            journal.sincronizza();
+        }
+        assertTrue(Files.exists(Path.of(base + ".snapshot")));
+        assertFalse(Files.exists(Path.of(base + ".journal.0")));
+
+        TaskManager ripristinato = ripristina(base);
+        assertEquals(34, ripristinato.getNumeroTasks());
+        assertEquals("T1", ripristinato.getTutti().get(0).getTitolo());
+    }
+
+    /**
+     * Verifica che un record finale incompleto, come quello lasciato da
+     * un'interruzione improvvisa, venga scartato senza perdere i record precedenti.
+     *
+     * @throws IOException in caso di errore sui file del journal
+     */
+    @Test
+    public void testRecordIncompleto() throws IOException {
+        String base = cartella.resolve("tasks").toString();
+        TaskManager manager = new TaskManager();
+        try (TaskJournal journal = TaskJournal.apri(manager, base)) {
+            manager.aggiungiTask(new Task("Salvato", "Desc", LocalDate.of(2025, 7, 1), Priorita.ALTA));
+            journal.sincronizza();
+        }
+        Files.write(Path.of(base + ".journal.0"), new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        TaskManager ripristinato = new TaskManager();
+        try (TaskJournal journal = TaskJournal.apri(ripristinato, base)) {
+            assertEquals(1, ripristinato.getNumeroTasks());
+            ripristinato.aggiungiTask(new Task("Nuovo", "Desc", LocalDate.of(2025, 7, 2), Priorita.BASSA));
+            journal.sincronizza();
+        }
+
+        assertEquals(2, ripristina(base).getNumeroTasks());
+    }
+
+    /**
+     * Verifica che la riproduzione sia idempotente: record ripetuti, come quelli già
+     * inglobati in uno snapshot, non impediscono la riapertura del journal.
+     *
+     * @throws IOException in caso di errore sui file del journal
+     */
+    @Test
+    public void testRiproduzioneIdempotente() throws IOException {
+        String base = cartella.resolve("tasks").toString();
+        TaskManager manager = new TaskManager();
+        try (TaskJournal journal = TaskJournal.apri(manager, base)) {
+            manager.aggiungiTask(new Task("Uno", "Desc", LocalDate.of(2025, 7, 1), Priorita.ALTA));
+            manager.aggiungiTask(new Task("Due", "Desc", LocalDate.of(2025, 7, 2), Priorita.BASSA));
+            manager.rimuoviTask(manager.trovaPerTitolo("Uno"));
+            journal.sincronizza();
+        }
+        Path file = Path.of(base + ".journal.0");
+        Files.write(file, Files.readAllBytes(file), StandardOpenOption.APPEND);
+
+        TaskManager ripristinato = ripristina(base);
+        assertEquals(1, ripristinato.getNumeroTasks());
+        assertNull(ripristinato.trovaPerTitolo("Uno"));
+        assertNotNull(ripristinato.trovaPerTitolo("Due"));
+    }
+
+    /**
+     * Verifica che ripetere una transazione che supera la soglia di compattazione lasci
+     * snapshot e journal coerenti, così che il manager venga ripristinato alla riapertura.
+     *
+     * @throws IOException in caso di errore sui file del journal
+     */
+    @Test
+    public void testCompattazioneDopoRipetizione() throws IOException {
+        String base = cartella.resolve("tasks").toString();
+        TaskManager manager = new TaskManager();
+        try (TaskJournal journal = TaskJournal.apri(manager, base, 10)) {
+            manager.eseguiTransazione(() -> {
+                for (int i = 0; i < 8; i++) {
+                    manager.aggiungiTask(new Task("T" + i, "Desc", LocalDate.of(2025, 7, 1), Priorita.MEDIA));
+                }
+            });
+            assertTrue(manager.annulla());
+            assertTrue(manager.ripeti());
+            journal.sincronizza();
+        }
+        assertTrue(Files.exists(Path.of(base + ".snapshot")));
+
+        TaskManager ripristinato = ripristina(base);
+        assertEquals(8, ripristinato.getNumeroTasks());
+        assertEquals("T0", ripristinato.getTutti().get(0).getTitolo());
+    }
+
+    /**
+     * Verifica che completamenti di sottotask e aggiunte o rimozioni di sottotask in una
+     * gerarchia già gestita vengano registrati e riprodotti alla riapertura.
+     *
+     * @throws IOException in caso di errore sui file del journal
+     */
+    @Test
+    public void testModificheGerarchie() throws IOException {
+        String base = cartella.resolve("tasks").toString();
+        TaskManager manager = new TaskManager();
+        try (TaskJournal journal = TaskJournal.apri(manager, base)) {
+            CompositeTask progetto = new CompositeTask("Progetto", "Desc", LocalDate.of(2025, 7, 1), Priorita.ALTA);
+            CompositeTask fase = new CompositeTask("Fase", "Desc", LocalDate.of(2025, 7, 2), Priorita.MEDIA);
+            fase.addSubtask(new Task("A", "Desc", LocalDate.of(2025, 7, 3), Priorita.BASSA));
+            progetto.addSubtask(fase);
+            manager.aggiungiTask(progetto);
+
+            fase.addSubtask(new Task("B", "Desc", LocalDate.of(2025, 7, 4), Priorita.BASSA));
+            fase.addSubtask(new Task("C", "Desc", LocalDate.of(2025, 7, 5), Priorita.BASSA));
+            fase.getSubtask(1).completaTask();
+            fase.removeSubtask(fase.getSubtask(0));
+            progetto.addSubtask(new CompositeTask("Vuota", "Desc", LocalDate.of(2025, 7, 6), Priorita.MEDIA));
+            ((CompositeTask) progetto.getSubtask(1)).completaTask();
+            journal.sincronizza();
+        }
+
+        CompositeTask progetto = (CompositeTask) ripristina(base).trovaPerTitolo("Progetto");
+        assertEquals(2, progetto.getNumeroSubtasks());
+        CompositeTask fase = (CompositeTask) progetto.getSubtask(0);
+        assertEquals(2, fase.getNumeroSubtasks());
+        assertEquals("B", fase.getSubtask(0).getTitolo());
+        assertTrue(fase.getSubtask(0).isCompletato());
+        assertFalse(fase.getSubtask(1).isCompletato());
+        assertTrue(((CompositeTask) progetto.getSubtask(1)).isCompletatoDirettamente());
+        assertFalse(progetto.isCompletato());
+    }
+
+    /**
+     * Ripristina lo stato salvato in un nuovo manager, chiudendo subito il journal.
+     *
+     * @param base il percorso base dei file del journal
+     * @return il manager ripristinato
+     * @throws IOException in caso di errore sui file del journal
+     */
+    private static TaskManager ripristina(String base) throws IOException {
+        TaskManager manager = new TaskManager();
+        TaskJournal.apri(manager, base).close();
+        return manager;
+    }
+}
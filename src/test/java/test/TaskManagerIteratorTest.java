@@ -79,6 +79,32 @@ public class TaskManagerIteratorTest {
         assertTrue(collected.contains(t2));
     }
     
+    /**
+     * Verifica che iteratori e viste restituiti dal manager siano istantanee immutabili,
+     * non influenzate da aggiunte e rimozioni successive.
+     */
+    @Test
+    public void testIstantanee() {
+        TaskManager manager = new TaskManager();
+        Task t1 = new Task("Task1", "Desc", LocalDate.now(), Priorita.ALTA);
+        Task t2 = new Task("Task2", "Desc", LocalDate.now(), Priorita.MEDIA);
+        Task t3 = new Task("Task3", "Desc", LocalDate.now(), Priorita.BASSA);
+        manager.aggiungiTask(t1);
+        manager.aggiungiTask(t2);
+
+        Iterator<Task> iterator = manager.iterator();
+        List<Task> vista = manager.getTutti();
+        manager.rimuoviTask(t1);
+        manager.aggiungiTask(t3);
+
+        assertEquals(t1, iterator.next());
+        assertEquals(t2, iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(List.of(t1, t2), vista);
+        assertEquals(List.of(t2, t3), manager.getTutti());
+        assertThrows(UnsupportedOperationException.class, () -> vista.add(t3));
+    }
+
     /**
      * Verifica che il metodo {@link TaskManager#getTuttiConSubtasks()} restituisca
      * tutti i task, includendo quelli annidati in {@link CompositeTask}.
@@ -98,5 +124,30 @@ public class TaskManagerIteratorTest {
         assertEquals(2, tutti.size());
         assertTrue(tutti.contains(composite));
         assertTrue(tutti.contains(subtask));
+        tutti.add(new Task("Aggiunto", "Desc", LocalDate.now(), Priorita.BASSA));
+        assertEquals(3, tutti.size());
+    }
+
+    /**
+     * Verifica che {@link TaskManager#iteratoreConSubtasks()} e
+     * {@link TaskManager#streamConSubtasks()} visitino la gerarchia nello stesso ordine
+     * di {@link TaskManager#getTuttiConSubtasks()}, permettendo di fermarsi prima della fine.
+     */
+    @Test
+    public void testIteratoreConSubtasks() {
+        TaskManager manager = new TaskManager();
+        CompositeTask composite = new CompositeTask("Composite", "Desc", LocalDate.now(), Priorita.ALTA);
+        Task subtask = new Task("Subtask", "Desc", LocalDate.now(), Priorita.MEDIA);
+        Task altro = new Task("Altro", "Desc", LocalDate.now(), Priorita.BASSA);
+        composite.addSubtask(subtask);
+        manager.aggiungiTask(composite);
+        manager.aggiungiTask(altro);
+
+        List<Task> visitati = new ArrayList<>();
+        manager.iteratoreConSubtasks().forEachRemaining(visitati::add);
+        assertEquals(manager.getTuttiConSubtasks(), visitati);
+        assertEquals(List.of(composite, subtask, altro), visitati);
+        assertEquals(subtask, manager.streamConSubtasks()
+                .filter(t -> t.getPriorita() == Priorita.MEDIA).findFirst().orElse(null));
     }
-}
\ No newline at end of file
+}
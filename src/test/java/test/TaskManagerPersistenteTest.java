@@ -0,0 +1,154 @@
+package test;
+
+import model.*;
+import service.TaskManager;
+import service.TaskManagerPersistente;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link TaskManagerPersistente}, il gestore che conserva
+ * le versioni immutabili dei propri task.
+ * <p>
+ * I test confrontano ogni versione con lo stato di un {@link TaskManager} ordinario
+ * sottoposto alle stesse modifiche, anche con titoli che hanno lo stesso hash.
+ * </p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class TaskManagerPersistenteTest {
+
+    /**
+     * Verifica che ogni versione conservata mantenga i task, l'ordine di inserimento
+     * e lo stato di completamento del momento in cui è stata creata.
+     */
+    @Test
+    public void testVersioni() {
+        Random random = new Random(13);
+        TaskManagerPersistente persistente = new TaskManagerPersistente(3_000);
+        TaskManager riferimento = new TaskManager();
+        List<List<String>> attesi = new ArrayList<>();
+        List<List<Boolean>> completamenti = new ArrayList<>();
+        attesi.add(List.of());
+        completamenti.add(List.of());
+
+        for (int i = 0; i < 4_000; i++) {
+            // "Aa" e "BB" hanno lo stesso hashCode, così i titoli collidono a coppie
+            String titolo = (random.nextBoolean() ? "Aa" : "BB") + random.nextInt(300);
+            Task esistente = riferimento.trovaPerTitolo(titolo);
+            if (esistente == null) {
+                Task t = new Task(titolo, "Desc", LocalDate.of(2025, 1, 1), Priorita.MEDIA);
+                persistente.aggiungiTask(t);
+                riferimento.aggiungiTask(new Task(titolo, "Desc", LocalDate.of(2025, 1, 1), Priorita.MEDIA));
+            } else if (!esistente.isCompletato() && random.nextBoolean()) {
+                assertTrue(persistente.completaTask(esistente));
+                riferimento.completaTask(esistente);
+            } else {
+                persistente.rimuoviTask(esistente);
+                riferimento.rimuoviTask(esistente);
+            }
+            List<String> titoli = new ArrayList<>();
+            List<Boolean> stati = new ArrayList<>();
+            for (Task t : riferimento) {
+                titoli.add(t.getTitolo());
+                stati.add(t.isCompletato());
+            }
+            attesi.add(titoli);
+            completamenti.add(stati);
+        }
+
+        long ultima = persistente.getVersioneCorrente().getNumero();
+        assertEquals(attesi.size() - 1, ultima);
+        long primaConservata = ultima - 2_999;
+        assertThrows(IllegalArgumentException.class, () -> persistente.getVersione(primaConservata - 1));
+        for (long n = primaConservata; n <= ultima; n++) {
+            TaskManagerPersistente.Versione versione = persistente.getVersione(n);
+            List<String> titoli = new ArrayList<>();
+            List<Boolean> stati = new ArrayList<>();
+            for (Task t : versione) {
+                titoli.add(t.getTitolo());
+                stati.add(t.isCompletato());
+                Task trovato = versione.trovaPerTitolo(t.getTitolo());
+                assertEquals(t, trovato);
+                assertEquals(t.isCompletato(), trovato.isCompletato());
+            }
+            assertEquals(attesi.get((int) n), titoli);
+            assertEquals(completamenti.get((int) n), stati);
+            assertEquals(titoli.size(), versione.getNumeroTasks());
+            assertEquals(versione.getTutti(), titoli.stream().map(versione::trovaPerTitolo).collect(Collectors.toList()));
+        }
+        assertEquals(riferimento.getNumeroTasks(), persistente.getNumeroTasks());
+    }
+
+    /**
+     * Verifica i casi non validi: titoli duplicati o null, task composite e versioni non più conservate.
+     */
+    @Test
+    public void testCasiNonValidi() {
+        TaskManagerPersistente manager = new TaskManagerPersistente(2);
+        Task t = new Task("Test", "Desc", LocalDate.now(), Priorita.ALTA);
+        manager.aggiungiTask(t);
+        manager.completaTask(t);
+
+        assertFalse(t.isCompletato());
+        assertTrue(manager.trovaPerTitolo("Test").isCompletato());
+        assertFalse(manager.getVersione(1).trovaPerTitolo("Test").isCompletato());
+        assertThrows(IllegalArgumentException.class, () -> manager.getVersione(0));
+        assertThrows(IllegalArgumentException.class, () -> manager.getVersione(3));
+        assertThrows(IllegalArgumentException.class, () -> manager.aggiungiTask(t));
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.aggiungiTask(new Task(null, "Desc", LocalDate.now(), Priorita.BASSA));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.aggiungiTask(new CompositeTask("Composita", "Desc", LocalDate.now(), Priorita.BASSA));
+        });
+    }
+
+    /**
+     * Verifica che le versioni non cambino modificando i task aggiunti o quelli restituiti,
+     * anche quando il task aggiunto è il sottotask di una task composita o quello restituito
+     * viene inserito in una task composita e completato con essa.
+     */
+    @Test
+    public void testVersioniIsolateDaiTask() {
+        TaskManagerPersistente manager = new TaskManagerPersistente();
+        CompositeTask padre = new CompositeTask("Padre", "Desc", LocalDate.now(), Priorita.ALTA);
+        Task figlio = new Task("Figlio", "Desc", LocalDate.now(), Priorita.MEDIA);
+        padre.addSubtask(figlio);
+        manager.aggiungiTask(figlio);
+        TaskManagerPersistente.Versione versione = manager.getVersioneCorrente();
+
+        Task gestito = manager.trovaPerTitolo("Figlio");
+        assertNotSame(figlio, gestito);
+        assertNull(gestito.getPadre());
+        padre.completaTask();
+        assertTrue(figlio.isCompletato());
+        assertFalse(gestito.isCompletato());
+        gestito.completaTask();
+        assertTrue(gestito.isCompletato());
+        assertFalse(versione.trovaPerTitolo("Figlio").isCompletato());
+
+        CompositeTask contenitore = new CompositeTask("Contenitore", "Desc", LocalDate.now(), Priorita.BASSA);
+        Task restituito = versione.iterator().next();
+        contenitore.addSubtask(restituito);
+        contenitore.addSubtask(versione.getTutti().get(0));
+        contenitore.completaTask();
+        assertTrue(restituito.isCompletato());
+        assertSame(contenitore, restituito.getPadre());
+        Task riletto = versione.trovaPerTitolo("Figlio");
+        assertNotSame(restituito, riletto);
+        assertNull(riletto.getPadre());
+        assertFalse(riletto.isCompletato());
+        assertFalse(manager.trovaPerTitolo("Figlio").isCompletato());
+
+        assertTrue(manager.completaTask(gestito));
+        assertTrue(manager.trovaPerTitolo("Figlio").isCompletato());
+        assertFalse(versione.trovaPerTitolo("Figlio").isCompletato());
+    }
+}
@@ -2,10 +2,15 @@ package test;
 
 import model.*;
 import service.TaskManager;
+import service.TaskManagerListener;
+import service.VistaOrdinata;
+import strategy.*;
 import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Classe di test per {@link TaskManager}, che rappresenta il gestore centrale
@@ -50,4 +55,212 @@ public class TaskManagerTest {
         assertEquals(1, filtrati.size());
         assertEquals("Alta", filtrati.get(0).getTitolo());
     }
+
+    /**
+     * Verifica che {@link TaskManager#filtraPerScadenza(LocalDate, LocalDate)}
+     * restituisca solo i task nell'intervallo, ordinati per data di scadenza.
+     */
+    @Test
+    public void testFiltroScadenza() {
+        TaskManager manager = new TaskManager();
+        LocalDate oggi = LocalDate.of(2025, 7, 1);
+        manager.aggiungiTask(new Task("Dopo", "Desc", oggi.plusDays(10), Priorita.BASSA));
+        manager.aggiungiTask(new Task("Domani", "Desc", oggi.plusDays(1), Priorita.MEDIA));
+        manager.aggiungiTask(new Task("Oggi", "Desc", oggi, Priorita.ALTA));
+
+        List<Task> filtrati = manager.filtraPerScadenza(oggi, oggi.plusDays(1));
+        assertEquals(2, filtrati.size());
+        assertEquals("Oggi", filtrati.get(0).getTitolo());
+        assertEquals("Domani", filtrati.get(1).getTitolo());
+    }
+
+    /**
+     * Verifica che gli indici vengano aggiornati quando un task viene completato
+     * dopo l'inserimento, anche tramite i subtask di un {@link CompositeTask},
+     * e quando viene rimosso.
+     */
+    @Test
+    public void testIndiceCompletamento() {
+        TaskManager manager = new TaskManager();
+        Task semplice = new Task("Semplice", "Desc", LocalDate.now(), Priorita.ALTA);
+        CompositeTask composito = new CompositeTask("Composito", "Desc", LocalDate.now(), Priorita.ALTA);
+        Task subtask = new Task("Subtask", "Desc", LocalDate.now(), Priorita.MEDIA);
+        composito.addSubtask(subtask);
+        manager.aggiungiTask(semplice);
+        manager.aggiungiTask(composito);
+
+        assertEquals(2, manager.getDaCompletare().size());
+        assertTrue(manager.getCompletati().isEmpty());
+
+        semplice.completaTask();
+        subtask.completaTask();
+        assertEquals(List.of(semplice, composito), manager.getCompletati());
+        assertTrue(manager.getDaCompletare().isEmpty());
+
+        manager.rimuoviTask(semplice);
+        assertEquals(List.of(composito), manager.getCompletati());
+        assertTrue(manager.filtraPerPriorita(Priorita.ALTA).contains(composito));
+        assertFalse(manager.filtraPerPriorita(Priorita.ALTA).contains(semplice));
+    }
+
+    /**
+     * Verifica che {@link TaskManager#svuota()} stacchi il manager dai task, che non gli
+     * notificano più i cambi di completamento, e che lo svuotamento possa essere annullato.
+     */
+    @Test
+    public void testSvuota() {
+        TaskManager manager = new TaskManager();
+        Task condiviso = new Task("Condiviso", "Desc", LocalDate.now(), Priorita.ALTA);
+        manager.aggiungiTask(condiviso);
+        manager.aggiungiTask(new Task("Altro", "Desc", LocalDate.now(), Priorita.BASSA));
+        List<Task> notificati = new ArrayList<>();
+        manager.aggiungiListener(new TaskManagerListener() {
+            @Override
+            public void completamentoCambiato(Task task) {
+                notificati.add(task);
+            }
+        });
+
+        manager.svuota();
+        condiviso.completaTask();
+        assertEquals(0, manager.getNumeroTasks());
+        assertTrue(notificati.isEmpty());
+        assertTrue(manager.getCompletati().isEmpty());
+
+        assertTrue(manager.annulla());
+        assertEquals(2, manager.getNumeroTasks());
+        assertEquals(List.of(condiviso), manager.getCompletati());
+    }
+
+    /**
+     * Verifica la ricerca per titolo tramite {@link TaskManager#trovaPerTitolo(String)},
+     * il rifiuto dei titoli duplicati e che le rimozioni non alterino
+     * l'ordine di inserimento dei task rimanenti.
+     */
+    @Test
+    public void testRicercaERimozionePerTitolo() {
+        TaskManager manager = new TaskManager();
+        for (int i = 0; i < 100; i++) {
+            manager.aggiungiTask(new Task("T" + i, "Desc", LocalDate.now(), Priorita.MEDIA));
+        }
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.aggiungiTask(new Task("T5", "Duplicato", LocalDate.now(), Priorita.ALTA));
+        });
+
+        for (int i = 0; i < 100; i += 2) {
+            manager.rimuoviTask(new Task("T" + i, null, null, null));
+        }
+        assertEquals(50, manager.getNumeroTasks());
+        assertNull(manager.trovaPerTitolo("T4"));
+        assertEquals("T5", manager.trovaPerTitolo("T5").getTitolo());
+
+        List<Task> tutti = manager.getTutti();
+        for (int i = 0; i < tutti.size(); i++) {
+            assertEquals("T" + (2 * i + 1), tutti.get(i).getTitolo());
+        }
+    }
+
+    /**
+     * Verifica che le viste ordinate restino allineate all'ordinamento completo
+     * dopo aggiunte, rimozioni e cambi di completamento, e che smettano di
+     * aggiornarsi dopo la chiusura.
+     */
+    @Test
+    public void testVisteOrdinate() {
+        TaskManager manager = new TaskManager();
+        Random random = new Random(3);
+        Priorita[] priorita = Priorita.values();
+        for (int i = 0; i < 200; i++) {
+            manager.aggiungiTask(new Task("T" + i, "Desc", LocalDate.of(2025, 7, 1 + random.nextInt(5)),
+                    priorita[random.nextInt(priorita.length)]));
+        }
+        List<TaskSortStrategy> strategie = List.of(new OrdinaPerScadenza(), new OrdinaPerPriorita(), new OrdinaPerCompletamento());
+        List<VistaOrdinata> viste = new ArrayList<>();
+        for (TaskSortStrategy strategia : strategie) {
+            viste.add(manager.vistaOrdinata(strategia));
+        }
+
+        for (int i = 0; i < 300; i++) {
+            Task t = manager.trovaPerTitolo("T" + random.nextInt(250));
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    if (t == null) {
+                        manager.aggiungiTask(new Task("N" + i, "Desc", LocalDate.of(2025, 7, 1 + random.nextInt(5)),
+                                priorita[random.nextInt(priorita.length)]));
+                    } else {
+                        manager.rimuoviTask(t);
+                    }
+                }
+                case 1 -> manager.completaTask(t);
+                default -> manager.aggiungiTask(new Task("M" + i, "Desc", LocalDate.of(2025, 7, 3), Priorita.MEDIA));
+            }
+        }
+        for (int i = 0; i < strategie.size(); i++) {
+            assertEquals(strategie.get(i).ordina(manager.getTutti()), new ArrayList<>(viste.get(i)));
+        }
+        assertEquals(strategie.get(1).ordina(manager.getTutti()).get(0), viste.get(1).getPrimo());
+
+        VistaOrdinata chiusa = viste.get(0);
+        chiusa.close();
+        int dimensione = chiusa.size();
+        manager.aggiungiTask(new Task("Dopo", "Desc", LocalDate.now(), Priorita.ALTA));
+        assertEquals(dimensione, chiusa.size());
+    }
+
+    /**
+     * Verifica che le transazioni vengano annullate e ripetute in blocco, mantenendo coerenti
+     * elenco e indici, e che una transazione fallita non lasci modifiche parziali.
+     */
+    @Test
+    public void testTransazioniAnnullabili() {
+        TaskManager manager = new TaskManager();
+        Task base = new Task("Base", "Desc", LocalDate.of(2025, 7, 1), Priorita.ALTA);
+        manager.aggiungiTask(base);
+        Task daRimuovere = new Task("Rimossa", "Desc", LocalDate.of(2025, 7, 2), Priorita.BASSA);
+        manager.aggiungiTask(daRimuovere);
+        manager.svuotaCronologia();
+        assertFalse(manager.annulla());
+
+        manager.eseguiTransazione(() -> {
+            for (int i = 0; i < 1000; i++) {
+                manager.aggiungiTask(new Task("T" + i, "Desc", LocalDate.of(2025, 7, 1), Priorita.MEDIA));
+            }
+            manager.rimuoviTask(daRimuovere);
+        });
+        assertEquals(1001, manager.getNumeroTasks());
+        assertEquals(1000, manager.filtraPerPriorita(Priorita.MEDIA).size());
+
+        assertTrue(manager.annulla());
+        assertEquals(List.of(base, daRimuovere), manager.getTutti());
+        assertTrue(manager.filtraPerPriorita(Priorita.MEDIA).isEmpty());
+        assertEquals(List.of(base), manager.filtraPerScadenza(LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 1)));
+
+        assertTrue(manager.ripeti());
+        assertEquals(1001, manager.getNumeroTasks());
+        assertNull(manager.trovaPerTitolo("Rimossa"));
+        assertFalse(manager.ripeti());
+
+        manager.completaTask(base);
+        assertEquals(List.of(base), manager.getCompletati());
+        manager.rimuoviTask(base);
+        assertTrue(manager.annulla());
+        assertSame(base, manager.trovaPerTitolo("Base"));
+        assertEquals(List.of(base), manager.getCompletati());
+
+        int prima = manager.getNumeroTasks();
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.eseguiTransazione(() -> {
+                manager.aggiungiTask(new Task("Nuova", "Desc", LocalDate.now(), Priorita.BASSA));
+                manager.rimuoviTask(base);
+                manager.aggiungiTask(new Task("T0", "Duplicata", LocalDate.now(), Priorita.BASSA));
+            });
+        });
+        assertEquals(prima, manager.getNumeroTasks());
+        assertNull(manager.trovaPerTitolo("Nuova"));
+        assertSame(base, manager.trovaPerTitolo("Base"));
+
+        manager.iniziaTransazione();
+        assertThrows(IllegalStateException.class, manager::annulla);
+        manager.confermaTransazione();
+    }
 }
@@ -1,13 +1,20 @@
 package test;
 
+import memento.CronologiaDelta;
+import memento.CronologiaSuDisco;
 import memento.TaskCaretaker;
 import memento.TaskMemento;
 import model.Priorita;
 import model.Task;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,4 +50,161 @@ public class TaskMementoTest {
         TaskMemento ripristinato = caretaker.annulla();
         assertFalse(ripristinato.getStatoSalvato().isCompletato());
     }
+
+    /**
+     * Verifica che {@link CronologiaDelta} restituisca, in una sequenza casuale di salvataggi,
+     * annullamenti e ripetizioni su più task, gli stessi stati di una cronologia di copie complete.
+     */
+    @Test
+    public void testCronologiaDelta() {
+        Random random = new Random(9);
+        CronologiaDelta cronologia = new CronologiaDelta(64, Long.MAX_VALUE);
+        Map<String, Task> correnti = new HashMap<>();
+        for (String titolo : List.of("A", "B", "C")) {
+            correnti.put(titolo, new Task(titolo, "desc", LocalDate.of(2025, 1, 1), Priorita.MEDIA));
+        }
+        Deque<Task> daAnnullare = new ArrayDeque<>();
+        Deque<Task> daRipetere = new ArrayDeque<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            int operazione = random.nextInt(4);
+            if (operazione <= 1) {
+                Task t = correnti.get(List.of("A", "B", "C").get(random.nextInt(3)));
+                cronologia.salva(new TaskMemento(t));
+                daAnnullare.push(t);
+                if (daAnnullare.size() > 64) {
+                    daAnnullare.removeLast();
+                }
+                daRipetere.clear();
+                Task modificata = new Task(t.getTitolo(), random.nextBoolean() ? "desc " + i : t.getDescrizione(),
+                        t.getScadenza().plusDays(random.nextInt(2)), Priorita.values()[random.nextInt(3)]);
+                if (random.nextBoolean()) {
+                    modificata.completaTask();
+                }
+                correnti.put(t.getTitolo(), modificata);
+            } else {
+                Deque<Task> origine = operazione == 2 ? daAnnullare : daRipetere;
+                Deque<Task> destinazione = operazione == 2 ? daRipetere : daAnnullare;
+                String titolo = operazione == 2 ? cronologia.getTitoloDaAnnullare() : cronologia.getTitoloDaRipetere();
+                if (origine.isEmpty()) {
+                    assertNull(titolo);
+                    continue;
+                }
+                Task atteso = origine.pop();
+                assertEquals(atteso.getTitolo(), titolo);
+                Task corrente = correnti.get(titolo);
+                TaskMemento memento = new TaskMemento(corrente);
+                Task ripristinato = (operazione == 2 ? cronologia.annulla(memento) : cronologia.ripeti(memento)).getStatoSalvato();
+                destinazione.push(corrente);
+                assertEquals(atteso.getDescrizione(), ripristinato.getDescrizione());
+                assertEquals(atteso.getScadenza(), ripristinato.getScadenza());
+                assertEquals(atteso.getPriorita(), ripristinato.getPriorita());
+                assertEquals(atteso.isCompletato(), ripristinato.isCompletato());
+                correnti.put(titolo, ripristinato);
+            }
+            assertEquals(daAnnullare.size() + daRipetere.size(), cronologia.getNumeroVoci());
+        }
+
+        Task a = correnti.get("A");
+        assertThrows(IllegalArgumentException.class, () -> {
+            new CronologiaDelta(0, 1);
+        });
+        CronologiaDelta limitata = new CronologiaDelta(1000, 4096);
+        for (int i = 0; i < 1000; i++) {
+            limitata.salva(new TaskMemento(new Task("A", "descrizione " + i, a.getScadenza(), a.getPriorita())));
+            assertTrue(limitata.getByteStimati() <= 4096);
+        }
+        assertTrue(limitata.getNumeroVoci() < 1000);
+    }
+
+    /**
+     * Verifica che un salvataggio dopo aver annullato tutte le modifiche di una task
+     * scarti le sue voci da ripetere e riparta da uno stato coerente.
+     */
+    @Test
+    public void testCronologiaDeltaSalvataggioDopoAnnullamenti() {
+        CronologiaDelta cronologia = new CronologiaDelta();
+        Task a = new Task("A", "desc", LocalDate.of(2025, 1, 1), Priorita.MEDIA);
+        Task modificata = new Task("A", "desc modificata", LocalDate.of(2025, 1, 2), Priorita.ALTA);
+        Task finale = new Task("A", "desc finale", LocalDate.of(2025, 1, 3), Priorita.BASSA);
+
+        cronologia.salva(new TaskMemento(a));
+        cronologia.salva(new TaskMemento(modificata));
+        assertEquals("desc modificata", cronologia.annulla(new TaskMemento(finale)).getStatoSalvato().getDescrizione());
+        assertEquals("desc", cronologia.annulla(new TaskMemento(modificata)).getStatoSalvato().getDescrizione());
+        cronologia.salva(new TaskMemento(a));
+
+        assertEquals(1, cronologia.getNumeroVoci());
+        assertNull(cronologia.getTitoloDaRipetere());
+        Task ripristinato = cronologia.annulla(new TaskMemento(modificata)).getStatoSalvato();
+        assertEquals("desc", ripristinato.getDescrizione());
+        assertEquals(Priorita.MEDIA, ripristinato.getPriorita());
+        assertNull(cronologia.annulla(new TaskMemento(a)));
+    }
+
+    /**
+     * Verifica che {@link CronologiaSuDisco} restituisca gli stati in ordine inverso anche quando
+     * la maggior parte è stata spostata su disco, alternando salvataggi e annullamenti.
+     */
+    @Test
+    public void testCronologiaSuDisco(@TempDir Path cartella) throws IOException {
+        Path file = cartella.resolve("cronologia.bin");
+        Deque<Task> atteso = new ArrayDeque<>();
+        try (CronologiaSuDisco cronologia = new CronologiaSuDisco(file, 8)) {
+            assertNull(cronologia.annulla());
+            int numero = 0;
+            for (int giro = 0; giro < 3; giro++) {
+                for (int i = 0; i < 1000; i++) {
+                    Task t = new Task("T" + numero, "desc " + numero, LocalDate.of(2025, 1, 1).plusDays(numero),
+                            Priorita.values()[numero % 3]);
+                    if (numero % 2 == 0) {
+                        t.completaTask();
+                    }
+                    numero++;
+                    cronologia.salva(new TaskMemento(t));
+                    atteso.push(t);
+                }
+                assertEquals(atteso.size(), cronologia.getNumeroStati());
+                for (int i = 0; i < 700; i++) {
+                    Task t = atteso.pop();
+                    Task ripristinato = cronologia.annulla().getStatoSalvato();
+                    assertEquals(t.getTitolo(), ripristinato.getTitolo());
+                    assertEquals(t.getDescrizione(), ripristinato.getDescrizione());
+                    assertEquals(t.getScadenza(), ripristinato.getScadenza());
+                    assertEquals(t.getPriorita(), ripristinato.getPriorita());
+                    assertEquals(t.isCompletato(), ripristinato.isCompletato());
+                }
+            }
+            while (!atteso.isEmpty()) {
+                assertEquals(atteso.pop().getTitolo(), cronologia.annulla().getStatoSalvato().getTitolo());
+            }
+            assertNull(cronologia.annulla());
+            assertTrue(Files.exists(file));
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Verifica che {@link CronologiaSuDisco} conservi lo stato delle task al momento in cui
+     * escono dalla memoria, anche se il chiamante le modifica mentre il lotto viene scritto su disco.
+     */
+    @Test
+    public void testCronologiaSuDiscoCodificaAllUscita(@TempDir Path cartella) throws IOException {
+        List<Task> salvati = new ArrayList<>();
+        try (CronologiaSuDisco cronologia = new CronologiaSuDisco(cartella.resolve("cronologia.bin"), 8)) {
+            for (int i = 0; i < CronologiaSuDisco.DIMENSIONE_LOTTO + 8; i++) {
+                Task t = new Task("T" + i, "desc", LocalDate.of(2025, 1, 1), Priorita.MEDIA);
+                cronologia.salva(new TaskMemento(t));
+                salvati.add(t);
+            }
+            for (Task t : salvati) {
+                t.completaTask();
+            }
+            for (int i = salvati.size() - 1; i >= 0; i--) {
+                Task ripristinato = cronologia.annulla().getStatoSalvato();
+                assertEquals("T" + i, ripristinato.getTitolo());
+                assertEquals(i >= CronologiaSuDisco.DIMENSIONE_LOTTO, ripristinato.isCompletato());
+            }
+        }
+    }
 }
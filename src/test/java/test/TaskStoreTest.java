@@ -0,0 +1,199 @@
+package test;
+
+import model.*;
+import service.TaskManager;
+import service.TaskStore;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per {@link TaskStore}, lo store colonnare dei task.
+ * <p>
+ * Verifica che filtri, ordinamenti e rimozioni sulle colonne diano gli stessi risultati
+ * delle stesse operazioni su una lista di oggetti {@link Task}.
+ * </p>
+ *
+ * @author Gian Luca Baccani
+ * @version 1.0
+ */
+public class TaskStoreTest {
+
+    /**
+     * Verifica scansioni, ordinamento per scadenza e rimozioni confrontandoli
+     * con una lista di task ordinaria.
+     */
+    @Test
+    public void testScansioniERimozioni() {
+        Random random = new Random(21);
+        Priorita[] priorita = Priorita.values();
+        TaskStore store = new TaskStore();
+        List<Task> riferimento = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // Le scadenze stanno a cavallo dell'epoca, così alcune hanno giorni negativi
+            LocalDate scadenza = random.nextInt(10) == 0 ? null : LocalDate.of(1969, 12, 1).plusDays(random.nextInt(60));
+            Priorita p = random.nextInt(10) == 0 ? null : priorita[random.nextInt(priorita.length)];
+            Task t = new Task("T" + i, "Descrizione " + random.nextInt(5), scadenza, p);
+            if (random.nextBoolean()) {
+                t.completaTask();
+            }
+            store.aggiungiTask(t);
+            riferimento.add(t);
+        }
+        for (int i = 0; i < 500; i++) {
+            Task rimosso = riferimento.remove(random.nextInt(riferimento.size()));
+            assertTrue(store.rimuoviTask(rimosso.getTitolo()));
+        }
+        assertFalse(store.rimuoviTask("Assente"));
+        assertEquals(riferimento.size(), store.getNumeroTasks());
+
+        for (Priorita p : new Priorita[] {Priorita.ALTA, null}) {
+            Set<String> attesi = riferimento.stream()
+                    .filter(t -> t.getPriorita() == p)
+                    .map(Task::getTitolo)
+                    .collect(Collectors.toSet());
+            assertEquals(attesi, store.filtraPerPriorita(p).stream().map(Task::getTitolo).collect(Collectors.toSet()));
+            assertEquals(attesi.size(), store.contaPerPriorita(p));
+        }
+
+        List<Task> ordinati = store.ordinaPerScadenza();
+        assertEquals(riferimento.size(), ordinati.size());
+        List<Task> atteso = new ArrayList<>(ordinati);
+        atteso.sort(Comparator.comparing(Task::getScadenza, Comparator.nullsLast(Comparator.naturalOrder())));
+        assertEquals(atteso, ordinati);
+
+        for (Task t : riferimento) {
+            Task vista = store.trovaPerTitolo(t.getTitolo());
+            assertEquals(t.getDescrizione(), vista.getDescrizione());
+            assertEquals(t.getScadenza(), vista.getScadenza());
+            assertEquals(t.getPriorita(), vista.getPriorita());
+            assertEquals(t.isCompletato(), vista.isCompletato());
+        }
+        assertEquals(riferimento.stream().filter(Task::isCompletato).count(), store.getCompletati().size());
+    }
+
+    /**
+     * Verifica che le viste leggano e scrivano il completamento nello store
+     * e che i casi non validi vengano rifiutati.
+     */
+    @Test
+    public void testVisteECasiNonValidi() {
+        TaskStore store = new TaskStore();
+        Task t = new Task("Test", "Desc", LocalDate.now(), Priorita.MEDIA);
+        store.aggiungiTask(t);
+        Task vista = store.trovaPerTitolo("Test");
+
+        assertFalse(vista.isCompletato());
+        store.completaTask("Test");
+        assertTrue(vista.isCompletato());
+        assertEquals(t, vista);
+        assertFalse(t.isCompletato());
+
+        assertThrows(IllegalArgumentException.class, () -> store.aggiungiTask(t));
+        assertThrows(IllegalArgumentException.class, () -> store.aggiungiTask(null));
+        assertThrows(IllegalArgumentException.class, () -> {
+            store.aggiungiTask(new Task("Lontano", "Desc", LocalDate.MAX, Priorita.BASSA));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            store.aggiungiTask(new CompositeTask("Composita", "Desc", LocalDate.now(), Priorita.BASSA));
+        });
+    }
+
+    /**
+     * Verifica che le scadenze precedenti al 1970 vengano ordinate prima delle successive
+     * e i task senza scadenza in fondo.
+     */
+    @Test
+    public void testOrdinamentoScadenzePrimaDellEpoca() {
+        TaskStore store = new TaskStore();
+        store.aggiungiTask(new Task("Nuovo", "Desc", LocalDate.of(2025, 1, 1), Priorita.MEDIA));
+        store.aggiungiTask(new Task("Senza", "Desc", null, Priorita.MEDIA));
+        store.aggiungiTask(new Task("Vecchio", "Desc", LocalDate.of(1960, 1, 1), Priorita.MEDIA));
+
+        List<String> titoli = store.ordinaPerScadenza().stream().map(Task::getTitolo).collect(Collectors.toList());
+        assertEquals(List.of("Vecchio", "Nuovo", "Senza"), titoli);
+        assertEquals(LocalDate.of(1960, 1, 1), store.trovaPerTitolo("Vecchio").getScadenza());
+    }
+
+    /**
+     * Verifica che completare una vista notifichi gli osservatori, aggiornando gli indici
+     * di un {@link TaskManager} e i contatori della task composita che la contiene.
+     */
+    @Test
+    public void testCompletamentoDelleViste() {
+        TaskStore store = new TaskStore();
+        store.aggiungiTask(new Task("Gestito", "Desc", LocalDate.now(), Priorita.ALTA));
+        store.aggiungiTask(new Task("Sottotask", "Desc", LocalDate.now(), Priorita.BASSA));
+
+        TaskManager manager = new TaskManager();
+        Task gestito = store.trovaPerTitolo("Gestito");
+        manager.aggiungiTask(gestito);
+        assertTrue(manager.completaTask(gestito));
+        assertEquals(List.of(gestito), manager.getCompletati());
+        assertTrue(manager.getDaCompletare().isEmpty());
+        assertTrue(store.trovaPerTitolo("Gestito").isCompletato());
+
+        CompositeTask padre = new CompositeTask("Padre", "Desc", LocalDate.now(), Priorita.MEDIA);
+        Task sottotask = store.trovaPerTitolo("Sottotask");
+        padre.addSubtask(sottotask);
+        List<Task> notificati = new ArrayList<>();
+        sottotask.aggiungiObserver(notificati::add);
+        sottotask.completaTask();
+        assertEquals(List.of(sottotask), notificati);
+        assertTrue(padre.isCompletato());
+        assertEquals(100.0, padre.percentualeCompletamento());
+        assertEquals(2, store.getCompletati().size());
+    }
+
+    /**
+     * Verifica che completare una task composita scriva nello store il completamento
+     * delle viste che contiene, sia con la visita sequenziale sia con quella parallela.
+     */
+    @Test
+    public void testCompletamentoDelleVisteNelleComposite() {
+        TaskStore store = new TaskStore();
+        CompositeTask piccola = new CompositeTask("Piccola", "Desc", LocalDate.now(), Priorita.MEDIA);
+        CompositeTask grande = new CompositeTask("Grande", "Desc", LocalDate.now(), Priorita.MEDIA);
+        for (int i = 0; i < CompositeTraversal.SOGLIA_PARALLELA; i++) {
+            store.aggiungiTask(new Task("T" + i, "Desc", LocalDate.now(), Priorita.BASSA));
+            (i < 2 ? piccola : grande).addSubtask(store.trovaPerTitolo("T" + i));
+        }
+
+        piccola.completaTask();
+        assertEquals(2, store.getCompletati().size());
+        assertTrue(store.trovaPerTitolo("T1").isCompletato());
+        assertFalse(store.trovaPerTitolo("T2").isCompletato());
+
+        grande.completaTask();
+        assertEquals(CompositeTraversal.SOGLIA_PARALLELA, store.getCompletati().size());
+    }
+
+    /**
+     * Verifica che una vista resti legata alla propria riga: dopo la rimozione del task
+     * e una nuova aggiunta con lo stesso titolo, la vista non legge né scrive la nuova riga.
+     */
+    @Test
+    public void testVisteDopoRiaggiunta() {
+        TaskStore store = new TaskStore();
+        store.aggiungiTask(new Task("Test", "Desc", LocalDate.now(), Priorita.MEDIA));
+        store.aggiungiTask(new Task("Altro", "Desc", LocalDate.now(), Priorita.MEDIA));
+        Task vecchia = store.trovaPerTitolo("Test");
+        store.completaTask("Test");
+        assertTrue(vecchia.isCompletato());
+
+        store.rimuoviTask("Test");
+        store.aggiungiTask(new Task("Test", "Desc", LocalDate.now(), Priorita.MEDIA));
+        assertTrue(vecchia.isCompletato());
+        assertFalse(store.trovaPerTitolo("Test").isCompletato());
+
+        Task nuova = store.trovaPerTitolo("Test");
+        store.rimuoviTask("Test");
+        store.aggiungiTask(new Task("Test", "Desc", LocalDate.now(), Priorita.MEDIA));
+        nuova.completaTask();
+        assertTrue(nuova.isCompletato());
+        assertFalse(store.trovaPerTitolo("Test").isCompletato());
+        assertTrue(store.getCompletati().isEmpty());
+    }
+}